@@ -0,0 +1,91 @@
+package com.logprocessing.benchmarks;
+
+import com.logprocessing.AlertEvaluationService;
+import com.logprocessing.AlertEvaluationService.AlertResult;
+import com.logprocessing.AlertRuleEngine;
+import com.logprocessing.Log;
+import com.logprocessing.LogBatch;
+import com.logprocessing.ProcessingMetrics;
+import com.logprocessing.StreamingAlertEvaluator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Alert evaluation cost as a function of batch size (time per batch).
+ * 
+ * <pre>
+ * evaluateLogs(List)    - object-per-log scan through the compiled rule engine
+ * evaluateBatch(LogBatch) - same rules over the columnar batch
+ * streamingRecord       - StreamingAlertEvaluator: batchSize incremental updates
+ * </pre>
+ * 
+ * Logs are 2% ERROR and 15% WARNING, so larger batches also match the
+ * default count-based rules and pay for building the alert reason.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Ddiagnostics.level=WARN")
+public class AlertEvaluationBenchmark {
+    
+    @Param({"10", "100", "1000", "10000"})
+    public int batchSize;
+    
+    private AlertEvaluationService service;
+    private StreamingAlertEvaluator streaming;
+    private List<Log> logs;
+    private LogBatch batch;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        service = new AlertEvaluationService(new ProcessingMetrics(), AlertRuleEngine.defaults());
+        streaming = new StreamingAlertEvaluator(service, 10);
+        logs = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            int bucket = i % 100;
+            String level = bucket < 2 ? "ERROR" : bucket < 17 ? "WARNING" : "INFO";
+            logs.add(new Log("BENCH-" + i, "Benchmark log " + i, level, "APP-" + (i % 4)));
+        }
+        batch = LogBatch.of(logs);
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        service.shutdown();
+    }
+    
+    @Benchmark
+    public AlertResult evaluateLogs() {
+        return service.evaluateLogs(logs);
+    }
+    
+    @Benchmark
+    public AlertResult evaluateBatch() {
+        return service.evaluateBatch(batch);
+    }
+    
+    @Benchmark
+    public void streamingRecord(Blackhole blackhole) {
+        for (int i = 0; i < logs.size(); i++) {
+            streaming.record(logs.get(i));
+        }
+        blackhole.consume(streaming.getLogsRecorded());
+    }
+}
@@ -0,0 +1,48 @@
+package com.logprocessing.benchmarks;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of benchmarks.jar: the standard JMH command line, but results
+ * are written as JSON by default so two builds can be diffed.
+ * 
+ * <pre>
+ * java -jar target/benchmarks.jar                       → jmh-result-&lt;timestamp&gt;.json
+ * java -jar target/benchmarks.jar Queue -p threads=1,64 → subset, same output
+ * java -jar target/benchmarks.jar -rf csv -rff out.csv  → explicit format wins
+ * </pre>
+ */
+public final class BenchmarkMain {
+    
+    private BenchmarkMain() {
+    }
+    
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        if (commandLine.shouldHelp() || commandLine.shouldList() || commandLine.shouldListProfilers()
+                || commandLine.shouldListResultFormats() || commandLine.shouldListWithParams()) {
+            // Informational flags are handled by JMH's own main
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+        
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+        if (!commandLine.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+        }
+        if (!commandLine.getResult().hasValue()) {
+            String timestamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+            String extension = commandLine.getResultFormat().hasValue()
+                ? commandLine.getResultFormat().get().name().toLowerCase()
+                : "json";
+            options.result("jmh-result-" + timestamp + "." + extension);
+        }
+        new Runner(options.build()).run();
+    }
+}
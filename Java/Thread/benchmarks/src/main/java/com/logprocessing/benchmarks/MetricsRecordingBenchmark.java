@@ -0,0 +1,116 @@
+package com.logprocessing.benchmarks;
+
+import com.logprocessing.Log;
+import com.logprocessing.LogBatch;
+import com.logprocessing.ProcessingMetrics;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * ProcessingMetrics recording cost, uncontended and with 8 / 32 threads
+ * recording into the same instance.
+ * 
+ * <pre>
+ * recordProcessed(Log)            - hot path, interned level and source id
+ * recordProcessed(String, String) - string API (parses the level per call)
+ * recordBatch(LogBatch)           - one aggregated update per BATCH_ROWS logs
+ * </pre>
+ * 
+ * Run with -t N to add other thread counts.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetricsRecordingBenchmark {
+    
+    private static final int BATCH_ROWS = 64;
+    
+    @State(Scope.Benchmark)
+    public static class SharedMetrics {
+        ProcessingMetrics metrics;
+        
+        @Setup(Level.Trial)
+        public void setUp() {
+            metrics = new ProcessingMetrics();
+        }
+    }
+    
+    /**
+     * Per-thread input, so threads contend on the metrics only.
+     */
+    @State(Scope.Thread)
+    public static class Input {
+        Log[] logs;
+        LogBatch batch;
+        long[] processingTimes;
+        int next = 0;
+        
+        @Setup(Level.Trial)
+        public void setUp() {
+            String[] levels = {"INFO", "INFO", "INFO", "WARNING", "ERROR"};
+            logs = new Log[1024];
+            for (int i = 0; i < logs.length; i++) {
+                logs[i] = new Log("BENCH-" + i, "Benchmark log", levels[i % levels.length], "APP-" + (i % 4));
+            }
+            batch = new LogBatch(BATCH_ROWS);
+            processingTimes = new long[BATCH_ROWS];
+            for (int i = 0; i < BATCH_ROWS; i++) {
+                Log log = logs[i];
+                batch.add(log.getTimestamp(), i, log.getLogLevel(), log.getSourceId(), log.getSource(), log.getMessage());
+                processingTimes[i] = 100 + i % 20;
+            }
+        }
+        
+        Log nextLog() {
+            Log log = logs[next];
+            next = (next + 1) & (logs.length - 1);
+            return log;
+        }
+    }
+    
+    @Benchmark
+    @Threads(1)
+    public void recordProcessedLog_1thread(SharedMetrics shared, Input input) {
+        shared.metrics.recordProcessed(input.nextLog(), 110);
+    }
+    
+    @Benchmark
+    @Threads(8)
+    public void recordProcessedLog_8threads(SharedMetrics shared, Input input) {
+        shared.metrics.recordProcessed(input.nextLog(), 110);
+    }
+    
+    @Benchmark
+    @Threads(32)
+    public void recordProcessedLog_32threads(SharedMetrics shared, Input input) {
+        shared.metrics.recordProcessed(input.nextLog(), 110);
+    }
+    
+    @Benchmark
+    @Threads(8)
+    public void recordProcessedStrings_8threads(SharedMetrics shared, Input input) {
+        Log log = input.nextLog();
+        shared.metrics.recordProcessed(log.getLevel(), log.getSource(), 110);
+    }
+    
+    @Benchmark
+    @Threads(8)
+    @OperationsPerInvocation(BATCH_ROWS)
+    public void recordBatch_8threads(SharedMetrics shared, Input input) {
+        shared.metrics.recordBatch(input.batch, input.processingTimes);
+    }
+}
@@ -0,0 +1,178 @@
+package com.logprocessing.benchmarks;
+
+import com.logprocessing.BlockingLogQueue;
+import com.logprocessing.Log;
+import com.logprocessing.LogQueue;
+import com.logprocessing.PriorityLaneLogQueue;
+import com.logprocessing.RingBufferLogQueue;
+import com.logprocessing.WaitStrategy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Producer → consumer hand-off through each queue implementation.
+ * 
+ * One operation moves LOGS_PER_OP logs from `threads` producers to `threads`
+ * consumers (1 to 64 of each). Producer and consumer threads are owned by
+ * the benchmark, so every transfer ends with an empty queue and no thread is
+ * left blocked when an iteration ends.
+ * 
+ * <pre>
+ * Throughput : logs/ms through the queue
+ * SampleTime : amortized time per log - each sampled transfer / LOGS_PER_OP
+ * </pre>
+ * 
+ * SampleTime is not the latency of one hand-off: it spreads a whole transfer,
+ * including the executor submit and the join on every future, over its logs.
+ * Its percentiles are percentiles of transfers, not of individual logs.
+ * 
+ * JDK ArrayBlockingQueue and LinkedBlockingQueue are the baselines.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Ddiagnostics.level=WARN") // "Queue full" chatter off
+public class QueueThroughputBenchmark {
+    
+    private static final int LOGS_PER_OP = 64 * 256;
+    private static final int CAPACITY = 1024;
+    private static final String[] LEVELS = {"INFO", "INFO", "INFO", "WARNING", "ERROR"};
+    private static final int LEVELS_USED = 3; // Distinct entries in LEVELS: the UNKNOWN lane stays empty
+    
+    @Param({"LogQueue", "RingBufferLogQueue", "PriorityLaneLogQueue", "ArrayBlockingQueue", "LinkedBlockingQueue"})
+    public String queueType;
+    
+    /** Producers, and as many consumers */
+    @Param({"1", "2", "4", "8", "16", "32", "64"})
+    public int threads;
+    
+    private Channel channel;
+    private ExecutorService executor;
+    private Log[] logs;
+    
+    /**
+     * The minimal put/take contract shared by our queues and the JDK ones.
+     */
+    interface Channel {
+        void put(Log log) throws InterruptedException;
+        
+        Log take() throws InterruptedException;
+    }
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        channel = createChannel(queueType);
+        executor = Executors.newFixedThreadPool(threads * 2);
+        logs = new Log[LOGS_PER_OP];
+        for (int i = 0; i < logs.length; i++) {
+            logs[i] = new Log("BENCH-" + i, "Benchmark log " + i, LEVELS[i % LEVELS.length], "BENCH-" + (i % 8));
+        }
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(LOGS_PER_OP)
+    public long transfer() throws Exception {
+        int perThread = LOGS_PER_OP / threads;
+        List<Future<Long>> consumers = new ArrayList<>(threads);
+        List<Future<Long>> producers = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) {
+            final int offset = t * perThread;
+            consumers.add(executor.submit(() -> {
+                long checksum = 0;
+                for (int i = 0; i < perThread; i++) {
+                    checksum += channel.take().getTimestamp();
+                }
+                return checksum;
+            }));
+            producers.add(executor.submit(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    channel.put(logs[offset + i]);
+                }
+                return 0L;
+            }));
+        }
+        long checksum = 0;
+        for (Future<Long> producer : producers) {
+            producer.get();
+        }
+        for (Future<Long> consumer : consumers) {
+            checksum += consumer.get(); // Returned so the JIT cannot drop the takes
+        }
+        return checksum;
+    }
+    
+    static Channel createChannel(String queueType) {
+        switch (queueType) {
+            case "LogQueue":
+                return adapt(new LogQueue(CAPACITY));
+            case "RingBufferLogQueue":
+                return adapt(new RingBufferLogQueue(CAPACITY, WaitStrategy.blocking()));
+            case "PriorityLaneLogQueue":
+                // Same total capacity across the lanes that actually receive logs
+                return adapt(new PriorityLaneLogQueue(CAPACITY / LEVELS_USED));
+            case "ArrayBlockingQueue":
+                return adapt(new ArrayBlockingQueue<>(CAPACITY));
+            case "LinkedBlockingQueue":
+                return adapt(new LinkedBlockingQueue<>(CAPACITY));
+            default:
+                throw new IllegalArgumentException("Unknown queue type: " + queueType);
+        }
+    }
+    
+    private static Channel adapt(BlockingLogQueue queue) {
+        return new Channel() {
+            @Override
+            public void put(Log log) throws InterruptedException {
+                queue.addLog(log);
+            }
+            
+            @Override
+            public Log take() throws InterruptedException {
+                return queue.takeLog();
+            }
+        };
+    }
+    
+    private static Channel adapt(BlockingQueue<Log> queue) {
+        return new Channel() {
+            @Override
+            public void put(Log log) throws InterruptedException {
+                queue.put(log);
+            }
+            
+            @Override
+            public Log take() throws InterruptedException {
+                return queue.take();
+            }
+        };
+    }
+}
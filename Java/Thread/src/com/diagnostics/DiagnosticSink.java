@@ -0,0 +1,310 @@
+package com.diagnostics;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.IllegalFormatException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous, level-gated, ring-buffered sink for diagnostic messages.
+ * 
+ * Replaces System.out.println(String.format(...)) on hot paths:
+ * 
+ * <pre>
+ * DiagnosticSink.get().log(Level.DEBUG, "[Consumer %s] Took log: %s", threadName, logId);
+ * </pre>
+ * 
+ * KEY CONCEPTS:
+ * - Level gate: A disabled level costs one int comparison - nothing is
+ *   formatted, copied or enqueued
+ * - Lazy formatting: The caller stores the template and argument references
+ *   in a pre-allocated ring slot; String.format runs on the drain thread
+ * - Lock-free ring (multi-producer, single consumer): Per-slot sequence
+ *   numbers, producers claim slots with one CAS, no PrintStream lock
+ * - Never blocks: When the ring is full the event is dropped and counted
+ * 
+ * WHY THIS DESIGN:
+ * - PrintStream.println is synchronized: every worker serializes on it,
+ *   often while holding its own queue lock
+ * - String.format is paid even when nobody reads the output
+ * 
+ * CONFIGURATION (system properties):
+ * - diagnostics.level      TRACE | DEBUG | INFO | WARN | ERROR | OFF (default INFO;
+ *                          an unknown value warns once and falls back to INFO)
+ * - diagnostics.bufferSize ring capacity, rounded up to a power of two (default 8192)
+ * 
+ * CAVEAT: Arguments are formatted later, on another thread - pass immutable
+ * values (Strings, boxed numbers), not objects that will change.
+ */
+public final class DiagnosticSink {
+    
+    public enum Level {
+        TRACE, DEBUG, INFO, WARN, ERROR, OFF
+    }
+    
+    private static final Object[] NO_ARGS = new Object[0];
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    
+    private static final DiagnosticSink DEFAULT = new DiagnosticSink(
+        Integer.getInteger("diagnostics.bufferSize", 8192),
+        configuredLevel(),
+        System.out,
+        System.err
+    );
+    
+    private final int mask;
+    private final Event[] ring;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong(0); // Next position to claim (producers)
+    private volatile long head = 0;                    // Next position to drain (drain thread only writes)
+    
+    private volatile int threshold;
+    private final PrintStream out;
+    private final PrintStream err;
+    private final LongAdder dropped = new LongAdder();
+    private long droppedReported = 0; // Drain thread only
+    private final Thread drainThread;
+    
+    /**
+     * @param requestedCapacity ring size, rounded up to a power of two
+     * @param threshold         lowest level that is recorded
+     * @param out               destination below ERROR
+     * @param err               destination for ERROR
+     */
+    public DiagnosticSink(int requestedCapacity, Level threshold, PrintStream out, PrintStream err) {
+        if (requestedCapacity < 2) {
+            throw new IllegalArgumentException("Capacity must be at least 2: " + requestedCapacity);
+        }
+        int capacity = Integer.highestOneBit(requestedCapacity - 1) << 1;
+        this.mask = capacity - 1;
+        this.ring = new Event[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            ring[i] = new Event();
+            sequences.set(i, i);
+        }
+        this.threshold = threshold.ordinal();
+        this.out = out;
+        this.err = err;
+        
+        this.drainThread = new Thread(this::drainLoop, "diagnostic-sink");
+        drainThread.setDaemon(true); // Never keeps the JVM alive
+        drainThread.start();
+        // Write what is still buffered when the JVM exits
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> flush(1, TimeUnit.SECONDS)));
+    }
+    
+    /**
+     * diagnostics.level, or INFO if it is not a Level name. Never throws: an
+     * exception here would fail the class init of every user of the sink.
+     */
+    private static Level configuredLevel() {
+        String name = System.getProperty("diagnostics.level", "INFO");
+        try {
+            return Level.valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.err.println(String.format("[DiagnosticSink] Unknown diagnostics.level '%s', using INFO", name));
+            return Level.INFO;
+        }
+    }
+    
+    /**
+     * Process-wide sink configured from system properties.
+     */
+    public static DiagnosticSink get() {
+        return DEFAULT;
+    }
+    
+    public boolean isEnabled(Level level) {
+        return level.ordinal() >= threshold;
+    }
+    
+    public void setLevel(Level level) {
+        this.threshold = level.ordinal();
+    }
+    
+    // Fixed-arity overloads: no varargs array on the caller's thread
+    
+    public void log(Level level, String template) {
+        if (isEnabled(level)) {
+            publish(level, template, 0, null, null, null, null, NO_ARGS);
+        }
+    }
+    
+    public void log(Level level, String template, Object a0) {
+        if (isEnabled(level)) {
+            publish(level, template, 1, a0, null, null, null, NO_ARGS);
+        }
+    }
+    
+    public void log(Level level, String template, Object a0, Object a1) {
+        if (isEnabled(level)) {
+            publish(level, template, 2, a0, a1, null, null, NO_ARGS);
+        }
+    }
+    
+    public void log(Level level, String template, Object a0, Object a1, Object a2) {
+        if (isEnabled(level)) {
+            publish(level, template, 3, a0, a1, a2, null, NO_ARGS);
+        }
+    }
+    
+    public void log(Level level, String template, Object a0, Object a1, Object a2, Object a3) {
+        if (isEnabled(level)) {
+            publish(level, template, 4, a0, a1, a2, a3, NO_ARGS);
+        }
+    }
+    
+    public void log(Level level, String template, Object a0, Object a1, Object a2, Object a3, Object... more) {
+        if (isEnabled(level)) {
+            publish(level, template, 4 + more.length, a0, a1, a2, a3, more);
+        }
+    }
+    
+    private void publish(Level level, String template, int argCount,
+                         Object a0, Object a1, Object a2, Object a3, Object[] more) {
+        long pos = tail.get();
+        while (true) {
+            int index = (int) (pos & mask);
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    Event event = ring[index];
+                    event.level = level;
+                    event.template = template;
+                    event.argCount = argCount;
+                    event.a0 = a0;
+                    event.a1 = a1;
+                    event.a2 = a2;
+                    event.a3 = a3;
+                    event.more = more;
+                    sequences.set(index, pos + 1); // Publish: fields above happen-before the drain
+                    return;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                dropped.increment(); // Ring full - never block the caller
+                return;
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+    
+    /**
+     * Waits until every event published before this call has been written.
+     * 
+     * @return false if the timeout elapsed first
+     */
+    public boolean flush(long timeout, TimeUnit unit) {
+        long target = tail.get();
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (head < target) {
+            if (System.nanoTime() >= deadline || !drainThread.isAlive()) {
+                return false;
+            }
+            LockSupport.parkNanos(IDLE_PARK_NANOS / 4);
+        }
+        return true;
+    }
+    
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+    
+    private void drainLoop() {
+        StringBuilder outBatch = new StringBuilder(4096);
+        StringBuilder errBatch = new StringBuilder(256);
+        long position = 0;
+        
+        while (true) {
+            int index = (int) (position & mask);
+            if (sequences.get(index) == position + 1) {
+                Event event = ring[index];
+                StringBuilder target = event.level == Level.ERROR ? errBatch : outBatch;
+                target.append(event.format()).append(System.lineSeparator());
+                event.clear(); // Drop references so arguments can be collected
+                sequences.set(index, position + mask + 1); // Release slot for the next lap
+                position++;
+                if (outBatch.length() < 64 * 1024) {
+                    continue; // Keep batching while events are available
+                }
+            }
+            
+            // Ring empty (or batch large): one write per stream per batch
+            writeBatch(outBatch, errBatch);
+            head = position;
+            if (sequences.get((int) (position & mask)) != position + 1) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+    }
+    
+    private void writeBatch(StringBuilder outBatch, StringBuilder errBatch) {
+        long droppedNow = dropped.sum();
+        if (droppedNow > droppedReported) {
+            outBatch.append(
+                String.format(
+                    "[DiagnosticSink] %d events dropped (ring full)%n",
+                    droppedNow - droppedReported
+                )
+            );
+            droppedReported = droppedNow;
+        }
+        if (outBatch.length() > 0) {
+            out.print(outBatch);
+            out.flush();
+            outBatch.setLength(0);
+        }
+        if (errBatch.length() > 0) {
+            err.print(errBatch);
+            err.flush();
+            errBatch.setLength(0);
+        }
+    }
+    
+    /**
+     * Pre-allocated, reused ring slot. Plain fields: written by the producer
+     * that claimed the slot, read by the drain thread after the sequence
+     * publish (volatile write → volatile read).
+     */
+    private static final class Event {
+        private Level level;
+        private String template;
+        private int argCount;
+        private Object a0;
+        private Object a1;
+        private Object a2;
+        private Object a3;
+        private Object[] more;
+        
+        private String format() {
+            if (argCount == 0) {
+                return template;
+            }
+            Object[] args = new Object[argCount];
+            Object[] fixed = {a0, a1, a2, a3};
+            for (int i = 0; i < argCount; i++) {
+                args[i] = i < 4 ? fixed[i] : more[i - 4];
+            }
+            try {
+                return String.format(template, args);
+            } catch (IllegalFormatException e) {
+                return template + " " + Arrays.toString(args);
+            }
+        }
+        
+        private void clear() {
+            template = null;
+            a0 = null;
+            a1 = null;
+            a2 = null;
+            a3 = null;
+            more = null;
+        }
+    }
+}
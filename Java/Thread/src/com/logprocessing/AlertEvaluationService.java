@@ -1,6 +1,7 @@
 package com.logprocessing;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -9,6 +10,9 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeoutException;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -20,15 +24,26 @@ public class AlertEvaluationService {
     
     private final ExecutorService evaluationExecutor;
     private final ProcessingMetrics metrics;
+    private final AlertRuleEngine ruleEngine;
     
     private final AtomicInteger alertsTriggered = new AtomicInteger(0);
     private final AtomicInteger evaluationsCompleted = new AtomicInteger(0);
     private final AtomicInteger evaluationsCancelled = new AtomicInteger(0);
     
     public AlertEvaluationService(ProcessingMetrics metrics) {
+        this(metrics, AlertRuleEngine.fromSystemProperty());
+    }
+    
+    public AlertEvaluationService(ProcessingMetrics metrics, AlertRuleEngine ruleEngine) {
         this.evaluationExecutor = Executors.newFixedThreadPool(3);
         this.metrics = metrics;
-        System.out.println("[AlertEvaluationService] Created evaluation thread pool");
+        this.ruleEngine = ruleEngine;
+        System.out.println(
+            String.format(
+                "[AlertEvaluationService] Created evaluation thread pool | Rules: %s",
+                ruleEngine.getRuleNames()
+            )
+        );
     }
     
     /**
@@ -110,41 +125,113 @@ public class AlertEvaluationService {
         return future;
     }
     
-    private AlertResult evaluateLogs(List<Log> logs) {
-        int errorCount = 0;
-        int warningCount = 0;
-        List<String> errorMessages = new ArrayList<>();
+    /**
+     * Synchronous evaluation of a batch (evaluateLogsAsync adds simulated work on top).
+     */
+    public AlertResult evaluateLogs(List<Log> logs) {
+        // Single pass: the compiled engine counts everything its rules need
+        long[] counters = ruleEngine.newCounters();
+        ErrorGroupCollector errors = new ErrorGroupCollector();
         
         for (Log log : logs) {
-            if ("ERROR".equals(log.getLevel())) {
-                errorCount++;
-                errorMessages.add(log.getMessage());
-            } else if ("WARNING".equals(log.getLevel())) {
-                warningCount++;
+            ruleEngine.accumulate(counters, log.getLogLevel(), log.getSourceId(), 1);
+            if (log.getLogLevel() == LogLevel.ERROR) {
+                errors.add(log.getMessage(), 1);
             }
         }
         
-        double errorRate = logs.size() > 0 ? (double) errorCount / logs.size() * 100 : 0;
-        
-        boolean shouldAlert = false;
-        String reason = "";
+        return evaluateCounters(counters, errors);
+    }
+    
+    /**
+     * Evaluates a columnar batch synchronously; only ERROR rows are
+     * materialized (as messages), everything else is counted in place.
+     */
+    public AlertResult evaluateBatch(LogBatch batch) {
+        ErrorGroupCollector errors = new ErrorGroupCollector();
+        for (int i = 0; i < batch.size(); i++) {
+            if (batch.getLevel(i) == LogLevel.ERROR) {
+                errors.add(batch.getMessage(i), 1);
+            }
+        }
+        return evaluateCounters(ruleEngine.count(batch), errors);
+    }
+    
+    /**
+     * Evaluates one LogDeduplicator window: each record weighs its count, so
+     * the rules see the same totals as if every repeat had been evaluated.
+     */
+    public AlertResult evaluateAggregated(List<LogDeduplicator.AggregatedLog> records) {
+        long[] counters = ruleEngine.newCounters();
+        ErrorGroupCollector errors = new ErrorGroupCollector();
         
-        if (errorRate > 10.0) {
-            shouldAlert = true;
-            reason = String.format("Error rate %.2f%% exceeds threshold (10%%)", errorRate);
-        } else if (errorCount > 5) {
-            shouldAlert = true;
-            reason = String.format("Error count %d exceeds threshold (5)", errorCount);
-        } else if (errorCount > 0 && warningCount > 10) {
-            shouldAlert = true;
-            reason = String.format("High warning count (%d) with errors present", warningCount);
+        for (LogDeduplicator.AggregatedLog record : records) {
+            ruleEngine.accumulate(counters, record.getLevel(), record.getSourceId(), record.getCount());
+            if (record.getLevel() == LogLevel.ERROR) {
+                errors.add(record.getFingerprint(), record.getTemplate(), record.getExemplar(), record.getCount());
+            }
         }
         
-        if (shouldAlert) {
+        return evaluateCounters(counters, errors);
+    }
+    
+    /**
+     * Evaluates pre-aggregated rule counters (used by StreamingAlertEvaluator,
+     * which maintains the counters incrementally instead of re-scanning logs).
+     * 
+     * @param errorMessages recent error messages, oldest first; only the newest
+     *                      ERROR-count of them are grouped (older ones have left the window)
+     */
+    AlertResult evaluateCounters(long[] counters, List<String> errorMessages) {
+        return evaluateCounters(counters, windowErrors(counters, errorMessages), true);
+    }
+    
+    /**
+     * Same as evaluateCounters(long[], List), but a match is not counted in
+     * getAlertsTriggered(): for reports that only look at the current state.
+     */
+    AlertResult previewCounters(long[] counters, List<String> errorMessages) {
+        return evaluateCounters(counters, windowErrors(counters, errorMessages), false);
+    }
+    
+    private static ErrorGroupCollector windowErrors(long[] counters, List<String> errorMessages) {
+        int inWindow = (int) Math.min(errorMessages.size(), counters[AlertRuleEngine.ERROR_SLOT]);
+        List<String> recent = errorMessages.subList(errorMessages.size() - inWindow, errorMessages.size());
+        return ErrorGroupCollector.of(recent);
+    }
+    
+    private AlertResult evaluateCounters(long[] counters, ErrorGroupCollector errors) {
+        return evaluateCounters(counters, errors, true);
+    }
+    
+    /**
+     * @param count add a match to alertsTriggered
+     */
+    private AlertResult evaluateCounters(long[] counters, ErrorGroupCollector errors, boolean count) {
+        long total = counters[AlertRuleEngine.TOTAL_SLOT];
+        int errorCount = (int) counters[AlertRuleEngine.ERROR_SLOT];
+        int warningCount = (int) counters[AlertRuleEngine.WARNING_SLOT];
+        double errorRate = total > 0 ? (double) errorCount / total * 100 : 0;
+        
+        int rule = ruleEngine.firstMatch(counters);
+        boolean shouldAlert = rule >= 0;
+        if (shouldAlert && count) {
             alertsTriggered.incrementAndGet();
         }
         
-        return new AlertResult(shouldAlert, reason, errorCount, warningCount, errorRate, errorMessages);
+        String reason = shouldAlert ? ruleEngine.describe(rule, counters) : "";
+        return new AlertResult(shouldAlert, reason, errorCount, warningCount, errorRate, errors);
+    }
+    
+    public AlertRuleEngine getRuleEngine() {
+        return ruleEngine;
+    }
+    
+    /**
+     * Executor for asynchronous alert callbacks (shared with batch evaluations).
+     */
+    Executor getCallbackExecutor() {
+        return evaluationExecutor;
     }
     
     public List<AlertResult> evaluateMultipleBatches(List<List<Log>> logBatches) 
@@ -242,23 +329,113 @@ public class AlertEvaluationService {
         return evaluationsCancelled.get();
     }
     
+    /**
+     * Error messages sharing one MessageFingerprint, counted together.
+     */
+    public static class ErrorGroup {
+        private final String template;
+        private final String exemplar;
+        private final long count;
+        
+        public ErrorGroup(String template, String exemplar, long count) {
+            this.template = template;
+            this.exemplar = exemplar;
+            this.count = count;
+        }
+        
+        /** Masked message, e.g. "Timeout after &lt;n&gt;ms" */
+        public String getTemplate() { return template; }
+        
+        /** One of the grouped messages, unmasked */
+        public String getExemplar() { return exemplar; }
+        
+        public long getCount() { return count; }
+        
+        @Override
+        public String toString() {
+            return String.format("%d× %s", count, template);
+        }
+    }
+    
+    /**
+     * Groups error messages by fingerprint while a result is built. Bounded:
+     * a burst of 50,000 errors keeps MAX_ERROR_GROUPS templates, not 50,000
+     * strings; errors with further fingerprints only count in errorCount.
+     */
+    private static final class ErrorGroupCollector {
+        private static final int MAX_ERROR_GROUPS = 10;
+        
+        private final Map<Long, long[]> counts = new HashMap<>();
+        private final Map<Long, String[]> texts = new HashMap<>(); // {template, exemplar}
+        
+        static ErrorGroupCollector of(List<String> messages) {
+            ErrorGroupCollector errors = new ErrorGroupCollector();
+            for (String message : messages) {
+                errors.add(message, 1);
+            }
+            return errors;
+        }
+        
+        void add(String message, long count) {
+            long fingerprint = MessageFingerprint.fingerprint(message);
+            long[] existing = counts.get(fingerprint);
+            if (existing != null) {
+                existing[0] += count;
+            } else if (counts.size() < MAX_ERROR_GROUPS) {
+                // Template built once per group, not per message
+                add(fingerprint, MessageFingerprint.template(message), message, count);
+            }
+        }
+        
+        void add(long fingerprint, String template, String exemplar, long count) {
+            long[] existing = counts.get(fingerprint);
+            if (existing != null) {
+                existing[0] += count;
+            } else if (counts.size() < MAX_ERROR_GROUPS) {
+                counts.put(fingerprint, new long[] {count});
+                texts.put(fingerprint, new String[] {template, exemplar});
+            }
+        }
+        
+        /** Most frequent first */
+        List<ErrorGroup> toGroups() {
+            List<ErrorGroup> groups = new ArrayList<>(counts.size());
+            for (Map.Entry<Long, long[]> entry : counts.entrySet()) {
+                String[] text = texts.get(entry.getKey());
+                groups.add(new ErrorGroup(text[0], text[1], entry.getValue()[0]));
+            }
+            Collections.sort(groups, (a, b) -> Long.compare(b.getCount(), a.getCount()));
+            return groups;
+        }
+    }
+    
     public static class AlertResult {
         private final boolean shouldTriggerAlert;
         private final String reason;
         private final int errorCount;
         private final int warningCount;
         private final double errorRate;
-        private final List<String> errorMessages;
+        private final List<ErrorGroup> errorGroups;
         
+        /**
+         * Messages are grouped by fingerprint; at most 10 groups are kept.
+         */
         public AlertResult(boolean shouldTriggerAlert, String reason, 
                           int errorCount, int warningCount, double errorRate,
                           List<String> errorMessages) {
+            this(shouldTriggerAlert, reason, errorCount, warningCount, errorRate,
+                 ErrorGroupCollector.of(errorMessages));
+        }
+        
+        private AlertResult(boolean shouldTriggerAlert, String reason, 
+                            int errorCount, int warningCount, double errorRate,
+                            ErrorGroupCollector errors) {
             this.shouldTriggerAlert = shouldTriggerAlert;
             this.reason = reason;
             this.errorCount = errorCount;
             this.warningCount = warningCount;
             this.errorRate = errorRate;
-            this.errorMessages = errorMessages;
+            this.errorGroups = errors.toGroups();
         }
         
         public boolean shouldTriggerAlert() { return shouldTriggerAlert; }
@@ -266,17 +443,31 @@ public class AlertEvaluationService {
         public int getErrorCount() { return errorCount; }
         public int getWarningCount() { return warningCount; }
         public double getErrorRate() { return errorRate; }
-        public List<String> getErrorMessages() { return errorMessages; }
+        
+        /** Error messages grouped by fingerprint, most frequent first */
+        public List<ErrorGroup> getErrorGroups() { return errorGroups; }
+        
+        /**
+         * One exemplar per error group (not every error message).
+         */
+        public List<String> getErrorMessages() {
+            List<String> messages = new ArrayList<>(errorGroups.size());
+            for (ErrorGroup group : errorGroups) {
+                messages.add(group.getExemplar());
+            }
+            return messages;
+        }
         
         @Override
         public String toString() {
             if (shouldTriggerAlert) {
-                return String.format("ALERT: %s (Errors: %d, Warnings: %d, Rate: %.2f%%)",
-                    reason, errorCount, warningCount, errorRate);
+                String top = errorGroups.isEmpty() ? "" : " | Top error: " + errorGroups.get(0);
+                return String.format("ALERT: %s (Errors: %d, Warnings: %d, Rate: %.2f%%)%s",
+                    reason, errorCount, warningCount, errorRate, top);
             } else {
                 return String.format("OK (Errors: %d, Warnings: %d, Rate: %.2f%%)",
                     errorCount, warningCount, errorRate);
             }
         }
     }
-}
\ No newline at end of file
+}
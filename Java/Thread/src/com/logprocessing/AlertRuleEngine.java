@@ -0,0 +1,424 @@
+package com.logprocessing;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * STEP 16: Compiled Alert Rule Engine
+ * 
+ * Alert rules are defined in configuration and compiled ONCE into:
+ * - A set of counters (one per distinct level/source combination used by any rule)
+ * - A lookup table: (level, source) → which counters a log increments
+ * - A flat list of comparisons evaluated against the counters
+ * 
+ * RULE SYNTAX (Properties):
+ * <pre>
+ * alert.rules = high-error-rate, error-burst, warnings-with-errors
+ * alert.rule.high-error-rate      = rate(ERROR) &gt; 10
+ * alert.rule.error-burst          = count(ERROR) &gt; 5
+ * alert.rule.warnings-with-errors = count(ERROR) &gt; 0 &amp;&amp; count(WARNING) &gt; 10
+ * alert.rule.payments-errors      = count(ERROR@APP-2) &gt;= 3
+ * </pre>
+ * - count(LEVEL[@SOURCE]): number of matching logs (LEVEL may be * for any level)
+ * - rate(LEVEL[@SOURCE]): percentage of logs (of that source) with LEVEL
+ * - Conditions joined with &amp;&amp; must all hold; the first matching rule (in
+ *   alert.rules order) gives the alert reason
+ * 
+ * WHY THIS DESIGN:
+ * - Hardcoded thresholds need a redeploy to change
+ * - One String.equals pass per rule multiplies evaluation cost by rule count
+ * - Compiled: one pass over the batch, cost per log = number of counters it hits
+ */
+public class AlertRuleEngine {
+    
+    private static final int LEVEL_COUNT = LogLevel.COUNT;
+    private static final int ANY_LEVEL = -1;
+    
+    // Counters every engine has, so AlertResult can always report them
+    static final int TOTAL_SLOT = 0;
+    static final int ERROR_SLOT = 1;
+    static final int WARNING_SLOT = 2;
+    
+    private static final int OP_GT = 0;
+    private static final int OP_GE = 1;
+    private static final int OP_LT = 2;
+    private static final int OP_LE = 3;
+    private static final String[] OP_SYMBOLS = {">", ">=", "<", "<="};
+    
+    private static final Pattern CONDITION = Pattern.compile(
+        "\\s*(count|rate)\\(\\s*([A-Za-z*]+)\\s*(?:@\\s*([^)\\s]+))?\\s*\\)\\s*(>=|<=|>|<)\\s*([0-9]+(?:\\.[0-9]+)?)\\s*"
+    );
+    
+    private final List<String> ruleNames = new ArrayList<>();
+    private final List<String> ruleExpressions = new ArrayList<>();
+    
+    // Counter layout
+    private final Map<String, Integer> slotByKey = new HashMap<>();
+    private final List<String> slotLabels = new ArrayList<>();
+    private final SourceRegistry sourceRegistry;
+    private final int[][] globalSlots = new int[LEVEL_COUNT][];
+    private final int[][][] slotsBySourceId; // [sourceId][level ordinal] → slots
+    
+    // Compiled conditions (struct-of-arrays), rules are ranges [ruleStart[r], ruleStart[r+1])
+    private final int[] numeratorSlot;
+    private final int[] denominatorSlot; // -1 for count(), else the slot to divide by
+    private final int[] operator;
+    private final double[] threshold;
+    private final int[] ruleStart;
+    
+    private AlertRuleEngine(Map<String, String> rules) {
+        this.sourceRegistry = SourceRegistry.global();
+        
+        // Always-present counters
+        slotFor(ANY_LEVEL, null);
+        slotFor(LogLevel.ERROR.ordinal(), null);
+        slotFor(LogLevel.WARNING.ordinal(), null);
+        
+        List<int[]> conditions = new ArrayList<>();
+        List<Double> thresholds = new ArrayList<>();
+        List<Integer> starts = new ArrayList<>();
+        
+        for (Map.Entry<String, String> rule : rules.entrySet()) {
+            starts.add(conditions.size());
+            ruleNames.add(rule.getKey());
+            ruleExpressions.add(rule.getValue().trim());
+            
+            for (String term : rule.getValue().split("&&")) {
+                Matcher matcher = CONDITION.matcher(term);
+                if (!matcher.matches()) {
+                    throw new IllegalArgumentException(
+                        String.format("Invalid condition in rule '%s': %s", rule.getKey(), term.trim())
+                    );
+                }
+                boolean isRate = "rate".equals(matcher.group(1));
+                int level = parseLevel(matcher.group(2), rule.getKey());
+                String source = matcher.group(3);
+                
+                int numerator = slotFor(level, source);
+                int denominator = isRate ? slotFor(ANY_LEVEL, source) : -1;
+                conditions.add(new int[] {numerator, denominator, parseOperator(matcher.group(4))});
+                thresholds.add(Double.parseDouble(matcher.group(5)));
+            }
+        }
+        starts.add(conditions.size());
+        
+        int n = conditions.size();
+        this.numeratorSlot = new int[n];
+        this.denominatorSlot = new int[n];
+        this.operator = new int[n];
+        this.threshold = new double[n];
+        for (int i = 0; i < n; i++) {
+            numeratorSlot[i] = conditions.get(i)[0];
+            denominatorSlot[i] = conditions.get(i)[1];
+            operator[i] = conditions.get(i)[2];
+            threshold[i] = thresholds.get(i);
+        }
+        this.ruleStart = new int[starts.size()];
+        for (int i = 0; i < ruleStart.length; i++) {
+            ruleStart[i] = starts.get(i);
+        }
+        
+        this.slotsBySourceId = buildLookupTables();
+    }
+    
+    /**
+     * The built-in thresholds: error rate above 10%, more than 5 errors,
+     * or more than 10 warnings while errors are present.
+     */
+    public static AlertRuleEngine defaults() {
+        Map<String, String> rules = new LinkedHashMap<>();
+        rules.put("high-error-rate", "rate(ERROR) > 10");
+        rules.put("error-burst", "count(ERROR) > 5");
+        rules.put("warnings-with-errors", "count(ERROR) > 0 && count(WARNING) > 10");
+        return new AlertRuleEngine(rules);
+    }
+    
+    /**
+     * Compiles rules from alert.rules / alert.rule.&lt;name&gt; properties.
+     */
+    public static AlertRuleEngine fromProperties(Properties properties) {
+        String order = properties.getProperty("alert.rules");
+        if (order == null || order.trim().isEmpty()) {
+            throw new IllegalArgumentException("Missing property: alert.rules");
+        }
+        Map<String, String> rules = new LinkedHashMap<>();
+        for (String name : order.split(",")) {
+            String ruleName = name.trim();
+            String expression = properties.getProperty("alert.rule." + ruleName);
+            if (expression == null) {
+                throw new IllegalArgumentException("Missing property: alert.rule." + ruleName);
+            }
+            rules.put(ruleName, expression);
+        }
+        return new AlertRuleEngine(rules);
+    }
+    
+    public static AlertRuleEngine load(Path path) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(path)) {
+            properties.load(in);
+        }
+        return fromProperties(properties);
+    }
+    
+    /**
+     * Loads rules from -Dlogprocessing.alertRules=&lt;file&gt;, or the defaults.
+     */
+    public static AlertRuleEngine fromSystemProperty() {
+        String path = System.getProperty("logprocessing.alertRules");
+        if (path == null) {
+            return defaults();
+        }
+        try {
+            AlertRuleEngine engine = load(Paths.get(path));
+            System.out.println(
+                String.format(
+                    "[AlertRuleEngine] Loaded %d rules from %s",
+                    engine.getRuleCount(),
+                    path
+                )
+            );
+            return engine;
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read alert rules from " + path, e);
+        }
+    }
+    
+    /**
+     * Fresh, zeroed counter array for one batch or window.
+     */
+    public long[] newCounters() {
+        return new long[slotLabels.size()];
+    }
+    
+    /**
+     * Adds delta (±1) for one log to every counter it matches.
+     * 
+     * Cost: the counters this (level, source) feeds - independent of rule
+     * count. Two array lookups, no hashing, no allocation.
+     */
+    public void accumulate(long[] counters, LogLevel level, int sourceId, long delta) {
+        int levelIndex = level.ordinal();
+        for (int slot : globalSlots[levelIndex]) {
+            counters[slot] += delta;
+        }
+        if (sourceId >= 0 && sourceId < slotsBySourceId.length) {
+            int[][] bySource = slotsBySourceId[sourceId];
+            if (bySource != null) {
+                for (int slot : bySource[levelIndex]) {
+                    counters[slot] += delta;
+                }
+            }
+        }
+    }
+    
+    public void accumulate(long[] counters, String level, String source, long delta) {
+        // lookup(), not idOf(): every source a rule names was registered at compile time
+        accumulate(counters, LogLevel.parse(level), sourceRegistry.lookup(source), delta);
+    }
+    
+    /**
+     * Single pass over a batch.
+     */
+    public long[] count(List<Log> logs) {
+        long[] counters = newCounters();
+        for (Log log : logs) {
+            accumulate(counters, log.getLogLevel(), log.getSourceId(), 1);
+        }
+        return counters;
+    }
+    
+    /**
+     * Single pass over a columnar batch.
+     */
+    public long[] count(LogBatch batch) {
+        long[] counters = newCounters();
+        for (int i = 0; i < batch.size(); i++) {
+            accumulate(counters, batch.getLevel(i), batch.getSourceId(i), 1);
+        }
+        return counters;
+    }
+    
+    /**
+     * Returns the index of the first rule whose conditions all hold, or -1.
+     * Allocation-free, safe to call per log.
+     */
+    public int firstMatch(long[] counters) {
+        for (int rule = 0; rule + 1 < ruleStart.length; rule++) {
+            boolean matched = true;
+            for (int c = ruleStart[rule]; c < ruleStart[rule + 1] && matched; c++) {
+                matched = holds(c, valueOf(c, counters));
+            }
+            if (matched) {
+                return rule;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Human-readable reason for a matched rule, with the observed values.
+     */
+    public String describe(int rule, long[] counters) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Rule '%s' matched: ", ruleNames.get(rule)));
+        for (int c = ruleStart[rule]; c < ruleStart[rule + 1]; c++) {
+            if (c > ruleStart[rule]) {
+                sb.append(" && ");
+            }
+            boolean isRate = denominatorSlot[c] >= 0;
+            sb.append(String.format(
+                isRate ? "rate(%s)=%.2f%% %s %s" : "count(%s)=%.0f %s %s",
+                slotLabels.get(numeratorSlot[c]),
+                valueOf(c, counters),
+                OP_SYMBOLS[operator[c]],
+                formatThreshold(threshold[c])
+            ));
+        }
+        return sb.toString();
+    }
+    
+    public int getRuleCount() {
+        return ruleNames.size();
+    }
+    
+    public List<String> getRuleNames() {
+        return new ArrayList<>(ruleNames);
+    }
+    
+    private double valueOf(int condition, long[] counters) {
+        long numerator = counters[numeratorSlot[condition]];
+        int denominator = denominatorSlot[condition];
+        if (denominator < 0) {
+            return numerator;
+        }
+        long total = counters[denominator];
+        return total > 0 ? (double) numerator / total * 100 : 0.0;
+    }
+    
+    private boolean holds(int condition, double value) {
+        switch (operator[condition]) {
+            case OP_GT: return value > threshold[condition];
+            case OP_GE: return value >= threshold[condition];
+            case OP_LT: return value < threshold[condition];
+            default:    return value <= threshold[condition];
+        }
+    }
+    
+    private int slotFor(int level, String source) {
+        String key = level + "@" + (source == null ? "*" : source);
+        Integer slot = slotByKey.get(key);
+        if (slot == null) {
+            slot = slotLabels.size();
+            slotByKey.put(key, slot);
+            String levelLabel = level == ANY_LEVEL ? "*" : LogLevel.fromOrdinal(level).name();
+            slotLabels.add(source == null ? levelLabel : levelLabel + "@" + source);
+        }
+        return slot;
+    }
+    
+    /**
+     * Inverts slotByKey into per-level (and per-source, per-level) slot lists.
+     * 
+     * @return the per-source table, indexed by SourceRegistry id
+     */
+    private int[][][] buildLookupTables() {
+        Map<String, List<List<Integer>>> bySource = new HashMap<>();
+        List<List<Integer>> global = newLevelLists();
+        
+        for (Map.Entry<String, Integer> entry : slotByKey.entrySet()) {
+            String key = entry.getKey();
+            int at = key.indexOf('@');
+            int level = Integer.parseInt(key.substring(0, at));
+            String source = key.substring(at + 1);
+            
+            List<List<Integer>> target = "*".equals(source)
+                ? global
+                : bySource.computeIfAbsent(source, s -> newLevelLists());
+            for (int l = 0; l < LEVEL_COUNT; l++) {
+                if (level == ANY_LEVEL || level == l) {
+                    target.get(l).add(entry.getValue());
+                }
+            }
+        }
+        
+        for (int l = 0; l < LEVEL_COUNT; l++) {
+            globalSlots[l] = toArray(global.get(l));
+        }
+        int[][][] slotsBySourceId = new int[0][][];
+        for (Map.Entry<String, List<List<Integer>>> entry : bySource.entrySet()) {
+            int sourceId = sourceRegistry.idOf(entry.getKey());
+            if (sourceId == SourceRegistry.UNREGISTERED) {
+                throw new IllegalStateException("Source registry full, cannot register: " + entry.getKey());
+            }
+            if (sourceId >= slotsBySourceId.length) {
+                slotsBySourceId = Arrays.copyOf(slotsBySourceId, sourceId + 1);
+            }
+            int[][] slots = new int[LEVEL_COUNT][];
+            for (int l = 0; l < LEVEL_COUNT; l++) {
+                slots[l] = toArray(entry.getValue().get(l));
+            }
+            slotsBySourceId[sourceId] = slots;
+        }
+        return slotsBySourceId;
+    }
+    
+    private static List<List<Integer>> newLevelLists() {
+        List<List<Integer>> lists = new ArrayList<>(LEVEL_COUNT);
+        for (int l = 0; l < LEVEL_COUNT; l++) {
+            lists.add(new ArrayList<>());
+        }
+        return lists;
+    }
+    
+    private static int[] toArray(List<Integer> values) {
+        int[] array = new int[values.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = values.get(i);
+        }
+        return array;
+    }
+    
+    private static int parseLevel(String level, String ruleName) {
+        String upper = level.toUpperCase();
+        switch (upper) {
+            case "*":
+            case "ANY":
+                return ANY_LEVEL;
+            case "ERROR":
+            case "WARNING":
+            case "WARN":
+            case "INFO":
+                return LogLevel.parse(upper).ordinal();
+            default:
+                throw new IllegalArgumentException(
+                    String.format("Unknown level '%s' in rule '%s'", level, ruleName)
+                );
+        }
+    }
+    
+    private static int parseOperator(String symbol) {
+        switch (symbol) {
+            case ">": return OP_GT;
+            case ">=": return OP_GE;
+            case "<": return OP_LT;
+            default: return OP_LE;
+        }
+    }
+    
+    private static String formatThreshold(double value) {
+        return value == Math.rint(value) ? String.valueOf((long) value) : String.valueOf(value);
+    }
+}
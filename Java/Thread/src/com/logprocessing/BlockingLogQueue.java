@@ -0,0 +1,56 @@
+package com.logprocessing;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Common contract for every log queue implementation.
+ * 
+ * Producers call addLog() and consumers call takeLog(); both block when the
+ * queue cannot make progress (full / empty) and respond to interrupts by
+ * throwing InterruptedException.
+ * 
+ * WHY THIS DESIGN:
+ * - LogProcessingService and LogProducerWorker only depend on the contract
+ * - The monitor-based LogQueue and the lock-free RingBufferLogQueue can be
+ *   swapped per deployment without touching producers or workers
+ */
+public interface BlockingLogQueue {
+    
+    /**
+     * Adds a log, blocking while the queue is full.
+     */
+    void addLog(Log log) throws InterruptedException;
+    
+    /**
+     * Removes and returns the oldest log, blocking while the queue is empty.
+     */
+    Log takeLog() throws InterruptedException;
+    
+    /**
+     * Removes between min and max logs in one operation.
+     * 
+     * Blocks until at least min logs are available or the timeout elapses.
+     * On timeout, returns whatever is available (possibly fewer than min,
+     * possibly empty). Never returns more than max logs.
+     */
+    List<Log> takeBatch(int min, int max, long timeout, TimeUnit unit) throws InterruptedException;
+    
+    /**
+     * Moves up to max available logs into target without blocking.
+     * 
+     * @return number of logs transferred
+     */
+    int drainTo(Collection<? super Log> target, int max);
+    
+    /**
+     * Returns current queue size (for monitoring).
+     */
+    int size();
+    
+    /**
+     * Checks if queue is empty.
+     */
+    boolean isEmpty();
+}
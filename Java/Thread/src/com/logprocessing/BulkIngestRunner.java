@@ -0,0 +1,81 @@
+package com.logprocessing;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * STEP 30: Bulk Ingestion Entry Point
+ * 
+ * Backfills historical log files (LogLineParser format) into a service's
+ * metrics and alert evaluation with BulkIngestor, then prints the totals.
+ * 
+ * java com.logprocessing.BulkIngestRunner app.log.1 app.log.2 ...
+ * 
+ * -Dingest.parallelism=8   → fork/join threads (default: CPU cores)
+ * -Dingest.chunkMb=32      → bytes per mapped chunk
+ * -Dingest.batchRows=1024  → rows per metrics update / alert evaluation
+ * -Dlogprocessing.metricsPort=9404 → watch the backfill on /metrics
+ */
+public class BulkIngestRunner {
+    
+    public static void main(String[] args) throws InterruptedException {
+        System.out.println("=== STEP 30: Parallel Bulk Ingestion ===\n");
+        if (args.length == 0) {
+            System.err.println("Usage: BulkIngestRunner <log file>...");
+            return;
+        }
+        
+        int cpuCores = Runtime.getRuntime().availableProcessors();
+        int parallelism = Integer.getInteger("ingest.parallelism", cpuCores);
+        int chunkBytes = Integer.getInteger("ingest.chunkMb", BulkIngestor.DEFAULT_CHUNK_BYTES / (1024 * 1024)) * 1024 * 1024;
+        int batchRows = Integer.getInteger("ingest.batchRows", BulkIngestor.DEFAULT_BATCH_ROWS);
+        System.out.println(
+            String.format(
+                "[Main Thread] Parallelism %d, chunks of %d MB, batches of %d rows",
+                parallelism,
+                chunkBytes / (1024 * 1024),
+                batchRows
+            )
+        );
+        
+        // Workers are never started: ingestion records straight into the service's metrics
+        LogProcessingService processingService = new LogProcessingService(cpuCores * 2, LogProcessingSystem.createLogQueue(50));
+        PrometheusExporter exporter = LogProcessingSystem.startMetricsExporter(processingService);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        BulkIngestor ingestor = new BulkIngestor(processingService, pool, chunkBytes, batchRows);
+        
+        long alertBatches = 0;
+        try {
+            for (String arg : args) {
+                Path file = Paths.get(arg);
+                try {
+                    BulkIngestor.Result result = ingestor.ingest(file);
+                    alertBatches += result.getAlertBatches();
+                    System.out.println("\n" + result);
+                } catch (IOException e) {
+                    System.err.println(
+                        String.format(
+                            "[Main Thread] Cannot ingest %s (%s)",
+                            file,
+                            e
+                        )
+                    );
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+        
+        processingService.shutdown();
+        LogProcessingSystem.closeLogQueue(processingService.getLogQueue());
+        if (exporter != null) {
+            exporter.close();
+        }
+        
+        System.out.println("\n=== Ingested Metrics ===");
+        System.out.println(processingService.getMetrics());
+        System.out.println("Alerting batches: " + alertBatches);
+    }
+}
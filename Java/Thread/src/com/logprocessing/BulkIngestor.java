@@ -0,0 +1,322 @@
+package com.logprocessing;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * STEP 30: Parallel Bulk Ingestion (Memory-Mapped)
+ * 
+ * Backfills a large historical log file through the service's metrics and
+ * the AlertEvaluationService, as fast as the cores can parse.
+ * 
+ * <pre>
+ * file → chunks cut at newlines → ForkJoinPool (one mapped chunk per leaf)
+ *      → LogLineParser.parseInto(LogBatch) → service.recordIngested(batch)
+ *                                           → alertService.evaluateBatch(batch)
+ * </pre>
+ * 
+ * KEY CONCEPTS:
+ * - Memory mapping: the page cache is read in place, no read() copies into
+ *   a heap buffer; each chunk maps its own region, so files beyond 2GB (the
+ *   MappedByteBuffer limit) work
+ * - Newline-aligned chunks: a cut point is moved forward to just after the
+ *   next '\n', so every line lies in exactly one chunk and no thread needs
+ *   another thread's bytes
+ * - Fork/join: chunks are split in halves until one chunk per task; idle
+ *   workers steal the other halves, so uneven chunks still balance
+ * - Batches, not logs: each task fills its own LogBatch and publishes it with
+ *   one metrics update and one alert evaluation per batch
+ * 
+ * WHY THIS DESIGN:
+ * - The live path is limited by producer threads and the per-log queue;
+ *   a backfill has all its data up front and needs neither
+ * - Parsing is pure CPU on private state (parser, batch per task), so
+ *   throughput scales with the pool's parallelism
+ * 
+ * WHAT WOULD GO WRONG WITHOUT IT:
+ * - Replaying history through LogQueue: one producer and ~110ms of simulated
+ *   processing per log, i.e. days for a multi-gigabyte file
+ * - Splitting at fixed offsets: lines cut in two, parsed as two malformed lines
+ * 
+ * Not processed: the simulated stages, the streaming alert window, the
+ * processing-time histogram (backfilled logs have no processing time) and
+ * the rolling windows (they describe live load, not history).
+ */
+public class BulkIngestor {
+    
+    public static final int DEFAULT_CHUNK_BYTES = 32 * 1024 * 1024;
+    public static final int DEFAULT_BATCH_ROWS = 1024;
+    
+    private static final int BOUNDARY_SCAN_BYTES = 8 * 1024;
+    
+    private final LogProcessingService service;
+    private final ForkJoinPool pool;
+    private final int chunkBytes;
+    private final int batchRows;
+    
+    public BulkIngestor(LogProcessingService service, ForkJoinPool pool, int chunkBytes, int batchRows) {
+        if (chunkBytes < 1 || batchRows < 1) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "Invalid ingestion: chunkBytes=%d, batchRows=%d",
+                    chunkBytes,
+                    batchRows
+                )
+            );
+        }
+        this.service = service;
+        this.pool = pool;
+        this.chunkBytes = chunkBytes;
+        this.batchRows = batchRows;
+    }
+    
+    /**
+     * Ingests the whole file and returns when every chunk is recorded.
+     */
+    public Result ingest(Path file) throws IOException {
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long[] bounds = chunkBounds(channel);
+            String name = String.valueOf(file.getFileName());
+            Counts counts;
+            try {
+                counts = pool.invoke(new ChunkTask(channel, bounds, 0, bounds.length - 1, name));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            return new Result(
+                file,
+                channel.size(),
+                bounds.length - 1,
+                pool.getParallelism(),
+                counts,
+                System.nanoTime() - start
+            );
+        }
+    }
+    
+    /**
+     * Chunk start offsets plus the file size: chunk i is [bounds[i], bounds[i+1]).
+     * Each cut after the first is moved to just past the next newline.
+     */
+    private long[] chunkBounds(FileChannel channel) throws IOException {
+        long size = channel.size();
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        ByteBuffer scan = ByteBuffer.allocate(BOUNDARY_SCAN_BYTES);
+        long cut = 0;
+        while (size - cut > chunkBytes) {
+            cut = nextLineStart(channel, cut + chunkBytes, size, scan);
+            if (cut >= size) {
+                break;
+            }
+            bounds.add(cut);
+        }
+        long[] result = new long[bounds.size() + 1];
+        for (int i = 0; i < bounds.size(); i++) {
+            result[i] = bounds.get(i);
+        }
+        result[bounds.size()] = size;
+        return result;
+    }
+    
+    /**
+     * Offset just after the first '\n' at or after from (size if none).
+     * Positional reads: the channel's own position is not used.
+     */
+    private static long nextLineStart(FileChannel channel, long from, long size, ByteBuffer scan) throws IOException {
+        long position = from;
+        while (position < size) {
+            scan.clear();
+            int read = channel.read(scan, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (scan.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+    
+    /**
+     * Ingests chunks [from, to): splits in halves down to one chunk.
+     */
+    private final class ChunkTask extends RecursiveTask<Counts> {
+        private static final long serialVersionUID = 1L;
+        
+        private final FileChannel channel;
+        private final long[] bounds;
+        private final int from;
+        private final int to;
+        private final String name;
+        
+        ChunkTask(FileChannel channel, long[] bounds, int from, int to, String name) {
+            this.channel = channel;
+            this.bounds = bounds;
+            this.from = from;
+            this.to = to;
+            this.name = name;
+        }
+        
+        @Override
+        protected Counts compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                ChunkTask right = new ChunkTask(channel, bounds, mid, to, name);
+                right.fork(); // Stolen by an idle worker, or run below after the left half
+                Counts left = new ChunkTask(channel, bounds, from, mid, name).compute();
+                return left.add(right.join());
+            }
+            try {
+                return ingestChunk(bounds[from], bounds[from + 1]);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        
+        private Counts ingestChunk(long start, long end) throws IOException {
+            Counts counts = new Counts();
+            if (end <= start) {
+                return counts;
+            }
+            MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            // Ids: file@chunkOffset:n, n counting parsed lines within the chunk
+            LogLineParser parser = new LogLineParser(name + "@" + start + ":");
+            LogBatch batch = new LogBatch(batchRows);
+            int limit = chunk.limit();
+            int lineStart = 0;
+            for (int i = 0; i < limit; i++) {
+                if (chunk.get(i) == '\n') {
+                    addLine(parser, chunk, lineStart, i, batch, counts);
+                    lineStart = i + 1;
+                }
+            }
+            // The file's last line may have no newline
+            addLine(parser, chunk, lineStart, limit, batch, counts);
+            publish(batch, counts);
+            counts.lines = parser.getParsed();
+            counts.malformed = parser.getMalformed();
+            counts.bytes = end - start;
+            return counts;
+        }
+        
+        private void addLine(LogLineParser parser, ByteBuffer chunk, int start, int end,
+                             LogBatch batch, Counts counts) {
+            if (end > start && parser.parseInto(chunk, start, end, batch) && batch.isFull()) {
+                publish(batch, counts);
+            }
+        }
+        
+        private void publish(LogBatch batch, Counts counts) {
+            if (batch.isEmpty()) {
+                return;
+            }
+            service.recordIngested(batch);
+            if (service.getAlertService().evaluateBatch(batch).shouldTriggerAlert()) {
+                counts.alertBatches++;
+            }
+            counts.batches++;
+            batch.clear();
+        }
+    }
+    
+    /**
+     * Per-task totals, summed up the fork/join tree.
+     */
+    private static final class Counts {
+        private long lines;
+        private long malformed;
+        private long bytes;
+        private long batches;
+        private long alertBatches;
+        
+        Counts add(Counts other) {
+            lines += other.lines;
+            malformed += other.malformed;
+            bytes += other.bytes;
+            batches += other.batches;
+            alertBatches += other.alertBatches;
+            return this;
+        }
+    }
+    
+    /**
+     * Outcome of one ingest() call.
+     */
+    public static class Result {
+        private final Path file;
+        private final long bytes;
+        private final int chunks;
+        private final int parallelism;
+        private final long lines;
+        private final long malformed;
+        private final long batches;
+        private final long alertBatches;
+        private final long elapsedNanos;
+        
+        private Result(Path file, long bytes, int chunks, int parallelism, Counts counts, long elapsedNanos) {
+            this.file = file;
+            this.bytes = bytes;
+            this.chunks = chunks;
+            this.parallelism = parallelism;
+            this.lines = counts.lines;
+            this.malformed = counts.malformed;
+            this.batches = counts.batches;
+            this.alertBatches = counts.alertBatches;
+            this.elapsedNanos = elapsedNanos;
+        }
+        
+        public long getBytes() { return bytes; }
+        public int getChunks() { return chunks; }
+        public long getLines() { return lines; }
+        public long getMalformed() { return malformed; }
+        public long getBatches() { return batches; }
+        
+        /** Batches whose alert evaluation triggered */
+        public long getAlertBatches() { return alertBatches; }
+        
+        public long getElapsedNanos() { return elapsedNanos; }
+        
+        public double getLinesPerSecond() {
+            return elapsedNanos > 0 ? lines * 1e9 / elapsedNanos : 0;
+        }
+        
+        public double getMegabytesPerSecond() {
+            return elapsedNanos > 0 ? bytes / 1048576.0 * 1e9 / elapsedNanos : 0;
+        }
+        
+        @Override
+        public String toString() {
+            return String.format(
+                "%s: %.1f MB in %d chunks on %d threads, %d ms%n" +
+                "  Lines: %d (%.0f/s, %.1f MB/s) | Malformed: %d%n" +
+                "  Batches: %d | Alerting batches: %d",
+                file,
+                bytes / 1048576.0,
+                chunks,
+                parallelism,
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                lines,
+                getLinesPerSecond(),
+                getMegabytesPerSecond(),
+                malformed,
+                batches,
+                alertBatches
+            );
+        }
+    }
+}
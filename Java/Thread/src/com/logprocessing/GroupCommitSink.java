@@ -0,0 +1,261 @@
+package com.logprocessing;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * STEP 28: Group-Commit Sink
+ * 
+ * Collects processed logs from all workers and writes them in batches: one
+ * DB write and one network call per batch instead of per log.
+ * 
+ * KEY CONCEPTS:
+ * - Group commit: concurrent writers share one round trip, the way a
+ *   database shares one fsync between concurrent transactions
+ * - Flush on size OR linger: a full batch goes immediately; a partial
+ *   batch waits at most lingerMillis for company, so light load pays a
+ *   bounded extra latency instead of waiting forever
+ * - Per-batch callback: workers hand off and move on; the writer thread
+ *   reports the whole batch as committed once it is written
+ * - Bounded pending buffer: when writers fall behind, submit() blocks,
+ *   which is the same backpressure as a full LogQueue
+ * 
+ * WHY THIS DESIGN:
+ * - The 50ms DB write and 30ms network call are almost all round-trip
+ *   latency; per row they cost ~1.5ms when batched
+ * - Several writer threads keep more than one batch in flight, so one slow
+ *   round trip does not stall the others
+ * 
+ * WHAT WOULD GO WRONG WITHOUT IT:
+ * - Every worker thread sleeps through two round trips per log, so the pool
+ *   must be sized for I/O latency rather than for work
+ * - Downstream systems see one request per log
+ * 
+ * THREADING:
+ * - submit() from any worker; one monitor guards the pending buffer
+ * - Writer threads take batches under the lock and write outside it
+ * - The callback runs on a writer thread, once per batch
+ */
+public class GroupCommitSink {
+    
+    /**
+     * Called once per written batch, on the writer thread.
+     */
+    public interface BatchCallback {
+        /**
+         * @param logs        the batch, in submit order
+         * @param startNanos  per log: the nanoTime passed to submit()
+         */
+        void onCommitted(List<Log> logs, long[] startNanos);
+    }
+    
+    private static final ProcessingStage[] SINK_STAGES = {ProcessingStage.DB_WRITE, ProcessingStage.NETWORK};
+    
+    private final int maxBatch;
+    private final long lingerNanos;
+    private final int capacity;
+    private final StageTimers stageTimers;
+    private final BatchCallback callback;
+    private final Thread[] writers;
+    
+    // Guarded by lock
+    private final Object lock = new Object();
+    private final ArrayDeque<Log> pendingLogs = new ArrayDeque<>();
+    private final ArrayDeque<Long> pendingStarts = new ArrayDeque<>();
+    private final ArrayDeque<Long> pendingSubmitted = new ArrayDeque<>();
+    private boolean closed = false;
+    
+    // Statistics
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder sizeFlushes = new LongAdder();
+    private final LongAdder lingerFlushes = new LongAdder();
+    private final LongAdder rowsWritten = new LongAdder();
+    private final LatencyHistogram batchSizes = new LatencyHistogram(1);
+    
+    /**
+     * @param maxBatch      rows per write; a full batch flushes immediately
+     * @param lingerMillis  longest a submitted log waits for its batch to fill
+     * @param writerThreads batches written concurrently
+     * @param capacity      pending logs before submit() blocks
+     */
+    public GroupCommitSink(int maxBatch, long lingerMillis, int writerThreads, int capacity,
+                           StageTimers stageTimers, BatchCallback callback) {
+        if (maxBatch < 1 || lingerMillis < 0 || writerThreads < 1 || capacity < maxBatch) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "Invalid sink: maxBatch=%d, lingerMillis=%d, writers=%d, capacity=%d",
+                    maxBatch,
+                    lingerMillis,
+                    writerThreads,
+                    capacity
+                )
+            );
+        }
+        this.maxBatch = maxBatch;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+        this.capacity = capacity;
+        this.stageTimers = stageTimers;
+        this.callback = callback;
+        this.writers = new Thread[writerThreads];
+        for (int i = 0; i < writerThreads; i++) {
+            writers[i] = new Thread(this::runWriter, "GroupCommitWriter-" + (i + 1));
+        }
+    }
+    
+    public void start() {
+        for (Thread writer : writers) {
+            writer.start();
+        }
+        System.out.println(
+            String.format(
+                "[GroupCommitSink] Started: maxBatch=%d, linger=%d ms, writers=%d, capacity=%d",
+                maxBatch,
+                TimeUnit.NANOSECONDS.toMillis(lingerNanos),
+                writers.length,
+                capacity
+            )
+        );
+    }
+    
+    /**
+     * Hands a log to the sink. Returns as soon as it is buffered; blocks
+     * only while capacity logs are already pending.
+     * 
+     * @param startNanos reported back in the batch callback (e.g. when processing began)
+     */
+    public void submit(Log log, long startNanos) throws InterruptedException {
+        synchronized (lock) {
+            while (pendingLogs.size() >= capacity && !closed) {
+                lock.wait(); // Writers are behind: backpressure
+            }
+            if (closed) {
+                throw new IllegalStateException("GroupCommitSink is closed");
+            }
+            pendingLogs.addLast(log);
+            pendingStarts.addLast(startNanos);
+            pendingSubmitted.addLast(System.nanoTime());
+            // Wake a writer for the first log (starts the linger clock) and for a full batch
+            if (pendingLogs.size() == 1 || pendingLogs.size() == maxBatch) {
+                lock.notifyAll();
+            }
+        }
+    }
+    
+    private void runWriter() {
+        List<Log> logs = new ArrayList<>(maxBatch);
+        long[] starts = new long[maxBatch];
+        try {
+            while (true) {
+                boolean full;
+                synchronized (lock) {
+                    while (pendingLogs.isEmpty() && !closed) {
+                        lock.wait();
+                    }
+                    if (pendingLogs.isEmpty()) {
+                        return; // Closed and drained
+                    }
+                    // Linger: wait for a full batch, at most lingerNanos after the oldest log arrived
+                    long deadline = pendingSubmitted.peekFirst() + lingerNanos;
+                    long remaining = deadline - System.nanoTime();
+                    while (!closed && pendingLogs.size() < maxBatch && remaining > 0) {
+                        TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+                        if (pendingLogs.isEmpty()) {
+                            break; // Another writer took them
+                        }
+                        remaining = pendingSubmitted.peekFirst() + lingerNanos - System.nanoTime();
+                    }
+                    if (pendingLogs.isEmpty()) {
+                        continue;
+                    }
+                    full = pendingLogs.size() >= maxBatch;
+                    logs.clear();
+                    while (logs.size() < maxBatch && !pendingLogs.isEmpty()) {
+                        starts[logs.size()] = pendingStarts.pollFirst();
+                        pendingSubmitted.pollFirst();
+                        logs.add(pendingLogs.pollFirst());
+                    }
+                    lock.notifyAll(); // Room for blocked submitters, and the rest for other writers
+                }
+                write(logs, starts, full);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * One round trip per stage for the whole batch, then the callback.
+     */
+    private void write(List<Log> logs, long[] starts, boolean full) throws InterruptedException {
+        for (ProcessingStage stage : SINK_STAGES) {
+            long stageStart = System.nanoTime();
+            stage.simulateBatch(logs.size());
+            stageTimers.record(stage, System.nanoTime() - stageStart);
+        }
+        batches.increment();
+        (full ? sizeFlushes : lingerFlushes).increment();
+        rowsWritten.add(logs.size());
+        batchSizes.record(logs.size());
+        callback.onCommitted(logs, starts);
+    }
+    
+    /**
+     * Stops accepting logs, writes everything pending and waits for the writers.
+     */
+    public void close() throws InterruptedException {
+        synchronized (lock) {
+            closed = true;
+            lock.notifyAll();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+    }
+    
+    public int getPending() {
+        synchronized (lock) {
+            return pendingLogs.size();
+        }
+    }
+    
+    public long getBatches() {
+        return batches.sum();
+    }
+    
+    /** Batches flushed because they reached maxBatch */
+    public long getSizeFlushes() {
+        return sizeFlushes.sum();
+    }
+    
+    /** Batches flushed because the linger time ran out (or on close) */
+    public long getLingerFlushes() {
+        return lingerFlushes.sum();
+    }
+    
+    public long getRowsWritten() {
+        return rowsWritten.sum();
+    }
+    
+    public LatencyHistogram.Snapshot getBatchSizes() {
+        return batchSizes.snapshot();
+    }
+    
+    @Override
+    public String toString() {
+        LatencyHistogram.Snapshot sizes = getBatchSizes();
+        return String.format(
+            "%d rows in %d batches (avg %.1f, p50=%d, max=%d) | flushed on size: %d, on linger: %d | pending: %d",
+            getRowsWritten(),
+            getBatches(),
+            sizes.getMean(),
+            sizes.getP50(),
+            sizes.getMax(),
+            getSizeFlushes(),
+            getLingerFlushes(),
+            getPending()
+        );
+    }
+}
@@ -0,0 +1,157 @@
+package com.logprocessing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * STEP 13: Bounded-Memory Heavy-Hitter Sketch (Space-Saving)
+ * 
+ * Tracks approximate per-source counts for at most `capacity` sources.
+ * 
+ * KEY CONCEPTS:
+ * - Space-Saving: When full, a new source replaces the smallest counter and
+ *   inherits its count as an error bound (count - error ≤ true count ≤ count)
+ * - Any source with more than total/capacity logs is guaranteed to be tracked
+ * - LongAdder counters: Hot sources are striped internally, so many workers
+ *   incrementing "APP-1" do not contend on one cache line
+ * 
+ * THREAD SAFETY:
+ * - Hot path (source already tracked): lock-free map lookup + LongAdder.increment()
+ * - Cold path (new source): synchronized replacement; the smallest counter
+ *   comes off a min-heap in O(log capacity) amortized, not a scan of every
+ *   counter. The heap orders counters by a count taken when they were
+ *   pushed; counts only grow, so a popped counter that has grown since is
+ *   re-pushed with its current count, and one that has not is the minimum.
+ * - An increment racing with eviction of the same counter may be lost;
+ *   the sketch is approximate by design
+ * 
+ * WHY THIS DESIGN:
+ * - An unbounded map of sources grows forever with high-cardinality sources
+ * - Dashboards only need the top sources, not every one
+ */
+public class HeavyHitterSketch {
+    
+    private final int capacity;
+    private final Map<String, Counter> counters;
+    private final Object evictionLock = new Object();
+    private final PriorityQueue<Counter> byCount; // Guarded by evictionLock
+    
+    public HeavyHitterSketch(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.counters = new ConcurrentHashMap<>(capacity * 2);
+        this.byCount = new PriorityQueue<>(capacity, (a, b) -> Long.compare(a.heapCount, b.heapCount));
+    }
+    
+    /**
+     * Counts one occurrence of key.
+     */
+    public void offer(String key) {
+        Counter counter = counters.get(key);
+        if (counter != null) {
+            counter.count.increment(); // Hot path: no lock, no allocation
+            return;
+        }
+        
+        synchronized (evictionLock) {
+            counter = counters.get(key);
+            if (counter != null) {
+                counter.count.increment();
+                return;
+            }
+            
+            long inheritedCount = 0;
+            if (counters.size() >= capacity) {
+                // Evict the smallest counter; its count becomes our error bound
+                inheritedCount = evictSmallestLocked();
+            }
+            
+            Counter replacement = new Counter(key, inheritedCount);
+            replacement.count.add(inheritedCount + 1);
+            replacement.heapCount = inheritedCount + 1;
+            counters.put(key, replacement);
+            byCount.add(replacement);
+        }
+    }
+    
+    /**
+     * Removes the counter with the smallest count. Caller holds evictionLock.
+     * 
+     * @return its count
+     */
+    private long evictSmallestLocked() {
+        while (true) {
+            Counter candidate = byCount.poll();
+            long current = candidate.count.sum();
+            if (current <= candidate.heapCount) {
+                counters.remove(candidate.key);
+                return current;
+            }
+            // Incremented since it was pushed: reorder and look again
+            candidate.heapCount = current;
+            byCount.add(candidate);
+        }
+    }
+    
+    /**
+     * Returns up to k tracked sources, highest count first.
+     */
+    public List<HeavyHitter> topK(int k) {
+        List<HeavyHitter> all = new ArrayList<>(counters.size());
+        counters.forEach((key, counter) ->
+            all.add(new HeavyHitter(key, counter.count.sum(), counter.error))
+        );
+        Collections.sort(all, (a, b) -> Long.compare(b.getCount(), a.getCount()));
+        return all.size() > k ? new ArrayList<>(all.subList(0, k)) : all;
+    }
+    
+    public int getCapacity() {
+        return capacity;
+    }
+    
+    private static final class Counter {
+        private final String key;
+        private final LongAdder count = new LongAdder();
+        private final long error;
+        private long heapCount; // Count when last pushed on byCount, guarded by evictionLock
+        
+        private Counter(String key, long error) {
+            this.key = key;
+            this.error = error;
+        }
+    }
+    
+    /**
+     * Immutable entry: count is an upper bound, count - error a lower bound.
+     */
+    public static class HeavyHitter {
+        private final String key;
+        private final long count;
+        private final long error;
+        
+        public HeavyHitter(String key, long count, long error) {
+            this.key = key;
+            this.count = count;
+            this.error = error;
+        }
+        
+        public String getKey() { return key; }
+        public long getCount() { return count; }
+        public long getError() { return error; }
+        public long getGuaranteedCount() { return count - error; }
+        
+        @Override
+        public String toString() {
+            return error > 0
+                ? String.format("%s: %d (±%d)", key, count, error)
+                : String.format("%s: %d", key, count);
+        }
+    }
+}
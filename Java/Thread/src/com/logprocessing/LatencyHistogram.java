@@ -0,0 +1,269 @@
+package com.logprocessing;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * STEP 12: Lock-Free Striped Latency Histogram
+ * 
+ * Log-linear (HDR-style) histogram that records values without locking.
+ * 
+ * KEY CONCEPTS:
+ * - Log-linear buckets: Each power of two is split into 32 linear sub-buckets,
+ *   so every recorded value is accurate to ~3% regardless of magnitude
+ * - Striping: Threads record into different AtomicLongArrays (picked by thread id),
+ *   so hot counters are not shared between cores
+ * - Merge on read: snapshot() sums the stripes; readers pay, writers don't
+ * 
+ * BUCKET LAYOUT (SUB_BUCKET_BITS = 5):
+ * - Values 0..31          → one bucket per value (exact)
+ * - Values 2^e..2^(e+1)-1 → 32 buckets of width 2^(e-5)
+ * 
+ * WHY THIS DESIGN:
+ * - A synchronized min/max update serializes every worker on one lock
+ * - Averages hide the tail: p99 = 2s can sit behind avg = 110ms
+ * 
+ * WHAT WOULD GO WRONG WITHOUT IT:
+ * - Lock contention on the hot path of every processed log
+ * - No percentiles → no visibility into the latency we get paged for
+ */
+public class LatencyHistogram {
+    
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_MASK = SUB_BUCKET_COUNT - 1;
+    
+    // 32 exact buckets + 32 sub-buckets for each exponent 5..62
+    static final int BUCKET_COUNT = SUB_BUCKET_COUNT + (63 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+    
+    private final AtomicLongArray[] stripes;
+    private final int stripeMask;
+    
+    // LongAccumulator/LongAdder are themselves striped - no CAS retry storms
+    private final LongAccumulator maxValue = new LongAccumulator(Math::max, 0);
+    private final LongAccumulator minValue = new LongAccumulator(Math::min, Long.MAX_VALUE);
+    private final LongAdder sum = new LongAdder();
+    
+    /**
+     * Creates a histogram with one stripe per available core (rounded to a power of two).
+     */
+    public LatencyHistogram() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+    
+    public LatencyHistogram(int stripeCount) {
+        int count = 1;
+        while (count < stripeCount && count < 64) {
+            count <<= 1;
+        }
+        this.stripes = new AtomicLongArray[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new AtomicLongArray(BUCKET_COUNT);
+        }
+        this.stripeMask = count - 1;
+    }
+    
+    /**
+     * Records one value. Negative values are clamped to 0.
+     * 
+     * THREAD SAFETY:
+     * - One atomic increment on this thread's stripe, no locks
+     * - min/max/sum use contention-friendly accumulators
+     */
+    public void record(long value) {
+        long v = value < 0 ? 0 : value;
+        stripes[stripeIndex()].incrementAndGet(bucketIndex(v));
+        sum.add(v);
+        maxValue.accumulate(v);
+        minValue.accumulate(v);
+    }
+    
+    /**
+     * Merges all stripes into an immutable snapshot.
+     * 
+     * Concurrent records may or may not be included; counts are never torn.
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKET_COUNT];
+        addCountsTo(counts);
+        long min = minValue.get();
+        return new Snapshot(counts, min == Long.MAX_VALUE ? 0 : min, maxValue.get(), sum.sum());
+    }
+    
+    /**
+     * Adds this histogram's bucket counts into target (used to merge histograms).
+     */
+    void addCountsTo(long[] target) {
+        for (AtomicLongArray stripe : stripes) {
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                long count = stripe.get(i);
+                if (count != 0) {
+                    target[i] += count;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Zeroes the histogram for reuse (RollingWindow bucket rotation).
+     * Not atomic: a record() racing the reset may survive it partly.
+     */
+    void reset() {
+        for (AtomicLongArray stripe : stripes) {
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                if (stripe.get(i) != 0) {
+                    stripe.set(i, 0);
+                }
+            }
+        }
+        sum.reset();
+        maxValue.reset();
+        minValue.reset();
+    }
+    
+    long getMin() {
+        long min = minValue.get();
+        return min == Long.MAX_VALUE ? 0 : min;
+    }
+    
+    long getMax() {
+        return maxValue.get();
+    }
+    
+    long getSum() {
+        return sum.sum();
+    }
+    
+    private int stripeIndex() {
+        // Fibonacci hashing spreads sequential thread ids across stripes
+        long id = Thread.currentThread().getId();
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> 40) & stripeMask;
+    }
+    
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) ((value >>> shift) & SUB_BUCKET_MASK);
+        return SUB_BUCKET_COUNT + (shift << SUB_BUCKET_BITS) + subBucket;
+    }
+    
+    /**
+     * Largest value that maps to the given bucket.
+     */
+    static long highestEquivalentValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int offset = index - SUB_BUCKET_COUNT;
+        int shift = offset >>> SUB_BUCKET_BITS;
+        long subBucket = offset & SUB_BUCKET_MASK;
+        long lowest = (SUB_BUCKET_COUNT + subBucket) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+    
+    /**
+     * Immutable, merged view of a histogram.
+     */
+    public static class Snapshot {
+        private final long[] counts;
+        private final long totalCount;
+        private final long min;
+        private final long max;
+        private final long sum;
+        
+        Snapshot(long[] counts, long min, long max, long sum) {
+            this.counts = counts;
+            long total = 0;
+            for (long count : counts) {
+                total += count;
+            }
+            this.totalCount = total;
+            this.min = min;
+            this.max = max;
+            this.sum = sum;
+        }
+        
+        public static Snapshot empty() {
+            return new Snapshot(new long[BUCKET_COUNT], 0, 0, 0);
+        }
+        
+        /**
+         * Returns the value at the given percentile (0-100].
+         * Reported as the upper edge of the bucket, capped at the observed max.
+         */
+        public long getValueAtPercentile(double percentile) {
+            if (totalCount == 0) {
+                return 0;
+            }
+            double clamped = Math.min(100.0, Math.max(0.0, percentile));
+            long target = Math.max(1, (long) Math.ceil(clamped / 100.0 * totalCount));
+            long cumulative = 0;
+            for (int i = 0; i < counts.length; i++) {
+                cumulative += counts[i];
+                if (cumulative >= target) {
+                    return Math.min(highestEquivalentValue(i), max);
+                }
+            }
+            return max;
+        }
+        
+        /**
+         * Cumulative count of values ≤ value, at bucket precision (the bucket
+         * holding value is included). Prometheus "le" buckets are exactly this.
+         */
+        public long getCountAtOrBelow(long value) {
+            if (value < 0) {
+                return 0;
+            }
+            int last = Math.min(bucketIndex(value), counts.length - 1);
+            long cumulative = 0;
+            for (int i = 0; i <= last; i++) {
+                cumulative += counts[i];
+            }
+            return cumulative;
+        }
+        
+        public long getTotalCount() { return totalCount; }
+        public long getMin() { return min; }
+        public long getMax() { return max; }
+        public long getSum() { return sum; }
+        public long getP50() { return getValueAtPercentile(50.0); }
+        public long getP90() { return getValueAtPercentile(90.0); }
+        public long getP99() { return getValueAtPercentile(99.0); }
+        public long getP999() { return getValueAtPercentile(99.9); }
+        
+        public double getMean() {
+            return totalCount > 0 ? (double) sum / totalCount : 0.0;
+        }
+        
+        /**
+         * Combined view of two histograms (e.g. two partitions' metrics).
+         * Exact: both use the same buckets.
+         */
+        public Snapshot merge(Snapshot other) {
+            long[] merged = counts.clone();
+            for (int i = 0; i < merged.length; i++) {
+                merged[i] += other.counts[i];
+            }
+            long mergedMin;
+            if (totalCount == 0) {
+                mergedMin = other.min;
+            } else if (other.totalCount == 0) {
+                mergedMin = min;
+            } else {
+                mergedMin = Math.min(min, other.min);
+            }
+            return new Snapshot(merged, mergedMin, Math.max(max, other.max), sum + other.sum);
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("p50=%d p90=%d p99=%d p99.9=%d max=%d (n=%d)",
+                getP50(), getP90(), getP99(), getP999(), max, totalCount);
+        }
+    }
+}
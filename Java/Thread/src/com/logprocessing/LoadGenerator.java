@@ -0,0 +1,473 @@
+package com.logprocessing;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * STEP 24: Open-Loop Load Generator
+ * 
+ * Sends logs on a schedule set by a LoadProfile, whatever the system does,
+ * and measures end-to-end latency from each log's INTENDED send time.
+ * 
+ * KEY CONCEPTS:
+ * - Closed loop: a producer waits for the system, then sends the next log.
+ *   When the system stalls, the producer stalls too and the stall is never
+ *   measured (coordinated omission)
+ * - Open loop: send times are fixed in advance by the arrival process.
+ *   A generator that falls behind (addLog() blocked on a full queue) sends
+ *   the overdue logs immediately, still stamped with their intended time
+ * - Latency = completion time - intended send time, so time spent blocked
+ *   in the generator, queued, and processed is all counted
+ * 
+ * WHY THIS DESIGN:
+ * - LogProducerWorker sleeps 400ms AFTER each addLog(): a closed loop that
+ *   under-reports latency exactly when the system is overloaded
+ * - Ramps and steps find the knee of the latency curve; the per-second
+ *   intervals show where it is
+ * - The log's own timestamp carries the intended time, so the worker-side
+ *   hook (LogProcessingService.setCompletionListener) needs no lookup
+ * 
+ * WHAT WOULD GO WRONG WITHOUT IT:
+ * - p99 looks flat while the queue is saturated
+ * - Capacity claims based on "it kept up with the producers"
+ * 
+ * THREADING:
+ * - run() sends from the calling thread and returns after the profile ends
+ *   and every sent log has completed or been dropped by the queue's
+ *   overflow policy (or the drain timeout passes)
+ * - The completion listener runs on worker threads: lock-free histograms
+ *   and a LongAdder only
+ */
+public class LoadGenerator {
+    
+    private static final long INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long DRAIN_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final int SOURCE_COUNT = 4;
+    
+    private final BlockingLogQueue logQueue;
+    private final LogBatchQueue batchQueue; // Columnar services: rows go into LogBatches
+    private final LoadProfile profile;
+    private final LoadProfile.Arrival arrival;
+    private final Random random;
+    private final long drainTimeoutNanos;
+    
+    // Written by worker threads via the completion listener (values in ms)
+    private final LatencyHistogram totalLatency = new LatencyHistogram();
+    private volatile LatencyHistogram intervalLatency = new LatencyHistogram();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder dropped = new LongAdder(); // Via the drop listener, on producer threads
+    
+    // Generator thread only
+    private final List<Interval> intervals = new ArrayList<>();
+    private final String[] sourceNames = new String[SOURCE_COUNT];
+    private final int[] sourceIds = new int[SOURCE_COUNT];
+    private LogBatch pendingBatch;
+    private long sent = 0;
+    private long maxSendLagNanos = 0;
+    private long intervalSent = 0;
+    private long intervalCompletedBase = 0;
+    private long intervalDroppedBase = 0;
+    
+    public LoadGenerator(BlockingLogQueue logQueue, LoadProfile profile, LoadProfile.Arrival arrival, long seed) {
+        this(logQueue, null, profile, arrival, seed);
+    }
+    
+    /**
+     * Columnar target: rows are appended to pooled LogBatches. A partial
+     * batch is handed over whenever the generator is ahead of schedule, so
+     * batching never holds a log back waiting for the next arrival.
+     */
+    public LoadGenerator(LogBatchQueue batchQueue, LoadProfile profile, LoadProfile.Arrival arrival, long seed) {
+        this(null, batchQueue, profile, arrival, seed);
+    }
+    
+    private LoadGenerator(BlockingLogQueue logQueue, LogBatchQueue batchQueue, LoadProfile profile,
+                          LoadProfile.Arrival arrival, long seed) {
+        this.logQueue = logQueue;
+        this.batchQueue = batchQueue;
+        this.profile = profile;
+        this.arrival = arrival;
+        this.random = new Random(seed);
+        this.drainTimeoutNanos = TimeUnit.SECONDS.toNanos(30);
+        for (int i = 0; i < SOURCE_COUNT; i++) {
+            sourceNames[i] = "LOAD-" + (i + 1);
+            sourceIds[i] = SourceRegistry.global().idOf(sourceNames[i]);
+        }
+    }
+    
+    /**
+     * Hook for LogProcessingService.setCompletionListener(): called with the
+     * timestamp (intended send time) of every processed log.
+     */
+    public LongConsumer completionListener() {
+        return this::recordCompletion;
+    }
+    
+    /**
+     * Hook for LogQueue.setDropListener(): a log shed by the overflow policy
+     * is done (it will never complete), counted apart from the latencies.
+     */
+    public Consumer<Log> dropListener() {
+        return log -> dropped.increment();
+    }
+    
+    private void recordCompletion(long intendedMillis) {
+        long latency = System.currentTimeMillis() - intendedMillis;
+        totalLatency.record(latency);
+        intervalLatency.record(latency);
+        completed.increment();
+    }
+    
+    /**
+     * Runs the profile to completion, then waits for outstanding logs.
+     */
+    public Report run() throws InterruptedException {
+        System.out.println(
+            String.format(
+                "[LoadGenerator] Open-loop run: %s, %s arrivals",
+                profile,
+                arrival
+            )
+        );
+        
+        long startNanos = System.nanoTime();
+        long startMillis = System.currentTimeMillis();
+        long endNanos = startNanos + profile.getDurationNanos();
+        long intervalEnd = startNanos + INTERVAL_NANOS;
+        // Intended send time of the next log
+        long next = startNanos + profile.nextArrivalNanos(0, arrival, random);
+        if (batchQueue != null) {
+            pendingBatch = batchQueue.obtainBatch();
+        }
+        
+        try {
+            while (next < endNanos) {
+                long now = System.nanoTime();
+                if (now >= intervalEnd) {
+                    closeInterval(intervalEnd - startNanos);
+                    intervalEnd += INTERVAL_NANOS;
+                    continue;
+                }
+                if (next > now) {
+                    // Ahead of schedule: hand over buffered rows, then wait for the next arrival
+                    flushPendingBatch();
+                    LockSupport.parkNanos(Math.min(next, intervalEnd) - now);
+                    if (Thread.interrupted()) {
+                        throw new InterruptedException();
+                    }
+                    continue;
+                }
+                
+                // Due or overdue: send now, stamped with the intended time
+                maxSendLagNanos = Math.max(maxSendLagNanos, now - next);
+                send(startMillis + TimeUnit.NANOSECONDS.toMillis(next - startNanos));
+                next = startNanos + profile.nextArrivalNanos(next - startNanos, arrival, random);
+            }
+            flushPendingBatch();
+        } finally {
+            if (pendingBatch != null) {
+                batchQueue.recycle(pendingBatch); // Unsent rows of an interrupted run are dropped
+            }
+            pendingBatch = null;
+        }
+        
+        // Drain: keep closing intervals until every sent log completes or is dropped
+        long drainDeadline = System.nanoTime() + drainTimeoutNanos;
+        while (completed.sum() + dropped.sum() < sent && System.nanoTime() < drainDeadline) {
+            LockSupport.parkNanos(DRAIN_POLL_NANOS);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            while (System.nanoTime() >= intervalEnd) {
+                closeInterval(intervalEnd - startNanos);
+                intervalEnd += INTERVAL_NANOS;
+            }
+        }
+        closeInterval(System.nanoTime() - startNanos);
+        checkSentAgainstProfile();
+        
+        return new Report(
+            profile.toString(),
+            arrival,
+            (System.nanoTime() - startNanos) / 1e9,
+            sent,
+            profile.expectedArrivals(),
+            completed.sum(),
+            dropped.sum(),
+            TimeUnit.NANOSECONDS.toMillis(maxSendLagNanos),
+            totalLatency.snapshot(),
+            intervals
+        );
+    }
+    
+    private void send(long intendedMillis) throws InterruptedException {
+        int source = (int) (sent % SOURCE_COUNT);
+        if (batchQueue != null) {
+            pendingBatch.add(intendedMillis, sent + 1, Log.randomLogLevel(random), sourceIds[source], sourceNames[source], "Load test log");
+            if (pendingBatch.isFull()) {
+                LogBatch full = pendingBatch;
+                pendingBatch = null;
+                batchQueue.putBatch(full); // Ownership passes to the consumer
+                pendingBatch = batchQueue.obtainBatch();
+            }
+        } else {
+            logQueue.addLog(
+                new Log("LOAD-" + (sent + 1), "Load test log", Log.randomLogLevel(random).name(), sourceNames[source], intendedMillis)
+            );
+        }
+        sent++;
+        intervalSent++;
+    }
+    
+    /**
+     * A run must send about the area under the rate curve. Poisson counts
+     * vary by ~sqrt(expected); far more than that means arrivals were
+     * generated wrong (or the run was cut short).
+     */
+    private void checkSentAgainstProfile() {
+        double expected = profile.expectedArrivals();
+        double tolerance = arrival == LoadProfile.Arrival.CONSTANT ? 1 + expected * 0.01 : 1 + 5 * Math.sqrt(expected);
+        if (Math.abs(sent - expected) > tolerance) {
+            System.err.println(
+                String.format(
+                    "[LoadGenerator] Sent %d logs but the profile expects ≈%.0f (±%.0f)",
+                    sent,
+                    expected,
+                    tolerance
+                )
+            );
+        }
+    }
+    
+    private void flushPendingBatch() throws InterruptedException {
+        if (pendingBatch != null && pendingBatch.size() > 0) {
+            LogBatch partial = pendingBatch;
+            pendingBatch = null;
+            batchQueue.putBatch(partial);
+            pendingBatch = batchQueue.obtainBatch();
+        }
+    }
+    
+    /**
+     * Ends the current one-second interval. Swapping the histogram is not
+     * atomic with in-flight record() calls: a completion racing the swap can
+     * miss its interval, but is always in the totals.
+     */
+    private void closeInterval(long endOffsetNanos) {
+        LatencyHistogram finished = intervalLatency;
+        intervalLatency = new LatencyHistogram();
+        long completedNow = completed.sum();
+        long droppedNow = dropped.sum();
+        
+        long startOffsetNanos = intervals.size() * INTERVAL_NANOS;
+        double targetRate = profile.rateAt((startOffsetNanos + endOffsetNanos) / 2);
+        intervals.add(
+            new Interval(
+                intervals.size() + 1,
+                targetRate,
+                intervalSent,
+                completedNow - intervalCompletedBase,
+                droppedNow - intervalDroppedBase,
+                finished.snapshot()
+            )
+        );
+        intervalSent = 0;
+        intervalCompletedBase = completedNow;
+        intervalDroppedBase = droppedNow;
+    }
+    
+    /**
+     * One second of the run: what was asked for, sent, completed and dropped.
+     */
+    public static final class Interval {
+        private final int second;
+        private final double targetRate;
+        private final long sent;
+        private final long completed;
+        private final long dropped;
+        private final LatencyHistogram.Snapshot latency;
+        
+        Interval(int second, double targetRate, long sent, long completed, long dropped,
+                 LatencyHistogram.Snapshot latency) {
+            this.second = second;
+            this.targetRate = targetRate;
+            this.sent = sent;
+            this.completed = completed;
+            this.dropped = dropped;
+            this.latency = latency;
+        }
+        
+        public int getSecond() { return second; }
+        public double getTargetRate() { return targetRate; }
+        public long getSent() { return sent; }
+        public long getCompleted() { return completed; }
+        
+        /** Shed by the queue's overflow policy; not in the latencies */
+        public long getDropped() { return dropped; }
+        public LatencyHistogram.Snapshot getLatency() { return latency; }
+    }
+    
+    /**
+     * Run summary with JSON and CSV renderings.
+     */
+    public static final class Report {
+        private final String profile;
+        private final LoadProfile.Arrival arrival;
+        private final double elapsedSeconds;
+        private final long sent;
+        private final double expected;
+        private final long completed;
+        private final long dropped;
+        private final long maxSendLagMs;
+        private final LatencyHistogram.Snapshot latency;
+        private final List<Interval> intervals;
+        
+        Report(String profile, LoadProfile.Arrival arrival, double elapsedSeconds, long sent, double expected,
+               long completed, long dropped, long maxSendLagMs, LatencyHistogram.Snapshot latency,
+               List<Interval> intervals) {
+            this.profile = profile;
+            this.arrival = arrival;
+            this.elapsedSeconds = elapsedSeconds;
+            this.sent = sent;
+            this.expected = expected;
+            this.completed = completed;
+            this.dropped = dropped;
+            this.maxSendLagMs = maxSendLagMs;
+            this.latency = latency;
+            this.intervals = Collections.unmodifiableList(new ArrayList<>(intervals));
+        }
+        
+        public long getSent() { return sent; }
+        
+        /** Area under the profile's rate curve */
+        public double getExpected() { return expected; }
+        
+        public long getCompleted() { return completed; }
+        public long getDropped() { return dropped; }
+        public long getMaxSendLagMs() { return maxSendLagMs; }
+        public LatencyHistogram.Snapshot getLatency() { return latency; }
+        public List<Interval> getIntervals() { return intervals; }
+        
+        public String toJson() {
+            StringBuilder json = new StringBuilder();
+            json.append("{\n");
+            json.append("  \"profile\": \"").append(profile.replace("\"", "\\\"")).append("\",\n");
+            json.append("  \"arrival\": \"").append(arrival).append("\",\n");
+            json.append(String.format(Locale.ROOT, "  \"elapsedSeconds\": %.3f,%n", elapsedSeconds));
+            json.append("  \"sent\": ").append(sent).append(",\n");
+            json.append(String.format(Locale.ROOT, "  \"expected\": %.1f,%n", expected));
+            json.append("  \"completed\": ").append(completed).append(",\n");
+            json.append("  \"dropped\": ").append(dropped).append(",\n");
+            json.append("  \"maxSendLagMs\": ").append(maxSendLagMs).append(",\n");
+            json.append(
+                String.format(
+                    Locale.ROOT,
+                    "  \"latencyMs\": {\"count\": %d, \"mean\": %.2f, \"p50\": %d, \"p90\": %d, \"p99\": %d, \"p999\": %d, \"max\": %d},%n",
+                    latency.getTotalCount(),
+                    latency.getMean(),
+                    latency.getP50(),
+                    latency.getP90(),
+                    latency.getP99(),
+                    latency.getP999(),
+                    latency.getMax()
+                )
+            );
+            json.append("  \"intervals\": [\n");
+            for (int i = 0; i < intervals.size(); i++) {
+                Interval interval = intervals.get(i);
+                json.append(
+                    String.format(
+                        Locale.ROOT,
+                        "    {\"second\": %d, \"targetRate\": %.1f, \"sent\": %d, \"completed\": %d, \"dropped\": %d, \"p50Ms\": %d, \"p99Ms\": %d, \"maxMs\": %d}%s%n",
+                        interval.second,
+                        interval.targetRate,
+                        interval.sent,
+                        interval.completed,
+                        interval.dropped,
+                        interval.latency.getP50(),
+                        interval.latency.getP99(),
+                        interval.latency.getMax(),
+                        i < intervals.size() - 1 ? "," : ""
+                    )
+                );
+            }
+            json.append("  ]\n");
+            json.append("}\n");
+            return json.toString();
+        }
+        
+        /**
+         * One row per interval, for spreadsheets and plotting.
+         */
+        public String toCsv() {
+            StringBuilder csv = new StringBuilder("second,target_rate,sent,completed,dropped,p50_ms,p99_ms,max_ms\n");
+            for (Interval interval : intervals) {
+                csv.append(
+                    String.format(
+                        Locale.ROOT,
+                        "%d,%.1f,%d,%d,%d,%d,%d,%d%n",
+                        interval.second,
+                        interval.targetRate,
+                        interval.sent,
+                        interval.completed,
+                        interval.dropped,
+                        interval.latency.getP50(),
+                        interval.latency.getP99(),
+                        interval.latency.getMax()
+                    )
+                );
+            }
+            return csv.toString();
+        }
+        
+        /**
+         * Writes basePath.json and basePath.csv.
+         */
+        public void writeTo(String basePath) throws IOException {
+            Path json = Paths.get(basePath + ".json");
+            Path csv = Paths.get(basePath + ".csv");
+            Files.write(json, toJson().getBytes(StandardCharsets.UTF_8));
+            Files.write(csv, toCsv().getBytes(StandardCharsets.UTF_8));
+            System.out.println(
+                String.format(
+                    "[LoadGenerator] Report written to %s and %s",
+                    json.toAbsolutePath(),
+                    csv.toAbsolutePath()
+                )
+            );
+        }
+        
+        @Override
+        public String toString() {
+            return String.format(
+                "Load Report (%s, %s arrivals):%n" +
+                "  Sent: %d (expected ≈%.0f) in %.1fs (%.1f logs/s), Completed: %d, Dropped: %d%n" +
+                "  Max Send Lag: %d ms (generator behind schedule)%n" +
+                "  End-to-End Latency (from intended send): %s",
+                profile,
+                arrival,
+                sent,
+                expected,
+                elapsedSeconds,
+                elapsedSeconds > 0 ? sent / elapsedSeconds : 0.0,
+                completed,
+                dropped,
+                maxSendLagMs,
+                latency
+            );
+        }
+    }
+}
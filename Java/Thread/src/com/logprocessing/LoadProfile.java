@@ -0,0 +1,207 @@
+package com.logprocessing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * STEP 24: Load Profiles and Arrival Processes
+ * 
+ * Target arrival rate over time, for the open-loop LoadGenerator.
+ * 
+ * <pre>
+ * constant:200:30s               200 logs/s for 30 s
+ * ramp:10-500:60s                linear 10 → 500 logs/s over 60 s
+ * step:50x10s,200x10s,500x5s     50/s for 10 s, then 200/s, then 500/s
+ * </pre>
+ * 
+ * Arrival processes (gaps between intended send times):
+ * - CONSTANT: exactly 1/rate apart
+ * - POISSON:  exponentially distributed gaps with mean 1/rate (real traffic
+ *   is bursty; a constant rate hides queueing that Poisson exposes)
+ * 
+ * CHANGING RATES:
+ * The next arrival is where the area under the rate curve has grown by
+ * one arrival's worth (1 for CONSTANT, an Exp(1) draw for POISSON), found
+ * by inverting the piecewise-linear integral. Sizing a gap from the rate
+ * at the send time instead breaks ramps from 0: at t=1ms of 0→500/s over
+ * 60s the rate is 0.008/s, a 120s gap that skips the whole ramp.
+ * A run therefore sends about expectedArrivals() logs.
+ */
+public final class LoadProfile {
+    
+    public enum Arrival {
+        CONSTANT,
+        POISSON;
+        
+        /**
+         * Area under the rate curve (in arrivals) until the next arrival.
+         */
+        double nextArea(Random random) {
+            if (this == CONSTANT) {
+                return 1;
+            }
+            return -Math.log(1 - random.nextDouble());
+        }
+    }
+    
+    private final String description;
+    private final double[] startRates;   // Per segment
+    private final double[] endRates;     // Per segment (== start for steps)
+    private final long[] segmentEnds;    // Cumulative nanos
+    private final long durationNanos;
+    
+    private LoadProfile(String description, List<double[]> segments) {
+        this.description = description;
+        this.startRates = new double[segments.size()];
+        this.endRates = new double[segments.size()];
+        this.segmentEnds = new long[segments.size()];
+        long end = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            double[] segment = segments.get(i); // {startRate, endRate, durationNanos}
+            if (segment[0] < 0 || segment[1] < 0 || segment[2] <= 0) {
+                throw new IllegalArgumentException("Invalid load profile segment in: " + description);
+            }
+            startRates[i] = segment[0];
+            endRates[i] = segment[1];
+            end += (long) segment[2];
+            segmentEnds[i] = end;
+        }
+        this.durationNanos = end;
+    }
+    
+    public static LoadProfile constant(double rate, long duration, TimeUnit unit) {
+        return ramp(rate, rate, duration, unit);
+    }
+    
+    public static LoadProfile ramp(double fromRate, double toRate, long duration, TimeUnit unit) {
+        List<double[]> segments = new ArrayList<>();
+        segments.add(new double[] {fromRate, toRate, unit.toNanos(duration)});
+        return new LoadProfile(
+            fromRate == toRate
+                ? String.format("constant %.0f/s for %ds", fromRate, unit.toSeconds(duration))
+                : String.format("ramp %.0f→%.0f/s over %ds", fromRate, toRate, unit.toSeconds(duration)),
+            segments
+        );
+    }
+    
+    /**
+     * Parses the spec formats shown in the class comment.
+     */
+    public static LoadProfile parse(String spec) {
+        String[] parts = spec.trim().split(":");
+        try {
+            switch (parts[0].toLowerCase()) {
+                case "constant":
+                    return constant(Double.parseDouble(parts[1]), parseDurationMillis(parts[2]), TimeUnit.MILLISECONDS);
+                case "ramp":
+                    String[] rates = parts[1].split("-");
+                    return ramp(
+                        Double.parseDouble(rates[0]),
+                        Double.parseDouble(rates[1]),
+                        parseDurationMillis(parts[2]),
+                        TimeUnit.MILLISECONDS
+                    );
+                case "step":
+                    List<double[]> segments = new ArrayList<>();
+                    for (String step : parts[1].split(",")) {
+                        String[] rateAndDuration = step.trim().split("x");
+                        double rate = Double.parseDouble(rateAndDuration[0]);
+                        long nanos = TimeUnit.MILLISECONDS.toNanos(parseDurationMillis(rateAndDuration[1]));
+                        segments.add(new double[] {rate, rate, nanos});
+                    }
+                    return new LoadProfile("step " + parts[1], segments);
+                default:
+                    break;
+            }
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid load profile '" + spec + "': " + e, e);
+        }
+        throw new IllegalArgumentException("Unknown load profile: " + spec);
+    }
+    
+    /**
+     * "500ms", "30s", "2m" → milliseconds.
+     */
+    static long parseDurationMillis(String text) {
+        String value = text.trim().toLowerCase();
+        if (value.endsWith("ms")) {
+            return Long.parseLong(value.substring(0, value.length() - 2));
+        }
+        if (value.endsWith("s")) {
+            return TimeUnit.SECONDS.toMillis(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        if (value.endsWith("m")) {
+            return TimeUnit.MINUTES.toMillis(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        return TimeUnit.SECONDS.toMillis(Long.parseLong(value));
+    }
+    
+    /**
+     * Target rate (logs/s) at elapsedNanos into the run; 0 after the end.
+     */
+    public double rateAt(long elapsedNanos) {
+        long segmentStart = 0;
+        for (int i = 0; i < segmentEnds.length; i++) {
+            if (elapsedNanos < segmentEnds[i]) {
+                double progress = (double) (elapsedNanos - segmentStart) / (segmentEnds[i] - segmentStart);
+                return startRates[i] + (endRates[i] - startRates[i]) * progress;
+            }
+            segmentStart = segmentEnds[i];
+        }
+        return 0;
+    }
+    
+    /**
+     * Time (nanos into the run) of the first arrival after fromNanos, or
+     * getDurationNanos() if the profile ends before it.
+     */
+    public long nextArrivalNanos(long fromNanos, Arrival arrival, Random random) {
+        double area = arrival.nextArea(random);
+        long segmentStart = 0;
+        for (int i = 0; i < segmentEnds.length; i++) {
+            long segmentEnd = segmentEnds[i];
+            if (fromNanos < segmentEnd) {
+                long from = Math.max(fromNanos, segmentStart);
+                double length = (segmentEnd - segmentStart) / 1e9;
+                double slope = (endRates[i] - startRates[i]) / length;  // logs/s per s
+                double rate = rateAt(from);
+                double remaining = (segmentEnd - from) / 1e9;
+                double segmentArea = rate * remaining + slope * remaining * remaining / 2;
+                if (segmentArea > 0 && area <= segmentArea) {
+                    // Solve rate·x + slope·x²/2 = area for x (seconds)
+                    double seconds = Math.abs(slope) < 1e-12
+                        ? area / rate
+                        : (Math.sqrt(Math.max(0, rate * rate + 2 * slope * area)) - rate) / slope;
+                    return Math.min(segmentEnd, from + (long) (seconds * 1e9));
+                }
+                area -= segmentArea;
+            }
+            segmentStart = segmentEnd;
+        }
+        return durationNanos;
+    }
+    
+    /**
+     * Area under the rate curve: the number of logs a run should send.
+     */
+    public double expectedArrivals() {
+        double arrivals = 0;
+        long segmentStart = 0;
+        for (int i = 0; i < segmentEnds.length; i++) {
+            arrivals += (startRates[i] + endRates[i]) / 2 * (segmentEnds[i] - segmentStart) / 1e9;
+            segmentStart = segmentEnds[i];
+        }
+        return arrivals;
+    }
+    
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+    
+    @Override
+    public String toString() {
+        return description;
+    }
+}
@@ -0,0 +1,115 @@
+package com.logprocessing;
+
+import java.io.IOException;
+
+/**
+ * STEP 24: Load Test Entry Point
+ * 
+ * Runs the processing service under an open-loop LoadGenerator instead of
+ * the closed-loop LogProducerWorkers, then writes JSON and CSV reports.
+ * 
+ * -Dloadtest.profile=step:10x10s,30x10s,60x10s → LoadProfile spec (see LoadProfile)
+ * -Dloadtest.arrival=poisson                   → constant | poisson
+ * -Dloadtest.seed=42                           → arrival and level randomness
+ * -Dloadtest.report=load-report                → writes load-report.json / .csv
+ * -Dloadtest.queueCapacity=50                  → logs queued before addLog() blocks
+ * 
+ * The service is configured exactly as in LogProcessingSystem
+ * (logprocessing.workerMode, logprocessing.queue, logprocessing.autoscale,
+ * logprocessing.stageThreads, logprocessing.metricsPort, ...).
+ */
+public class LoadTestRunner {
+    
+    // COLUMNAR mode: rows per LogBatch, as in LogProcessingSystem
+    private static final int COLUMNAR_BATCH_ROWS = 8;
+    
+    public static void main(String[] args) throws InterruptedException {
+        System.out.println("=== STEP 24: Open-Loop Load Test ===\n");
+        
+        LoadProfile profile = LoadProfile.parse(System.getProperty("loadtest.profile", "step:10x10s,30x10s,60x10s"));
+        LoadProfile.Arrival arrival = LoadProfile.Arrival.valueOf(
+            System.getProperty("loadtest.arrival", "poisson").toUpperCase()
+        );
+        long seed = Long.getLong("loadtest.seed", System.nanoTime());
+        String reportPath = System.getProperty("loadtest.report", "load-report");
+        int queueCapacity = Integer.getInteger("loadtest.queueCapacity", 50);
+        
+        int cpuCores = Runtime.getRuntime().availableProcessors();
+        int poolSize = cpuCores * 2;
+        LogProcessingService.WorkerMode workerMode = LogProcessingService.WorkerMode.valueOf(
+            System.getProperty("logprocessing.workerMode", "PER_LOG").toUpperCase()
+        );
+        System.out.println(
+            String.format(
+                "[Main Thread] Pool size %d, worker mode %s, queue capacity %d",
+                poolSize,
+                workerMode,
+                queueCapacity
+            )
+        );
+        
+        LogProcessingService processingService;
+        LoadGenerator generator;
+        if (workerMode == LogProcessingService.WorkerMode.COLUMNAR) {
+            LogBatchQueue batchQueue = new LogBatchQueue(queueCapacity, COLUMNAR_BATCH_ROWS);
+            processingService = new LogProcessingService(poolSize, batchQueue);
+            generator = new LoadGenerator(batchQueue, profile, arrival, seed);
+        } else {
+            BlockingLogQueue logQueue = LogProcessingSystem.createLogQueue(queueCapacity);
+            processingService = new LogProcessingService(poolSize, logQueue, workerMode);
+            generator = new LoadGenerator(logQueue, profile, arrival, seed);
+            if (logQueue instanceof LogQueue) {
+                // Shed logs never complete: count them as done so the drain does not wait for them
+                ((LogQueue) logQueue).setDropListener(generator.dropListener());
+            }
+        }
+        LogProcessingSystem.configureAutoscaling(processingService, workerMode, cpuCores);
+        LogProcessingSystem.configureStages(processingService, workerMode);
+        LogProcessingSystem.configureSink(processingService, workerMode);
+        LogProcessingSystem.configurePartitions(processingService, workerMode);
+        LogProcessingSystem.configureDedup(processingService);
+        processingService.setCompletionListener(generator.completionListener());
+        processingService.start();
+        PrometheusExporter exporter = LogProcessingSystem.startMetricsExporter(processingService);
+        
+        LoadGenerator.Report report = generator.run();
+        
+        System.out.println("\n[Main Thread] Load profile finished, shutting down...\n");
+        processingService.shutdown();
+        LogProcessingSystem.closeLogQueue(processingService.getLogQueue());
+        if (exporter != null) {
+            exporter.close();
+        }
+        
+        System.out.println("\n=== Load Test Report ===");
+        System.out.println(report);
+        System.out.println();
+        for (LoadGenerator.Interval interval : report.getIntervals()) {
+            System.out.println(
+                String.format(
+                    "  t=%3ds target=%6.1f/s sent=%5d completed=%5d dropped=%5d p50=%6dms p99=%6dms max=%6dms",
+                    interval.getSecond(),
+                    interval.getTargetRate(),
+                    interval.getSent(),
+                    interval.getCompleted(),
+                    interval.getDropped(),
+                    interval.getLatency().getP50(),
+                    interval.getLatency().getP99(),
+                    interval.getLatency().getMax()
+                )
+            );
+        }
+        
+        try {
+            report.writeTo(reportPath);
+        } catch (IOException e) {
+            System.err.println(
+                String.format(
+                    "[Main Thread] Cannot write report %s (%s)",
+                    reportPath,
+                    e.getMessage()
+                )
+            );
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.logprocessing;
 
 import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * STEP 4: Enhanced Log Model with Levels
@@ -14,6 +15,10 @@ public class Log {
     private final String level; // ERROR, WARNING, INFO
     private final String source; // Source application/service
     
+    // Interned at construction (producer side) so consumers never re-parse
+    private final LogLevel logLevel;
+    private final int sourceId;
+    
     public Log(String id, String message) {
         this.id = id;
         this.message = message;
@@ -21,14 +26,25 @@ public class Log {
         // Default values
         this.level = "INFO";
         this.source = "UNKNOWN";
+        this.logLevel = LogLevel.INFO;
+        this.sourceId = SourceRegistry.global().idOf(source);
     }
     
     public Log(String id, String message, String level, String source) {
+        this(id, message, level, source, System.currentTimeMillis());
+    }
+    
+    /**
+     * Recreates a log with its original timestamp (e.g. replayed from a spill segment).
+     */
+    public Log(String id, String message, String level, String source, long timestamp) {
         this.id = id;
         this.message = message;
-        this.timestamp = System.currentTimeMillis();
+        this.timestamp = timestamp;
         this.level = level;
         this.source = source;
+        this.logLevel = LogLevel.parse(level);
+        this.sourceId = SourceRegistry.global().idOf(source);
     }
     
     public String getId() { return id; }
@@ -36,6 +52,12 @@ public class Log {
     public long getTimestamp() { return timestamp; }
     public String getLevel() { return level; }
     public String getSource() { return source; }
+    public LogLevel getLogLevel() { return logLevel; }
+    
+    /**
+     * Dense id from SourceRegistry.global(), or SourceRegistry.UNREGISTERED.
+     */
+    public int getSourceId() { return sourceId; }
     
     @Override
     public String toString() {
@@ -47,10 +69,25 @@ public class Log {
      * Helper method to generate random log levels for demonstration.
      */
     public static String randomLevel() {
-        Random random = new Random();
+        return randomLogLevel().name();
+    }
+    
+    /**
+     * ThreadLocalRandom: no new Random() (and its seed CAS) per call,
+     * no contention between producer threads.
+     */
+    public static LogLevel randomLogLevel() {
+        return randomLogLevel(ThreadLocalRandom.current());
+    }
+    
+    /**
+     * Same distribution from a caller's Random (e.g. a seeded one, for
+     * reproducible runs).
+     */
+    public static LogLevel randomLogLevel(Random random) {
         int rand = random.nextInt(100);
-        if (rand < 5) return "ERROR";      // 5% errors
-        if (rand < 20) return "WARNING";    // 15% warnings
-        return "INFO";                      // 80% info
+        if (rand < 5) return LogLevel.ERROR;      // 5% errors
+        if (rand < 20) return LogLevel.WARNING;   // 15% warnings
+        return LogLevel.INFO;                     // 80% info
     }
 }
\ No newline at end of file
@@ -0,0 +1,223 @@
+package com.logprocessing;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * STEP 18: Columnar Log Batch
+ * 
+ * Struct-of-arrays representation of up to `capacity` logs:
+ * 
+ * <pre>
+ * timestamps[] : long   (epoch ms)
+ * sequences[]  : long   (producer sequence number)
+ * levels[]     : byte   (LogLevel ordinal)
+ * sourceIds[]  : int    (SourceRegistry id)
+ * unregisteredSources[] : String (source name, only for UNREGISTERED rows)
+ * messageOffsets[i] .. messageOffsets[i+1] : range of row i in messageChars[]
+ * </pre>
+ * 
+ * KEY CONCEPTS:
+ * - One batch = a handful of arrays, not one Log + three Strings per row
+ * - Messages share a single char buffer; a row is just an offset range
+ * - Reusable: clear() resets the batch so a pool can recycle it
+ * 
+ * WHY THIS DESIGN:
+ * - Above ~100k logs/s, per-log objects dominate the allocation rate and GC
+ * - Scans like "count levels per batch" walk one dense byte[] (cache friendly)
+ * 
+ * THREAD SAFETY:
+ * - NOT thread-safe. A batch has one owner at a time; handing it over
+ *   through LogBatchQueue publishes its contents to the consumer.
+ */
+public class LogBatch {
+    
+    private static final int DEFAULT_CHARS_PER_MESSAGE = 32;
+    
+    private final int capacity;
+    private final long[] timestamps;
+    private final long[] sequences;
+    private final byte[] levels;
+    private final int[] sourceIds;
+    private String[] unregisteredSources; // Allocated once the registry is full
+    private final int[] messageOffsets;
+    private char[] messageChars;
+    private int size = 0;
+    
+    public LogBatch(int capacity) {
+        this(capacity, capacity * DEFAULT_CHARS_PER_MESSAGE);
+    }
+    
+    public LogBatch(int capacity, int initialMessageChars) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.timestamps = new long[capacity];
+        this.sequences = new long[capacity];
+        this.levels = new byte[capacity];
+        this.sourceIds = new int[capacity];
+        this.messageOffsets = new int[capacity + 1];
+        this.messageChars = new char[Math.max(16, initialMessageChars)];
+    }
+    
+    /**
+     * Appends one row, copying the message characters into the shared buffer.
+     * 
+     * @param source the source name; kept only when sourceId is UNREGISTERED,
+     *               so per-source counts can still reach the overflow sketch
+     * @return false if the batch is full (nothing is written)
+     */
+    public boolean add(long timestamp, long sequence, LogLevel level, int sourceId, String source, CharSequence message) {
+        if (size == capacity) {
+            return false;
+        }
+        int start = messageOffsets[size];
+        int length = message.length();
+        ensureMessageCapacity(start + length);
+        if (message instanceof String) {
+            ((String) message).getChars(0, length, messageChars, start);
+        } else {
+            for (int i = 0; i < length; i++) {
+                messageChars[start + i] = message.charAt(i);
+            }
+        }
+        
+        timestamps[size] = timestamp;
+        sequences[size] = sequence;
+        levels[size] = (byte) level.ordinal();
+        sourceIds[size] = sourceId;
+        if (sourceId < 0) {
+            if (unregisteredSources == null) {
+                unregisteredSources = new String[capacity];
+            }
+            unregisteredSources[size] = source;
+        } else if (unregisteredSources != null) {
+            unregisteredSources[size] = null; // Reused batch: drop the previous row's name
+        }
+        messageOffsets[size + 1] = start + length;
+        size++;
+        return true;
+    }
+    
+    /**
+     * Copies a list of Logs into a new batch (bridge for the object-per-log APIs).
+     * Log ids are not kept; each row's sequence is its position in the list.
+     */
+    public static LogBatch of(List<Log> logs) {
+        LogBatch batch = new LogBatch(Math.max(1, logs.size()));
+        long sequence = 0;
+        for (Log log : logs) {
+            batch.add(log.getTimestamp(), sequence++, log.getLogLevel(), log.getSourceId(), log.getSource(), log.getMessage());
+        }
+        return batch;
+    }
+    
+    /**
+     * Resets the batch for reuse; arrays are kept, contents are overwritten.
+     */
+    public void clear() {
+        size = 0;
+    }
+    
+    /**
+     * Keeps only the first newSize rows (e.g. the rows processed before a shutdown).
+     */
+    public void truncate(int newSize) {
+        if (newSize < 0 || newSize > size) {
+            throw new IllegalArgumentException("Cannot truncate " + size + " rows to " + newSize);
+        }
+        size = newSize;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public int capacity() {
+        return capacity;
+    }
+    
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    public boolean isFull() {
+        return size == capacity;
+    }
+    
+    public long getTimestamp(int i) {
+        checkIndex(i);
+        return timestamps[i];
+    }
+    
+    public long getSequence(int i) {
+        checkIndex(i);
+        return sequences[i];
+    }
+    
+    public LogLevel getLevel(int i) {
+        checkIndex(i);
+        return LogLevel.fromOrdinal(levels[i]);
+    }
+    
+    public int getSourceId(int i) {
+        checkIndex(i);
+        return sourceIds[i];
+    }
+    
+    /**
+     * Row i's source name (registered or not), or null if it had none.
+     */
+    public String getSource(int i) {
+        checkIndex(i);
+        int sourceId = sourceIds[i];
+        if (sourceId >= 0) {
+            return SourceRegistry.global().nameOf(sourceId);
+        }
+        return unregisteredSources != null ? unregisteredSources[i] : null;
+    }
+    
+    /**
+     * Row i's message as a new String (allocates).
+     */
+    public String getMessage(int i) {
+        checkIndex(i);
+        return new String(messageChars, messageOffsets[i], messageOffsets[i + 1] - messageOffsets[i]);
+    }
+    
+    /**
+     * Appends row i's message to sb without creating an intermediate String.
+     */
+    public StringBuilder appendMessage(int i, StringBuilder sb) {
+        checkIndex(i);
+        return sb.append(messageChars, messageOffsets[i], messageOffsets[i + 1] - messageOffsets[i]);
+    }
+    
+    /**
+     * Adds this batch's per-level row counts into counts (indexed by LogLevel ordinal).
+     */
+    public void countLevels(long[] counts) {
+        for (int i = 0; i < size; i++) {
+            counts[levels[i]]++;
+        }
+    }
+    
+    private void ensureMessageCapacity(int required) {
+        if (required > messageChars.length) {
+            messageChars = Arrays.copyOf(messageChars, Math.max(required, messageChars.length * 2));
+        }
+    }
+    
+    private void checkIndex(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Row " + i + ", size " + size);
+        }
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("LogBatch[size=%d, capacity=%d, messageChars=%d]",
+            size, capacity, messageOffsets[size]);
+    }
+}
@@ -0,0 +1,142 @@
+package com.logprocessing;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * STEP 18: Bounded Queue of Columnar Batches
+ * 
+ * Producer-consumer queue whose unit of hand-off is a whole LogBatch.
+ * Capacity is counted in LOGS (rows), so backpressure matches LogQueue.
+ * 
+ * KEY CONCEPTS:
+ * - One lock acquire + one notifyAll() per batch, not per log
+ * - Ownership transfer: after putBatch() the producer must not touch the batch
+ * - Batch pool: consumers recycle() processed batches, producers obtainBatch()
+ *   them back, so steady state allocates no new arrays
+ * 
+ * WHY THIS DESIGN:
+ * - LogQueue moves Log objects; at high volume the objects themselves are the cost
+ */
+public class LogBatchQueue {
+    
+    private static final int MAX_POOLED_BATCHES = 64;
+    
+    private final Deque<LogBatch> batches = new ArrayDeque<>();
+    private final int maxLogs;
+    private final int batchCapacity;
+    private final Object lock = new Object();
+    private int queuedLogs = 0; // Guarded by lock
+    
+    private final ConcurrentLinkedQueue<LogBatch> pool = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooled = new AtomicInteger(0);
+    
+    /**
+     * @param maxLogs       total rows the queue may hold
+     * @param batchCapacity rows per batch handed out by obtainBatch()
+     */
+    public LogBatchQueue(int maxLogs, int batchCapacity) {
+        if (maxLogs < 1 || batchCapacity < 1) {
+            throw new IllegalArgumentException(
+                String.format("Invalid queue: maxLogs=%d, batchCapacity=%d", maxLogs, batchCapacity)
+            );
+        }
+        this.maxLogs = maxLogs;
+        this.batchCapacity = batchCapacity;
+    }
+    
+    /**
+     * Returns an empty batch from the pool, or a new one if the pool is empty.
+     */
+    public LogBatch obtainBatch() {
+        LogBatch batch = pool.poll();
+        if (batch == null) {
+            return new LogBatch(batchCapacity);
+        }
+        pooled.decrementAndGet();
+        batch.clear();
+        return batch;
+    }
+    
+    /**
+     * Returns a processed batch to the pool. The caller must not use it afterwards.
+     */
+    public void recycle(LogBatch batch) {
+        if (batch.capacity() == batchCapacity && pooled.incrementAndGet() <= MAX_POOLED_BATCHES) {
+            pool.offer(batch);
+        } else if (batch.capacity() == batchCapacity) {
+            pooled.decrementAndGet(); // Pool full - let GC have it
+        }
+    }
+    
+    /**
+     * Enqueues a batch, blocking while it would exceed maxLogs.
+     * 
+     * A batch larger than maxLogs is still accepted once the queue is empty,
+     * otherwise it could never be enqueued.
+     */
+    public void putBatch(LogBatch batch) throws InterruptedException {
+        if (batch.isEmpty()) {
+            recycle(batch);
+            return;
+        }
+        synchronized (lock) {
+            while (queuedLogs > 0 && queuedLogs + batch.size() > maxLogs) {
+                lock.wait();
+            }
+            batches.addLast(batch);
+            queuedLogs += batch.size();
+            lock.notifyAll();
+        }
+    }
+    
+    /**
+     * Removes the oldest batch, waiting up to timeout for one to arrive.
+     * 
+     * @return the batch, or null on timeout
+     */
+    public LogBatch takeBatch(long timeout, TimeUnit unit) throws InterruptedException {
+        long remainingNanos = unit.toNanos(timeout);
+        synchronized (lock) {
+            long deadline = System.nanoTime() + remainingNanos;
+            while (batches.isEmpty() && remainingNanos > 0) {
+                TimeUnit.NANOSECONDS.timedWait(lock, remainingNanos);
+                remainingNanos = deadline - System.nanoTime();
+            }
+            LogBatch batch = batches.pollFirst();
+            if (batch != null) {
+                queuedLogs -= batch.size();
+                lock.notifyAll(); // Room for producers
+            }
+            return batch;
+        }
+    }
+    
+    /**
+     * Queued logs (rows), for monitoring.
+     */
+    public int size() {
+        synchronized (lock) {
+            return queuedLogs;
+        }
+    }
+    
+    public int batchCount() {
+        synchronized (lock) {
+            return batches.size();
+        }
+    }
+    
+    public boolean isEmpty() {
+        synchronized (lock) {
+            return batches.isEmpty();
+        }
+    }
+    
+    public int getBatchCapacity() {
+        return batchCapacity;
+    }
+}
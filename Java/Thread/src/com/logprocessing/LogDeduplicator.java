@@ -0,0 +1,338 @@
+package com.logprocessing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * STEP 31: Fingerprint Deduplication
+ * 
+ * Counts repeats of the same event within a window and hands on one
+ * aggregated record per (fingerprint, level, source) instead of every log.
+ * 
+ * <pre>
+ * 40,000 × "Connection refused to db-7 after 3 retries" (ERROR, payments)
+ *   → 1 × AggregatedLog{template="Connection refused to db-&lt;n&gt; after &lt;n&gt; retries", count=40000}
+ * </pre>
+ * 
+ * KEY CONCEPTS:
+ * - Fingerprint: MessageFingerprint masks numbers, hex ids and UUIDs, so
+ *   repeats with different values still match
+ * - Window: everything offered between two drain() calls
+ * - Bounded: at most maxFingerprints records per window; once full, new
+ *   fingerprints are counted in one "&lt;other&gt;" record per level, so
+ *   memory does not grow with message cardinality
+ * - Counts carry through: a record with count N weighs N in the alert rules
+ * 
+ * WHY THIS DESIGN:
+ * - One failing dependency can log the same error tens of thousands of
+ *   times a minute; every consumer after this stage sees one record
+ * - Open addressing on primitive long keys: offer() allocates nothing for
+ *   a repeat (no boxed Long, no map entry)
+ * 
+ * THREAD SAFETY:
+ * - The table is split into stripes by key hash, each with its own lock;
+ *   workers offering different messages rarely meet on the same lock
+ * - The fingerprint is computed outside any lock; the update holds one
+ *   stripe's lock for a probe and a few field writes
+ * - drain() takes the stripe locks one at a time: a log offered while the
+ *   window rolls lands in the old or the new window, never in both
+ * - Each stripe holds maxFingerprints / stripes records, so a stripe can
+ *   overflow slightly before the whole table is full
+ */
+public class LogDeduplicator {
+    
+    /**
+     * One fingerprint's repeats within a window. Immutable.
+     */
+    public static final class AggregatedLog {
+        private final long fingerprint;
+        private final String template;
+        private final String exemplar;
+        private final LogLevel level;
+        private final int sourceId;
+        private final long count;
+        private final long firstTimestamp;
+        private final long lastTimestamp;
+        
+        private AggregatedLog(Entry entry) {
+            this.fingerprint = entry.fingerprint;
+            this.template = entry.template;
+            this.exemplar = entry.exemplar;
+            this.level = entry.level;
+            this.sourceId = entry.sourceId;
+            this.count = entry.count;
+            this.firstTimestamp = entry.firstTimestamp;
+            this.lastTimestamp = entry.lastTimestamp;
+        }
+        
+        public long getFingerprint() { return fingerprint; }
+        
+        /** Masked message, e.g. "Timeout after &lt;n&gt;ms" */
+        public String getTemplate() { return template; }
+        
+        /** The first message seen with this fingerprint, unmasked */
+        public String getExemplar() { return exemplar; }
+        
+        public LogLevel getLevel() { return level; }
+        public int getSourceId() { return sourceId; }
+        
+        /** Source name, or null for the overflow record (all sources) */
+        public String getSource() {
+            return SourceRegistry.global().nameOf(sourceId);
+        }
+        
+        public long getCount() { return count; }
+        public long getFirstTimestamp() { return firstTimestamp; }
+        public long getLastTimestamp() { return lastTimestamp; }
+        
+        @Override
+        public String toString() {
+            String source = getSource();
+            return String.format(
+                "%s [%s] ×%d: %s",
+                level,
+                source != null ? source : "*",
+                count,
+                template
+            );
+        }
+    }
+    
+    private static final String OVERFLOW_TEMPLATE = "<other>";
+    
+    /** Mutable per-window counts, owned by a stripe under its lock */
+    private static final class Entry {
+        private final long fingerprint;
+        private final String template;
+        private final String exemplar;
+        private final LogLevel level;
+        private final int sourceId;
+        private long count;
+        private long firstTimestamp;
+        private long lastTimestamp;
+        
+        private Entry(long fingerprint, String template, String exemplar, LogLevel level, int sourceId, long timestamp) {
+            this.fingerprint = fingerprint;
+            this.template = template;
+            this.exemplar = exemplar;
+            this.level = level;
+            this.sourceId = sourceId;
+            this.firstTimestamp = timestamp;
+            this.lastTimestamp = timestamp;
+        }
+    }
+    
+    private static final int MAX_STRIPES = 16;
+    
+    /**
+     * One lock's share of the table. Open addressing, guarded by the
+     * stripe itself: entries[slot] == null marks an empty slot.
+     */
+    private static final class Stripe {
+        private final long[] keys;
+        private final Entry[] entries;
+        private final int mask;
+        private final int maxSize;
+        private int size = 0;
+        private final Entry[] overflow = new Entry[LogLevel.COUNT];
+        
+        private Stripe(int maxSize) {
+            this.maxSize = maxSize;
+            // At most half full: probe sequences stay short
+            int capacity = Integer.highestOneBit(maxSize * 2 - 1) << 1;
+            this.keys = new long[capacity];
+            this.entries = new Entry[capacity];
+            this.mask = capacity - 1;
+        }
+    }
+    
+    private final int maxFingerprints;
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    
+    // Statistics
+    private final LongAdder logsOffered = new LongAdder();
+    private final LongAdder recordsForwarded = new LongAdder();
+    private final LongAdder overflowLogs = new LongAdder();
+    private final LongAdder windows = new LongAdder();
+    
+    /**
+     * @param maxFingerprints distinct records kept per window
+     */
+    public LogDeduplicator(int maxFingerprints) {
+        if (maxFingerprints < 1) {
+            throw new IllegalArgumentException("maxFingerprints must be positive: " + maxFingerprints);
+        }
+        this.maxFingerprints = maxFingerprints;
+        int stripeCount = Math.min(MAX_STRIPES, Integer.highestOneBit(maxFingerprints));
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            // Shares add up to exactly maxFingerprints
+            stripes[i] = new Stripe(maxFingerprints / stripeCount + (i < maxFingerprints % stripeCount ? 1 : 0));
+        }
+        this.stripeMask = stripeCount - 1;
+    }
+    
+    public void offer(Log log) {
+        offer(log.getTimestamp(), log.getLogLevel(), log.getSourceId(), log.getMessage());
+    }
+    
+    /**
+     * Counts one log in the current window.
+     */
+    public void offer(long timestamp, LogLevel level, int sourceId, CharSequence message) {
+        long fingerprint = MessageFingerprint.fingerprint(message);
+        long key = key(fingerprint, level, sourceId);
+        logsOffered.increment();
+        
+        int hash = (int) (key ^ (key >>> 32));
+        // High bits pick the stripe, low bits the slot: the two stay independent
+        Stripe stripe = stripes[(hash >>> 24) & stripeMask];
+        synchronized (stripe) {
+            int slot = hash & stripe.mask;
+            Entry entry;
+            while ((entry = stripe.entries[slot]) != null && stripe.keys[slot] != key) {
+                slot = (slot + 1) & stripe.mask;
+            }
+            if (entry == null) {
+                if (stripe.size < stripe.maxSize) {
+                    String exemplar = message.toString();
+                    entry = new Entry(fingerprint, MessageFingerprint.template(exemplar), exemplar, level, sourceId, timestamp);
+                    stripe.keys[slot] = key;
+                    stripe.entries[slot] = entry;
+                    stripe.size++;
+                } else {
+                    // Stripe full for this window: count by level only
+                    entry = stripe.overflow[level.ordinal()];
+                    if (entry == null) {
+                        entry = new Entry(0, OVERFLOW_TEMPLATE, message.toString(), level, SourceRegistry.UNREGISTERED, timestamp);
+                        stripe.overflow[level.ordinal()] = entry;
+                    }
+                    overflowLogs.increment();
+                }
+            }
+            entry.count++;
+            entry.firstTimestamp = Math.min(entry.firstTimestamp, timestamp);
+            entry.lastTimestamp = Math.max(entry.lastTimestamp, timestamp);
+        }
+    }
+    
+    /**
+     * Closes the current window: returns its records, most repeated first,
+     * and starts an empty one.
+     */
+    public List<AggregatedLog> drain() {
+        List<Entry> drained = new ArrayList<>();
+        Entry[] overflow = new Entry[LogLevel.COUNT];
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                if (stripe.size > 0) {
+                    for (Entry entry : stripe.entries) {
+                        if (entry != null) {
+                            drained.add(entry);
+                        }
+                    }
+                    Arrays.fill(stripe.entries, null);
+                    stripe.size = 0;
+                }
+                for (int i = 0; i < stripe.overflow.length; i++) {
+                    if (stripe.overflow[i] != null) {
+                        overflow[i] = overflow[i] == null ? stripe.overflow[i] : mergeOverflow(overflow[i], stripe.overflow[i]);
+                        stripe.overflow[i] = null;
+                    }
+                }
+            }
+        }
+        for (Entry entry : overflow) {
+            if (entry != null) {
+                drained.add(entry); // One "<other>" record per level, whatever the stripe
+            }
+        }
+        windows.increment();
+        if (drained.isEmpty()) {
+            return Collections.emptyList();
+        }
+        // Drained entries are no longer reachable by offer(): read them without the locks
+        List<AggregatedLog> records = new ArrayList<>(drained.size());
+        for (Entry entry : drained) {
+            records.add(new AggregatedLog(entry));
+        }
+        Collections.sort(records, (a, b) -> Long.compare(b.getCount(), a.getCount()));
+        recordsForwarded.add(records.size());
+        return records;
+    }
+    
+    /**
+     * Distinct records in the current window (excluding overflow).
+     */
+    public int getFingerprints() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size;
+            }
+        }
+        return size;
+    }
+    
+    public int getMaxFingerprints() {
+        return maxFingerprints;
+    }
+    
+    public long getLogsOffered() {
+        return logsOffered.sum();
+    }
+    
+    public long getRecordsForwarded() {
+        return recordsForwarded.sum();
+    }
+    
+    /** Logs counted in an "&lt;other&gt;" record because the window was full */
+    public long getOverflowLogs() {
+        return overflowLogs.sum();
+    }
+    
+    public long getWindows() {
+        return windows.sum();
+    }
+    
+    /**
+     * Two stripes' overflow records for the same level, as one. Both are
+     * already drained, so neither is written any more.
+     */
+    private static Entry mergeOverflow(Entry a, Entry b) {
+        Entry merged = new Entry(0, OVERFLOW_TEMPLATE, a.exemplar, a.level, SourceRegistry.UNREGISTERED, a.firstTimestamp);
+        merged.count = a.count + b.count;
+        merged.firstTimestamp = Math.min(a.firstTimestamp, b.firstTimestamp);
+        merged.lastTimestamp = Math.max(a.lastTimestamp, b.lastTimestamp);
+        return merged;
+    }
+    
+    /**
+     * Same message, level and source → same key.
+     */
+    private static long key(long fingerprint, LogLevel level, int sourceId) {
+        long key = fingerprint * 31 + level.ordinal();
+        key ^= (sourceId + 1) * 0x9E3779B97F4A7C15L;
+        return key ^ (key >>> 29);
+    }
+    
+    @Override
+    public String toString() {
+        long offered = getLogsOffered();
+        long forwarded = getRecordsForwarded();
+        return String.format(
+            "%d logs → %d records in %d windows (%.1f%% suppressed) | overflow: %d | fingerprints now: %d/%d",
+            offered,
+            forwarded,
+            getWindows(),
+            offered > 0 ? (1 - (double) forwarded / offered) * 100 : 0.0,
+            getOverflowLogs(),
+            getFingerprints(),
+            maxFingerprints
+        );
+    }
+}
@@ -0,0 +1,333 @@
+package com.logprocessing;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * STEP 29: NIO Log File Tailer
+ * 
+ * Follows a log file like tail -F and feeds every complete line, parsed by
+ * LogLineParser, into a BlockingLogQueue. Replaces LogProducerWorker when
+ * the pipeline should process real application logs.
+ * 
+ * KEY CONCEPTS:
+ * - FileChannel reads into one reused ByteBuffer; lines are parsed in place
+ *   and the unfinished last line is compacted to the front for the next read
+ * - Rotation (rename + new file): the path's fileKey (device + inode)
+ *   changes. The old file is read to its end, then the new one from its start
+ * - Truncation (copytruncate): same file, size below our position. Reading
+ *   restarts at offset 0
+ * - A file missing at start is read from offset 0 once it appears: all of
+ *   its content was written after the tailer started
+ * - Backpressure: addLog() blocks on a full queue; unread lines simply wait
+ *   in the file, nothing is buffered in memory
+ * 
+ * WHY THIS DESIGN:
+ * - Polling at EOF (pollMillis) instead of a WatchService: watch events are
+ *   not delivered for every filesystem (NFS, some containers), a stat per
+ *   idle poll always works
+ * - One thread per file: reads are sequential, and the parser is not
+ *   thread-safe by design
+ * 
+ * WHAT WOULD GO WRONG WITHOUT IT:
+ * - Reopening by path only after a rename loses the old file's last lines
+ * - A reader that remembers only the offset sees nothing after a
+ *   copytruncate, until the new file grows past the old size
+ */
+public class LogFileTailer extends Thread {
+    
+    private static final int INITIAL_BUFFER_BYTES = 64 * 1024;
+    private static final int MAX_LINE_BYTES = 1024 * 1024; // Longer lines are skipped
+    
+    private final Path path;
+    private final BlockingLogQueue logQueue;
+    private final LogLineParser parser;
+    private final long pollMillis;
+    private final boolean fromStart;
+    private volatile boolean running = true;
+    
+    // Reader state, tailer thread only
+    private FileChannel channel;
+    private Object fileKey;
+    private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_BUFFER_BYTES);
+    private boolean skippingLongLine = false;
+    
+    // Statistics: written by the tailer thread only
+    private volatile long linesQueued = 0;
+    private volatile long bytesRead = 0;
+    private volatile int rotations = 0;
+    private volatile int truncations = 0;
+    private volatile int oversizedLines = 0;
+    
+    /**
+     * @param fromStart  read the existing content first; otherwise start at the current end (tail -F)
+     * @param pollMillis sleep between checks when there is nothing new
+     */
+    public LogFileTailer(Path path, BlockingLogQueue logQueue, boolean fromStart, long pollMillis) {
+        this.path = path;
+        this.logQueue = logQueue;
+        this.parser = new LogLineParser(path.getFileName() + ":");
+        this.fromStart = fromStart;
+        this.pollMillis = pollMillis;
+        this.setName("Tailer-" + path.getFileName());
+    }
+    
+    @Override
+    public void run() {
+        System.out.println(
+            String.format(
+                "[Tailer %s] Started (%s). Thread ID: %d",
+                path,
+                fromStart ? "from start" : "from end",
+                Thread.currentThread().getId()
+            )
+        );
+        
+        boolean first = true;
+        try {
+            while (running) {
+                if (channel == null) {
+                    // Only a file that exists at start honours fromStart; one created
+                    // later (or after rotation) is new content and is read whole
+                    boolean opened = open(first && !fromStart);
+                    first = false;
+                    if (!opened) {
+                        Thread.sleep(pollMillis); // Not created yet
+                        continue;
+                    }
+                }
+                if (readAvailable() > 0) {
+                    continue;
+                }
+                if (!checkRotation()) {
+                    Thread.sleep(pollMillis);
+                }
+            }
+        } catch (ClosedByInterruptException | InterruptedException e) {
+            // stopTailer(): interrupted in read(), addLog() or sleep()
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            System.err.println(
+                String.format(
+                    "[Tailer %s] Stopped on I/O error: %s",
+                    path,
+                    e
+                )
+            );
+        } finally {
+            closeChannel();
+        }
+        
+        System.out.println(
+            String.format(
+                "[Tailer %s] Stopped. %s",
+                path,
+                describe()
+            )
+        );
+    }
+    
+    /**
+     * Opens the file at path. The fileKey is read before opening: if the file
+     * rotates in between, the next check sees a different key and re-reads
+     * the new file (duplicates) rather than never noticing (lost lines).
+     * 
+     * @return false if the file does not exist yet
+     */
+    private boolean open(boolean atEnd) throws IOException {
+        try {
+            fileKey = Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+        if (atEnd) {
+            channel.position(channel.size());
+        }
+        buffer.clear();
+        skippingLongLine = false;
+        return true;
+    }
+    
+    /**
+     * Reads what the file has now and queues every complete line.
+     * 
+     * @return bytes read (0 at end of file)
+     */
+    private int readAvailable() throws IOException, InterruptedException {
+        int read = channel.read(buffer);
+        if (read <= 0) {
+            return 0;
+        }
+        bytesRead += read;
+        queueLines();
+        return read;
+    }
+    
+    /**
+     * Queues the complete lines in the buffer, keeps the unfinished one.
+     */
+    private void queueLines() throws InterruptedException {
+        buffer.flip();
+        int lineStart = buffer.position();
+        int limit = buffer.limit();
+        for (int i = lineStart; i < limit; i++) {
+            if (buffer.get(i) == '\n') {
+                queueLine(lineStart, i);
+                lineStart = i + 1;
+            }
+        }
+        buffer.position(lineStart);
+        buffer.compact();
+        
+        if (!buffer.hasRemaining()) {
+            // No newline in a full buffer: grow for the long line, or give up on it
+            if (buffer.capacity() < MAX_LINE_BYTES) {
+                ByteBuffer larger = ByteBuffer.allocate(Math.min(buffer.capacity() * 2, MAX_LINE_BYTES));
+                buffer.flip();
+                larger.put(buffer);
+                buffer = larger;
+            } else {
+                buffer.clear();
+                if (!skippingLongLine) {
+                    oversizedLines++;
+                    skippingLongLine = true; // Discard until the next newline
+                }
+            }
+        }
+    }
+    
+    private void queueLine(int start, int end) throws InterruptedException {
+        if (skippingLongLine) {
+            skippingLongLine = false; // Tail of an oversized line
+            return;
+        }
+        if (start == end) {
+            return;
+        }
+        Log log = parser.parse(buffer, start, end);
+        if (log != null) {
+            logQueue.addLog(log); // Blocks while the queue is full: backpressure
+            linesQueued++;
+        }
+    }
+    
+    /**
+     * Called at end of file.
+     * 
+     * @return true if reading switched to a new file or restarted at offset 0
+     */
+    private boolean checkRotation() throws IOException, InterruptedException {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return false; // Renamed away, replacement not created yet: keep reading the old file
+        }
+        
+        Object currentKey = attributes.fileKey();
+        if (currentKey != null && !currentKey.equals(fileKey)) {
+            // Lines written between our last read and the rename are still in the old file
+            while (readAvailable() > 0) {
+                // Drain
+            }
+            queueUnterminatedLine();
+            closeChannel();
+            rotations++;
+            System.out.println(
+                String.format(
+                    "[Tailer %s] Rotated: following the new file",
+                    path
+                )
+            );
+            return open(false);
+        }
+        
+        if (attributes.size() < channel.position()) {
+            channel.position(0);
+            buffer.clear(); // The partial line belonged to the old content
+            skippingLongLine = false;
+            truncations++;
+            System.out.println(
+                String.format(
+                    "[Tailer %s] Truncated: reading from offset 0",
+                    path
+                )
+            );
+            return true;
+        }
+        return false;
+    }
+    
+    /**
+     * The old file will not grow any more: its last line is complete without a newline.
+     */
+    private void queueUnterminatedLine() throws InterruptedException {
+        buffer.flip();
+        queueLine(buffer.position(), buffer.limit());
+        buffer.clear();
+    }
+    
+    private void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Read-only channel: nothing left to flush
+            }
+            channel = null;
+        }
+    }
+    
+    public void stopTailer() {
+        this.running = false;
+        this.interrupt();
+    }
+    
+    public long getLinesQueued() {
+        return linesQueued;
+    }
+    
+    /**
+     * Lines that did not match the LogLineParser format. Exact once the
+     * tailer has stopped; may lag while it runs (the parser is single-threaded).
+     */
+    public long getMalformedLines() {
+        return parser.getMalformed();
+    }
+    
+    public long getBytesRead() {
+        return bytesRead;
+    }
+    
+    public int getRotations() {
+        return rotations;
+    }
+    
+    public int getTruncations() {
+        return truncations;
+    }
+    
+    public int getOversizedLines() {
+        return oversizedLines;
+    }
+    
+    public String describe() {
+        return String.format(
+            "Lines queued: %d, malformed: %d, bytes read: %d, rotations: %d, truncations: %d, oversized lines skipped: %d",
+            linesQueued,
+            getMalformedLines(),
+            bytesRead,
+            rotations,
+            truncations,
+            oversizedLines
+        );
+    }
+}
@@ -0,0 +1,53 @@
+package com.logprocessing;
+
+/**
+ * STEP 17: Interned Log Levels
+ * 
+ * Closed set of levels, parsed once when a Log is created.
+ * 
+ * WHY THIS DESIGN:
+ * - recordProcessed() used to call toUpperCase() (an allocation) and switch
+ *   on strings for every log
+ * - An enum ordinal indexes straight into primitive counter arrays
+ */
+public enum LogLevel {
+    ERROR,
+    WARNING,
+    INFO,
+    UNKNOWN; // Anything else: counted in totals, not in a level
+    
+    // values() clones the array on every call - cache it
+    private static final LogLevel[] VALUES = values();
+    
+    public static final int COUNT = VALUES.length;
+    
+    /**
+     * Case-insensitive parse without allocating. null or unrecognized → UNKNOWN.
+     */
+    public static LogLevel parse(String level) {
+        if (level == null) {
+            return UNKNOWN;
+        }
+        if ("ERROR".equalsIgnoreCase(level)) {
+            return ERROR;
+        }
+        if ("WARNING".equalsIgnoreCase(level) || "WARN".equalsIgnoreCase(level)) {
+            return WARNING;
+        }
+        if ("INFO".equalsIgnoreCase(level)) {
+            return INFO;
+        }
+        return UNKNOWN;
+    }
+    
+    public static LogLevel fromOrdinal(int ordinal) {
+        return VALUES[ordinal];
+    }
+    
+    /**
+     * Declaration order is severity order: ERROR is the most severe.
+     */
+    public boolean isMoreSevereThan(LogLevel other) {
+        return ordinal() < other.ordinal();
+    }
+}
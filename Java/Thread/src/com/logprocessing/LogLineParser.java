@@ -0,0 +1,505 @@
+package com.logprocessing;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * STEP 29: Zero-Copy Log Line Parser
+ * 
+ * Turns one raw log line into a Log, reading the fields in place from a
+ * ByteBuffer (bytes straight from a FileChannel) or any CharSequence.
+ * 
+ * <pre>
+ * 2026-10-15T09:30:00.123Z ERROR [payment-service] Connection refused
+ * 2026-10-15T11:30:00+02:00 [WARN] api-gateway Slow response: 950ms
+ * 1760520600123 INFO worker-7 Batch done
+ * </pre>
+ * 
+ * Format: timestamp, level, source, message, separated by spaces or tabs.
+ * The timestamp is ISO-8601 (UTC when no offset is given) or epoch
+ * milliseconds. Level and source may be in [brackets]; a bracketed source
+ * may contain spaces. The message is the rest of the line.
+ * 
+ * KEY CONCEPTS:
+ * - Index scanning: fields are located as (start, end) offsets into the
+ *   line; no split(), no substring per field, no regex
+ * - Arithmetic timestamps: digits are folded into epoch millis directly,
+ *   without a java.time object per line
+ * - Interned tokens: level names are constants and sources come from a
+ *   small cache compared in place, so a repeated source costs no String
+ * - The message is the only copy made: Log needs it as a String
+ * 
+ * WHY THIS DESIGN:
+ * - A tailer feeding the pipeline parses every line of every file; at
+ *   100k lines/s, five throwaway Strings per line are the bulk of the garbage
+ * 
+ * THREAD SAFETY:
+ * Not thread-safe: it reuses scratch state between lines. Use one parser
+ * per reading thread.
+ */
+public class LogLineParser {
+    
+    private static final int TOKEN_CACHE_SIZE = 256; // Power of two
+    
+    private final String idPrefix;
+    private final String[] sourceCache = new String[TOKEN_CACHE_SIZE];
+    private final String[] levelCache = new String[TOKEN_CACHE_SIZE]; // Unrecognized levels (DEBUG, TRACE, ...)
+    private final ByteView byteView = new ByteView();
+    private final ByteView messageView = new ByteView(); // parseInto(): ASCII message copied straight from the bytes
+    private byte[] scratch = new byte[256]; // Direct buffers: message bytes are copied here to decode
+    
+    private long parsed = 0;
+    private long malformed = 0;
+    
+    // Fields of the current line, set by scan()
+    private CharSequence text;
+    private ByteBuffer bytes; // Non-null when parsing a ByteBuffer: Strings are decoded as UTF-8
+    private long timestamp;
+    private int levelStart;
+    private int levelEnd;
+    private int sourceStart;
+    private int sourceEnd;
+    private int messageStart;
+    private int lineEnd;
+    
+    // Result of field(): token bounds without brackets, and where scanning continues
+    private int fieldStart;
+    private int fieldEnd;
+    private int fieldNext;
+    
+    /**
+     * @param idPrefix log ids are idPrefix + line number, e.g. "app.log:" → "app.log:42"
+     */
+    public LogLineParser(String idPrefix) {
+        this.idPrefix = idPrefix;
+    }
+    
+    /**
+     * Parses bytes [start, end) of buffer (absolute indexes; the buffer's
+     * position and limit are not changed). A trailing '\r' is ignored.
+     * 
+     * @return the log, or null if the line does not match the format
+     */
+    public Log parse(ByteBuffer buffer, int start, int end) {
+        byteView.wrap(buffer, start, end - start);
+        bytes = buffer;
+        try {
+            return parseCurrent(byteView);
+        } finally {
+            bytes = null;
+            byteView.wrap(null, 0, 0); // Do not keep the caller's buffer reachable
+        }
+    }
+    
+    /**
+     * Parses bytes [start, end) straight into the next row of batch, which
+     * must not be full. No Log is created, and an ASCII message is copied
+     * from the bytes into the batch without becoming a String.
+     * 
+     * @return false if the line does not match the format (batch unchanged)
+     */
+    public boolean parseInto(ByteBuffer buffer, int start, int end, LogBatch batch) {
+        byteView.wrap(buffer, start, end - start);
+        bytes = buffer;
+        text = byteView;
+        try {
+            if (!scan()) {
+                malformed++;
+                return false;
+            }
+            parsed++;
+            CharSequence message;
+            if (isAscii(messageStart, lineEnd)) {
+                messageView.wrap(buffer, start + messageStart, lineEnd - messageStart);
+                message = messageView;
+            } else {
+                message = slice(messageStart, lineEnd);
+            }
+            String source = intern(sourceCache, sourceStart, sourceEnd);
+            return batch.add(
+                timestamp,
+                parsed,
+                LogLevel.parse(levelName()),
+                SourceRegistry.global().idOf(source),
+                source,
+                message
+            );
+        } finally {
+            text = null;
+            bytes = null;
+            byteView.wrap(null, 0, 0);
+            messageView.wrap(null, 0, 0);
+        }
+    }
+    
+    /**
+     * Parses one line (without its line terminator).
+     * 
+     * @return the log, or null if the line does not match the format
+     */
+    public Log parse(CharSequence line) {
+        return parseCurrent(line);
+    }
+    
+    private Log parseCurrent(CharSequence line) {
+        text = line;
+        try {
+            if (!scan()) {
+                malformed++;
+                return null;
+            }
+            parsed++;
+            return new Log(
+                idPrefix + parsed,
+                messageStart < lineEnd ? slice(messageStart, lineEnd) : "",
+                levelName(),
+                intern(sourceCache, sourceStart, sourceEnd),
+                timestamp
+            );
+        } finally {
+            text = null;
+        }
+    }
+    
+    /**
+     * Locates the fields of text. Returns false on any format violation.
+     */
+    private boolean scan() {
+        int end = text.length();
+        if (end > 0 && text.charAt(end - 1) == '\r') {
+            end--;
+        }
+        lineEnd = end;
+        
+        int pos = skipBlanks(0);
+        int timestampEnd = tokenEnd(pos);
+        if (timestampEnd == pos || !parseTimestamp(pos, timestampEnd)) {
+            return false;
+        }
+        
+        pos = skipBlanks(timestampEnd);
+        if (!field(pos)) {
+            return false;
+        }
+        levelStart = fieldStart;
+        levelEnd = fieldEnd;
+        
+        pos = skipBlanks(fieldNext);
+        if (!field(pos)) {
+            return false;
+        }
+        sourceStart = fieldStart;
+        sourceEnd = fieldEnd;
+        
+        messageStart = skipBlanks(fieldNext);
+        return true;
+    }
+    
+    /**
+     * A bare token, or "[...]" up to the closing bracket (spaces allowed).
+     */
+    private boolean field(int pos) {
+        if (pos >= lineEnd) {
+            return false;
+        }
+        if (text.charAt(pos) == '[') {
+            int close = pos + 1;
+            while (close < lineEnd && text.charAt(close) != ']') {
+                close++;
+            }
+            if (close == lineEnd || close == pos + 1) {
+                return false; // Unclosed or empty brackets
+            }
+            fieldStart = pos + 1;
+            fieldEnd = close;
+            fieldNext = close + 1;
+            return true;
+        }
+        fieldStart = pos;
+        fieldEnd = tokenEnd(pos);
+        fieldNext = fieldEnd;
+        return true;
+    }
+    
+    private int skipBlanks(int pos) {
+        while (pos < lineEnd && isBlank(text.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+    
+    private int tokenEnd(int pos) {
+        while (pos < lineEnd && !isBlank(text.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+    
+    private static boolean isBlank(char c) {
+        return c == ' ' || c == '\t';
+    }
+    
+    /**
+     * Epoch millis (all digits) or ISO-8601: yyyy-MM-ddTHH:mm:ss[.fraction][Z|±HH:mm|±HHmm].
+     */
+    private boolean parseTimestamp(int start, int end) {
+        if (isDigits(start, end)) {
+            if (end - start > 18) {
+                return false; // Would overflow a long
+            }
+            timestamp = number(start, end);
+            return true;
+        }
+        // Fixed part: yyyy-MM-ddTHH:mm:ss (19 chars)
+        if (end - start < 19
+                || text.charAt(start + 4) != '-' || text.charAt(start + 7) != '-'
+                || (text.charAt(start + 10) != 'T' && text.charAt(start + 10) != 't')
+                || text.charAt(start + 13) != ':' || text.charAt(start + 16) != ':'
+                || !isDigits(start, start + 4) || !isDigits(start + 5, start + 7)
+                || !isDigits(start + 8, start + 10) || !isDigits(start + 11, start + 13)
+                || !isDigits(start + 14, start + 16) || !isDigits(start + 17, start + 19)) {
+            return false;
+        }
+        int year = (int) number(start, start + 4);
+        int month = (int) number(start + 5, start + 7);
+        int day = (int) number(start + 8, start + 10);
+        int hour = (int) number(start + 11, start + 13);
+        int minute = (int) number(start + 14, start + 16);
+        int second = (int) number(start + 17, start + 19);
+        if (month < 1 || month > 12 || day < 1 || day > 31 || hour > 23 || minute > 59 || second > 60) {
+            return false;
+        }
+        
+        int pos = start + 19;
+        long millis = 0;
+        if (pos < end && (text.charAt(pos) == '.' || text.charAt(pos) == ',')) {
+            int fractionStart = ++pos;
+            while (pos < end && isDigit(text.charAt(pos))) {
+                pos++;
+            }
+            if (pos == fractionStart) {
+                return false;
+            }
+            // Milliseconds: first three digits, padded ("5" → 500)
+            for (int i = 0; i < 3; i++) {
+                millis = millis * 10 + (fractionStart + i < pos ? text.charAt(fractionStart + i) - '0' : 0);
+            }
+        }
+        
+        long offsetMinutes = 0;
+        if (pos < end) {
+            char zone = text.charAt(pos);
+            if ((zone == 'Z' || zone == 'z') && pos + 1 == end) {
+                pos = end;
+            } else if (zone == '+' || zone == '-') {
+                int zoneLength = end - pos - 1;
+                boolean colon = zoneLength == 5 && text.charAt(pos + 3) == ':';
+                if (!(zoneLength == 4 || colon) || !isDigits(pos + 1, pos + 3)
+                        || !isDigits(end - 2, end)) {
+                    return false;
+                }
+                offsetMinutes = number(pos + 1, pos + 3) * 60 + number(end - 2, end);
+                if (zone == '-') {
+                    offsetMinutes = -offsetMinutes;
+                }
+                pos = end;
+            }
+        }
+        if (pos != end) {
+            return false;
+        }
+        
+        long days = daysFromCivil(year, month, day);
+        long seconds = days * 86400 + hour * 3600L + minute * 60L + second - offsetMinutes * 60;
+        timestamp = seconds * 1000 + millis;
+        return true;
+    }
+    
+    /**
+     * Days since 1970-01-01 for a proleptic Gregorian date
+     * (Howard Hinnant's days_from_civil).
+     */
+    private static long daysFromCivil(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = (y >= 0 ? y : y - 399) / 400;
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+    
+    private boolean isAscii(int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private boolean isDigits(int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!isDigit(text.charAt(i))) {
+                return false;
+            }
+        }
+        return end > start;
+    }
+    
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+    
+    private long number(int start, int end) {
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            value = value * 10 + (text.charAt(i) - '0');
+        }
+        return value;
+    }
+    
+    /**
+     * Known levels map to LogLevel names (no allocation); others are interned as found.
+     */
+    private String levelName() {
+        if (matches(levelStart, levelEnd, "ERROR")) {
+            return LogLevel.ERROR.name();
+        }
+        if (matches(levelStart, levelEnd, "WARN") || matches(levelStart, levelEnd, "WARNING")) {
+            return LogLevel.WARNING.name();
+        }
+        if (matches(levelStart, levelEnd, "INFO")) {
+            return LogLevel.INFO.name();
+        }
+        return intern(levelCache, levelStart, levelEnd); // LogLevel.parse() → UNKNOWN
+    }
+    
+    private boolean matches(int start, int end, String upperCase) {
+        if (end - start != upperCase.length()) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (Character.toUpperCase(text.charAt(i)) != upperCase.charAt(i - start)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Returns the cached String equal to text[start, end), creating (and
+     * caching) it on a miss. A hash collision replaces the slot.
+     */
+    private String intern(String[] cache, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + text.charAt(i);
+        }
+        int slot = (hash ^ (hash >>> 16)) & (TOKEN_CACHE_SIZE - 1);
+        String cached = cache[slot];
+        if (cached != null && equalsRange(cached, start, end)) {
+            return cached;
+        }
+        String token = slice(start, end);
+        cache[slot] = token;
+        return token;
+    }
+    
+    /**
+     * Compares chars in place. For bytes, a non-ASCII token never matches
+     * (its decoded String is shorter than its bytes), so it is decoded again
+     * rather than mistaken for another token.
+     */
+    private boolean equalsRange(String cached, int start, int end) {
+        if (cached.length() != end - start) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (cached.charAt(i - start) != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * text[start, end) as a String: decoded as UTF-8 from the buffer, or copied from the CharSequence.
+     */
+    private String slice(int start, int end) {
+        if (bytes == null) {
+            return text.subSequence(start, end).toString();
+        }
+        int offset = byteView.offset + start;
+        int length = end - start;
+        if (bytes.hasArray()) {
+            return new String(bytes.array(), bytes.arrayOffset() + offset, length, StandardCharsets.UTF_8);
+        }
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        for (int i = 0; i < length; i++) {
+            scratch[i] = bytes.get(offset + i);
+        }
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+    
+    /** Lines turned into logs */
+    public long getParsed() {
+        return parsed;
+    }
+    
+    /** Lines rejected (wrong format, e.g. stack trace continuation lines) */
+    public long getMalformed() {
+        return malformed;
+    }
+    
+    /**
+     * Bytes [offset, offset + length) of a buffer seen as chars, one byte per
+     * char. Only the structural fields and ASCII messages are read this way;
+     * other Strings are decoded from the bytes by slice().
+     */
+    private static final class ByteView implements CharSequence {
+        private ByteBuffer buffer;
+        private int offset;
+        private int length;
+        
+        void wrap(ByteBuffer buffer, int offset, int length) {
+            this.buffer = buffer;
+            this.offset = offset;
+            this.length = length;
+        }
+        
+        @Override
+        public int length() {
+            return length;
+        }
+        
+        @Override
+        public char charAt(int index) {
+            return (char) (buffer.get(offset + index) & 0xFF);
+        }
+        
+        /**
+         * A new view over the same bytes (no copy). It shares the buffer, so
+         * it is only valid until this view is re-wrapped.
+         */
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (start < 0 || end > length || start > end) {
+                throw new IndexOutOfBoundsException("[" + start + ", " + end + ") of " + length);
+            }
+            ByteView view = new ByteView();
+            view.wrap(buffer, offset + start, end - start);
+            return view;
+        }
+        
+        @Override
+        public String toString() {
+            char[] chars = new char[length];
+            for (int i = 0; i < length; i++) {
+                chars[i] = charAt(i);
+            }
+            return new String(chars);
+        }
+    }
+}
@@ -1,16 +1,20 @@
 package com.logprocessing;
 
+import com.diagnostics.DiagnosticSink;
+import com.diagnostics.DiagnosticSink.Level;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Future;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 import java.util.List;
-import java.util.ArrayList;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongConsumer;
 
 /**
  * STEP 8: Performance-Optimized Log Processing Service
@@ -41,30 +45,101 @@ import java.util.concurrent.atomic.LongAdder;
  */
 public class LogProcessingService {
     
+    // Worker loop diagnostics: async and level-gated, workers never wait on System.out
+    private static final DiagnosticSink DIAGNOSTICS = DiagnosticSink.get();
+    
+    /**
+     * How worker tasks pull logs from the queue.
+     */
+    public enum WorkerMode {
+        /** One takeLog() per log: lock, notifyAll() and wake-up paid per log */
+        PER_LOG,
+        /** takeBatch(): lock, notifyAll() and wake-up paid once per batch */
+        BATCH,
+        /** One dispatcher thread, one virtual thread per log, Semaphore caps concurrency */
+        VIRTUAL_THREAD,
+        /** Whole LogBatches from a LogBatchQueue: one metrics/alert update per batch */
+        COLUMNAR,
+        /** StagedPipeline: a sized thread pool per stage, bounded queues between stages */
+        STAGED,
+        /** PartitionedPipeline: logs routed by source to one owner thread with its own metrics and alert window */
+        PARTITIONED
+    }
+    
     private final ThreadPoolExecutor executorService;
-    private final LogQueue logQueue;
+    private final BlockingLogQueue logQueue;
+    private final LogBatchQueue batchQueue; // COLUMNAR mode only
     private final ProcessingMetrics metrics;
     private final AlertEvaluationService alertService;
     
     private volatile boolean running = true;
-    private final CountDownLatch shutdownLatch;
     private final int poolSize;
+    private final WorkerMode workerMode;
+    private final int workerCount; // Long-running worker tasks on the platform pool at start
+    
+    // Live worker tracking: replaces a fixed CountDownLatch now that the pool can resize
+    private final AtomicInteger liveWorkers = new AtomicInteger(0);
+    private final AtomicInteger nextWorkerId = new AtomicInteger(0);
+    private final Object workerExitLock = new Object();
+    
+    // Autoscaling: surplus workers claim a retirement token between logs and exit
+    private static final ThreadMXBean THREAD_MX = ManagementFactory.getThreadMXBean();
+    private static final long AUTOSCALE_INTERVAL_MS = 2000;
+    private volatile PoolAutoscaler autoscaler;
+    private volatile int workerTarget;
+    private final AtomicInteger pendingRetirements = new AtomicInteger(0);
+    private final LongAdder processingCpuNanos = new LongAdder();
     
-    private final List<Log> logBatch = new ArrayList<>();
-    private static final int BATCH_SIZE = 10;
-    private final Object batchLock = new Object();
+    // BATCH mode: drain up to this many logs per queue operation
+    private static final int BATCH_DRAIN_MAX = 32;
+    private static final long BATCH_DRAIN_TIMEOUT_MS = 100;
+    
+    // VIRTUAL_THREAD mode: per-log virtual threads, poolSize permits in flight
+    private final ExecutorService virtualExecutor;
+    private final Semaphore inFlightPermits;
+    private final AtomicInteger peakInFlight = new AtomicInteger(0);
+    
+    // STAGED mode: threads per ProcessingStage, bounded hand-off queues between stages
+    private static final int STAGE_QUEUE_CAPACITY = 64;
+    private final int[] stageThreads;
+    private volatile StagedPipeline stagedPipeline;
+    
+    // PARTITIONED mode: one owner thread per partition, each with a bounded inbox
+    private static final int PARTITION_INBOX_CAPACITY = 64;
+    private int partitionCount;
+    private volatile PartitionedPipeline partitionedPipeline;
+    
+    // Optional group-commit sink: workers parse and validate, the sink batches DB and network writes
+    private static final ProcessingStage[] ALL_STAGES = ProcessingStage.inOrder();
+    private static final ProcessingStage[] WORKER_STAGES = {ProcessingStage.PARSE, ProcessingStage.VALIDATION};
+    private volatile GroupCommitSink sink;
+    
+    // Optional fingerprint dedup: repeats are counted per window, each window evaluated once
+    private volatile LogDeduplicator deduplicator;
+    private volatile long dedupWindowMillis;
+    private volatile Thread dedupFlusher;
+    
+    // Alert thresholds apply to the most recent ALERT_WINDOW_SIZE logs
+    private static final int ALERT_WINDOW_SIZE = 10;
+    private final StreamingAlertEvaluator streamingEvaluator;
     
     // Performance monitoring
     private final LongAdder tasksSubmitted = new LongAdder();
     private final LongAdder tasksCompleted = new LongAdder();
-    private final AtomicLong totalWaitTime = new AtomicLong(0);
-    private final AtomicLong totalProcessingTime = new AtomicLong(0);
+    private final LongAdder ingestedLogs = new LongAdder(); // Bulk ingestion, not processed by workers
+    // nanoTime-based: sub-millisecond waits would round to 0 with currentTimeMillis()
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final LongAdder processingNanos = new LongAdder();
+    private final StageTimers stageTimers = new StageTimers();
     private final AtomicInteger maxQueueSize = new AtomicInteger(0);
     
     // Thread utilization tracking
     private final AtomicInteger peakActiveThreads = new AtomicInteger(0);
     private final AtomicInteger peakQueueSize = new AtomicInteger(0);
     
+    // Load testing: told each processed log's timestamp (its intended send time)
+    private volatile LongConsumer completionListener;
+    
     /**
      * Creates a log processing service with optimal thread pool sizing.
      * 
@@ -74,19 +149,68 @@ public class LogProcessingService {
      * - Can be tuned based on actual wait/compute ratio
      * - Use LinkedBlockingQueue for fair task distribution
      */
-    public LogProcessingService(int poolSize, LogQueue logQueue) {
+    public LogProcessingService(int poolSize, BlockingLogQueue logQueue) {
+        this(poolSize, logQueue, WorkerMode.PER_LOG);
+    }
+    
+    public LogProcessingService(int poolSize, BlockingLogQueue logQueue, WorkerMode workerMode) {
+        this(poolSize, logQueue, null, workerMode);
+        if (workerMode == WorkerMode.COLUMNAR) {
+            throw new IllegalArgumentException("COLUMNAR mode consumes a LogBatchQueue, not a BlockingLogQueue");
+        }
+    }
+    
+    /**
+     * Columnar service: workers take whole LogBatches.
+     */
+    public LogProcessingService(int poolSize, LogBatchQueue batchQueue) {
+        this(poolSize, null, batchQueue, WorkerMode.COLUMNAR);
+    }
+    
+    private LogProcessingService(int poolSize, BlockingLogQueue logQueue, LogBatchQueue batchQueue,
+                                 WorkerMode workerMode) {
         this.poolSize = poolSize;
+        this.workerMode = workerMode;
         this.logQueue = logQueue;
+        this.batchQueue = batchQueue;
         this.metrics = new ProcessingMetrics();
         this.alertService = new AlertEvaluationService(metrics);
-        this.shutdownLatch = new CountDownLatch(poolSize);
+        this.streamingEvaluator = new StreamingAlertEvaluator(alertService, ALERT_WINDOW_SIZE);
+        this.streamingEvaluator.onAlert(result ->
+            System.out.println(
+                String.format(
+                    "\n🚨 ALERT TRIGGERED: %s\n",
+                    result
+                )
+            )
+        );
+        
+        // VIRTUAL_THREAD: poolSize is the concurrency limit, a single platform
+        // thread dispatches logs onto virtual threads
+        if (workerMode == WorkerMode.VIRTUAL_THREAD) {
+            this.workerCount = 1;
+            this.virtualExecutor = VirtualThreads.newPerTaskExecutor("log-vthread-");
+            this.inFlightPermits = new Semaphore(poolSize);
+        } else if (workerMode == WorkerMode.STAGED || workerMode == WorkerMode.PARTITIONED) {
+            // The stage pools (or partition owners) replace the worker pool: poolSize is shared between them
+            this.workerCount = 0;
+            this.virtualExecutor = null;
+            this.inFlightPermits = null;
+        } else {
+            this.workerCount = poolSize;
+            this.virtualExecutor = null;
+            this.inFlightPermits = null;
+        }
+        this.workerTarget = workerCount;
+        this.stageThreads = StagedPipeline.proportionalThreads(poolSize);
+        this.partitionCount = poolSize;
         
         // Create ThreadPoolExecutor with monitoring capabilities
         // LinkedBlockingQueue: Fair FIFO ordering (prevents starvation)
         // RejectedExecutionHandler: Log rejected tasks
         this.executorService = new ThreadPoolExecutor(
-            poolSize,                    // Core pool size
-            poolSize,                    // Maximum pool size
+            workerCount,                 // Core pool size
+            Math.max(1, workerCount),    // Maximum pool size (STAGED: unused, must be > 0)
             60L,                         // Keep-alive time
             TimeUnit.SECONDS,
             new LinkedBlockingQueue<>(), // Fair task queue
@@ -96,10 +220,19 @@ public class LogProcessingService {
         System.out.println(
             String.format(
                 "[LogProcessingService] Created thread pool: core=%d, max=%d, queue=LinkedBlockingQueue",
-                poolSize,
-                poolSize
+                workerCount,
+                workerCount
             )
         );
+        if (virtualExecutor != null) {
+            System.out.println(
+                String.format(
+                    "[LogProcessingService] Virtual thread mode: max %d logs in flight (virtual threads %s)",
+                    poolSize,
+                    VirtualThreads.isSupported() ? "enabled" : "unavailable, using platform threads"
+                )
+            );
+        }
         System.out.println(
             String.format(
                 "[LogProcessingService] CPU cores available: %d",
@@ -150,6 +283,33 @@ public class LogProcessingService {
                         maxQueueSize.set(queueSize);
                     }
                     
+                    StagedPipeline pipeline = stagedPipeline;
+                    if (pipeline != null) {
+                        // The worker pool is unused in STAGED mode: report the stage queues instead
+                        System.out.println(
+                            String.format(
+                                "\n[Performance Monitor] Stage queues: %s | Completed: %d",
+                                pipeline.describeDepths(),
+                                tasksCompleted.sum()
+                            )
+                        );
+                        System.out.println("[Performance Monitor] Stage p99 (last 1m): " + stageTimers.describeRecentP99());
+                        continue;
+                    }
+                    PartitionedPipeline partitioned = partitionedPipeline;
+                    if (partitioned != null) {
+                        // Owners are not pool workers either: report the partition inboxes
+                        System.out.println(
+                            String.format(
+                                "\n[Performance Monitor] Partition inboxes: %s | Input queue: %d | Completed: %d",
+                                partitioned.describeDepths(),
+                                logQueue.size(),
+                                tasksCompleted.sum()
+                            )
+                        );
+                        continue;
+                    }
+                    
                     double utilization = poolSize > 0 ? (double) activeThreads / poolSize * 100 : 0;
                     
                     System.out.println(
@@ -163,6 +323,46 @@ public class LogProcessingService {
                         )
                     );
                     
+                    if (virtualExecutor != null) {
+                        int maxInFlight = LogProcessingService.this.poolSize;
+                        System.out.println(
+                            String.format(
+                                "[Performance Monitor] Virtual threads in flight: %d/%d | Log queue: %d",
+                                maxInFlight - inFlightPermits.availablePermits(),
+                                maxInFlight,
+                                logQueue.size()
+                            )
+                        );
+                    }
+                    
+                    if (tasksCompleted.sum() > 0) {
+                        System.out.println("[Performance Monitor] Stage p99 (last 1m): " + stageTimers.describeRecentP99());
+                    }
+                    
+                    GroupCommitSink groupSink = sink;
+                    if (groupSink != null) {
+                        System.out.println("[Performance Monitor] Group commit: " + groupSink);
+                    }
+                    
+                    LogDeduplicator dedup = deduplicator;
+                    if (dedup != null) {
+                        System.out.println("[Performance Monitor] Dedup: " + dedup);
+                    }
+                    
+                    PoolAutoscaler scaler = autoscaler;
+                    if (scaler != null) {
+                        // The autoscaler acts on the sizing hints below - report it instead
+                        System.out.println(
+                            String.format(
+                                "[Performance Monitor] Workers: %d (target %d) | %s",
+                                liveWorkers.get(),
+                                workerTarget,
+                                scaler
+                            )
+                        );
+                        continue;
+                    }
+                    
                     // Starvation detection
                     if (queueSize > 0 && activeThreads < poolSize) {
                         System.out.println(
@@ -209,204 +409,728 @@ public class LogProcessingService {
     }
     
     public void start() {
-        System.out.println("[LogProcessingService] Starting worker tasks...");
+        System.out.println(
+            String.format(
+                "[LogProcessingService] Starting worker tasks (mode=%s)...",
+                workerMode
+            )
+        );
         
-        for (int i = 0; i < poolSize; i++) {
-            final int workerId = i + 1;
-            
-            // Submit task and track it for potential cancellation
-            Future<?> taskFuture = executorService.submit(() -> {
-                System.out.println(
-                    String.format(
-                        "[Worker Task %d] Started in thread: %s",
-                        workerId,
-                        Thread.currentThread().getName()
-                    )
-                );
+        if (workerMode == WorkerMode.STAGED) {
+            startStagedPipeline();
+        } else if (workerMode == WorkerMode.PARTITIONED) {
+            startPartitionedPipeline();
+        }
+        if (sink != null) {
+            sink.start();
+        }
+        
+        for (int i = 0; i < workerCount; i++) {
+            startWorker();
+        }
+        
+        System.out.println("[LogProcessingService] All worker tasks submitted to thread pool");
+        
+        if (autoscaler != null) {
+            startAutoscaler();
+        }
+        if (deduplicator != null) {
+            startDedupFlusher();
+        }
+    }
+    
+    private void startWorker() {
+        final int workerId = nextWorkerId.incrementAndGet();
+        liveWorkers.incrementAndGet();
+        
+        // Submit task and track it for potential cancellation
+        Future<?> taskFuture = executorService.submit(() -> runWorker(workerId));
+    }
+    
+    /**
+     * STAGED mode: overrides one stage's thread count (default: poolSize
+     * shared in proportion to stage time). Must be called before start().
+     */
+    public void setStageThreads(ProcessingStage stage, int threads) {
+        if (workerMode != WorkerMode.STAGED) {
+            throw new IllegalStateException("Stage threads only apply in STAGED mode");
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("Stage " + stage.getMetricName() + " needs at least 1 thread");
+        }
+        stageThreads[stage.ordinal()] = threads;
+    }
+    
+    private void startStagedPipeline() {
+        stagedPipeline = new StagedPipeline(
+            logQueue,
+            stageThreads,
+            STAGE_QUEUE_CAPACITY,
+            stageTimers,
+            new StagedPipeline.Listener() {
+                @Override
+                public void onAccepted(Log log) {
+                    tasksSubmitted.increment();
+                }
                 
+                @Override
+                public void onCompleted(Log log, long pipelineNanos, long busyNanos) {
+                    processingNanos.add(busyNanos);
+                    // Processing time here includes the hand-offs between stages
+                    recordCompleted(log, pipelineNanos);
+                }
+            }
+        );
+        stagedPipeline.start();
+    }
+    
+    /**
+     * PARTITIONED mode: overrides the number of partitions, i.e. owner
+     * threads (default: poolSize). Must be called before start().
+     */
+    public void setPartitions(int partitions) {
+        if (workerMode != WorkerMode.PARTITIONED) {
+            throw new IllegalStateException("Partitions only apply in PARTITIONED mode");
+        }
+        if (partitions < 1) {
+            throw new IllegalArgumentException("Need at least 1 partition: " + partitions);
+        }
+        this.partitionCount = partitions;
+    }
+    
+    private void startPartitionedPipeline() {
+        partitionedPipeline = new PartitionedPipeline(
+            logQueue,
+            partitionCount,
+            PARTITION_INBOX_CAPACITY,
+            alertService,
+            ALERT_WINDOW_SIZE,
+            deduplicator == null, // With dedup, alerts come from the aggregated records only
+            stageTimers,
+            new PartitionedPipeline.Listener() {
+                @Override
+                public void onAccepted(Log log) {
+                    tasksSubmitted.increment();
+                }
+                
+                @Override
+                public void onCompleted(Log log, int partition, long busyNanos) {
+                    // Metrics and alert window were updated by the partition itself
+                    processingNanos.add(busyNanos);
+                    recordCompletion(log);
+                }
+            }
+        );
+        partitionedPipeline.onAlert((partition, result) ->
+            System.out.println(
+                String.format(
+                    "\n🚨 ALERT TRIGGERED (partition %d): %s\n",
+                    partition,
+                    result
+                )
+            )
+        );
+        partitionedPipeline.start();
+    }
+    
+    /**
+     * Sends DB and network writes through a GroupCommitSink: workers run the
+     * parse and validation stages, hand the log to the sink and take the next
+     * one; the sink writes batches of up to maxBatch rows. Logs count as
+     * completed once their batch is written. Must be called before start().
+     * 
+     * Not available in COLUMNAR mode, which records whole batches itself, in
+     * STAGED mode, which already gives the I/O stages their own threads, or in
+     * PARTITIONED mode, whose per-source order parallel writers would break.
+     */
+    public void useGroupCommitSink(int maxBatch, long lingerMillis, int writerThreads) {
+        if (workerMode == WorkerMode.COLUMNAR || workerMode == WorkerMode.STAGED
+                || workerMode == WorkerMode.PARTITIONED) {
+            throw new IllegalArgumentException("Group commit applies to per-log workers, not " + workerMode + " mode");
+        }
+        this.sink = new GroupCommitSink(
+            maxBatch,
+            lingerMillis,
+            writerThreads,
+            Math.max(maxBatch, poolSize) * writerThreads * 2, // Room for every writer's next batch
+            stageTimers,
+            (logs, startNanos) -> {
+                long now = System.nanoTime();
+                for (int i = 0; i < logs.size(); i++) {
+                    recordCompleted(logs.get(i), now - startNanos[i]);
+                }
+            }
+        );
+    }
+    
+    /**
+     * Counts completed logs in a LogDeduplicator and evaluates the alert
+     * rules once per window on the aggregated records (one per repeated
+     * message) instead of on every log. The per-log streaming alert windows
+     * are bypassed, so a burst alerts once. Must be called before start().
+     */
+    public void enableDeduplication(long windowMillis, int maxFingerprints) {
+        if (windowMillis < 1) {
+            throw new IllegalArgumentException("Dedup window must be positive: " + windowMillis);
+        }
+        this.dedupWindowMillis = windowMillis;
+        this.deduplicator = new LogDeduplicator(maxFingerprints);
+    }
+    
+    private void startDedupFlusher() {
+        Thread flusher = new Thread(() -> {
+            while (running && !Thread.currentThread().isInterrupted()) {
                 try {
-                    // Main processing loop
-                    while (running && !Thread.currentThread().isInterrupted()) {
-                        try {
-                            // Measure wait time (time spent waiting for logs)
-                            long waitStart = System.currentTimeMillis();
-                            // takeLog() can throw InterruptedException
-                            // This is the proper way to handle blocking operations
-                            Log log = logQueue.takeLog();
-                            long waitTime = System.currentTimeMillis() - waitStart;
-                            totalWaitTime.addAndGet(waitTime);
-                            
-                            // Check interrupt status again (might have been interrupted during wait)
-                            if (Thread.currentThread().isInterrupted()) {
-                                System.out.println(
-                                    String.format(
-                                        "[Worker Task %d] Interrupted after taking log, stopping...",
-                                        workerId
-                                    )
-                                );
-                                break;
-                            }
-                            
-                            if (log != null) {
-                                if (!running) {
-                                    break;
-                                }
-                                
-                                tasksSubmitted.increment();
-                                
-                                long startTime = System.currentTimeMillis();
-                                
-                                // Process log (this method checks for interruption)
-                                processLog(log, workerId);
-                                
-                                // Check if we were interrupted during processing
-                                if (Thread.currentThread().isInterrupted()) {
-                                    System.out.println(
-                                        String.format(
-                                            "[Worker Task %d] Interrupted during processing, stopping...",
-                                            workerId
-                                        )
-                                    );
-                                    break;
-                                }
-                                
-                                long processingTime = System.currentTimeMillis() - startTime;
-                                totalProcessingTime.addAndGet(processingTime);
-                                
-                                metrics.recordProcessed(
-                                    log.getLevel(),
-                                    log.getSource(),
-                                    processingTime
-                                );
-                                
-                                tasksCompleted.increment();
-                                addToBatch(log);
-                            }
-                        } catch (InterruptedException e) {
-                            // CRITICAL: InterruptedException means thread was interrupted
-                            // We must respond by stopping the loop
-                            System.out.println(
-                                String.format(
-                                    "[Worker Task %d] InterruptedException caught: %s",
-                                    workerId,
-                                    e.getMessage()
-                                )
-                            );
-                            
-                            // CRITICAL: Restore interrupt status
-                            // This preserves the interrupt signal for callers
-                            Thread.currentThread().interrupt();
-                            
-                            // Exit the loop
-                            break;
-                        }
-                    }
-                } finally {
-                    shutdownLatch.countDown();
-                    System.out.println(
-                        String.format(
-                            "[Worker Task %d] Stopped. Thread: %s | Remaining workers: %d",
-                            workerId,
-                            Thread.currentThread().getName(),
-                            shutdownLatch.getCount()
-                        )
-                    );
+                    Thread.sleep(dedupWindowMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
                 }
-            });
+                if (!running) break;
+                flushDedupWindow();
+            }
+        });
+        flusher.setName("DedupFlusher");
+        flusher.setDaemon(true);
+        flusher.start();
+        dedupFlusher = flusher;
+    }
+    
+    /**
+     * Closes the current dedup window and evaluates its records.
+     */
+    private void flushDedupWindow() {
+        List<LogDeduplicator.AggregatedLog> records = deduplicator.drain();
+        if (records.isEmpty()) {
+            return;
+        }
+        AlertEvaluationService.AlertResult result = alertService.evaluateAggregated(records);
+        if (result.shouldTriggerAlert()) {
+            System.out.println(
+                String.format(
+                    "[Dedup] Window of %d records: %s",
+                    records.size(),
+                    result
+                )
+            );
         }
-        
-        System.out.println("[LogProcessingService] All worker tasks submitted to thread pool");
     }
     
     /**
-     * Processes a log with simulated I/O-bound work.
+     * Lets the pool track load instead of staying at its initial size.
+     * Must be called before start(). Not available in VIRTUAL_THREAD mode,
+     * whose single dispatcher thread is not the concurrency limit, or in
+     * STAGED mode, whose stages are sized individually.
+     */
+    public void enableAutoscaling(PoolAutoscaler autoscaler) {
+        if (workerMode == WorkerMode.VIRTUAL_THREAD) {
+            throw new IllegalArgumentException("Autoscaling resizes platform workers; VIRTUAL_THREAD mode has one dispatcher");
+        }
+        if (workerMode == WorkerMode.STAGED) {
+            throw new IllegalArgumentException("Autoscaling resizes one worker pool; STAGED mode has a pool per stage");
+        }
+        if (workerMode == WorkerMode.PARTITIONED) {
+            throw new IllegalArgumentException("Autoscaling resizes one worker pool; PARTITIONED mode has an owner per partition");
+        }
+        this.autoscaler = autoscaler;
+        System.out.println(
+            String.format(
+                "[LogProcessingService] Autoscaling enabled: %d..%d workers, sampled every %d ms",
+                autoscaler.getMinSize(),
+                autoscaler.getMaxSize(),
+                AUTOSCALE_INTERVAL_MS
+            )
+        );
+    }
+    
+    /**
+     * Called on the worker thread with getTimestamp() of every log once it is
+     * processed. LoadGenerator uses it to measure end-to-end latency.
+     */
+    public void setCompletionListener(LongConsumer listener) {
+        this.completionListener = listener;
+    }
+    
+    /**
+     * Closed control loop: sample → PoolAutoscaler.update() → resizeWorkers().
+     */
+    private void startAutoscaler() {
+        Thread controller = new Thread(() -> {
+            while (running && !Thread.currentThread().isInterrupted()) {
+                try {
+                    Thread.sleep(AUTOSCALE_INTERVAL_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                if (!running) break;
+                
+                long cpuNanos = THREAD_MX.isCurrentThreadCpuTimeSupported() ? processingCpuNanos.sum() : -1;
+                int current = workerTarget;
+                int newSize = autoscaler.update(
+                    tasksCompleted.sum(),
+                    processingNanos.sum(),
+                    cpuNanos,
+                    queueDepth(),
+                    System.nanoTime(),
+                    current
+                );
+                if (newSize != current) {
+                    resizeWorkers(newSize);
+                }
+            }
+        });
+        controller.setName("PoolAutoscaler");
+        controller.setDaemon(true);
+        controller.start();
+    }
+    
+    private int queueDepth() {
+        return batchQueue != null ? batchQueue.size() : logQueue.size();
+    }
+    
+    /**
+     * Applies a new worker count at runtime (autoscaler thread only).
      * 
-     * I/O-BOUND CHARACTERISTICS:
-     * - Thread spends time waiting (I/O operations)
-     * - CPU is idle during waits
-     * - Can benefit from more threads than CPU cores
+     * GROW:   raise max before core (core may never exceed max), then submit workers
+     * SHRINK: hand out retirement tokens; a surplus worker takes one between logs
+     *         and returns, so no log is abandoned mid-processing. Core is lowered
+     *         before max, and the idle pool threads then time out.
      */
-    private void processLog(Log log, int workerId) throws InterruptedException {
-        // Simulate I/O-bound work:
-        // - Parsing (CPU) - 20ms
-        // - Database write (I/O wait) - 50ms
-        // - Network call (I/O wait) - 30ms
-        // - Validation (CPU) - 10ms
+    private void resizeWorkers(int newSize) {
+        int current = workerTarget;
+        if (!running || newSize == current) {
+            return;
+        }
+        if (newSize > current) {
+            executorService.setMaximumPoolSize(newSize);
+            executorService.setCorePoolSize(newSize);
+            int toAdd = newSize - current;
+            // Workers told to retire but still running can simply stay
+            while (toAdd > 0 && claimRetirement()) {
+                toAdd--;
+            }
+            for (int i = 0; i < toAdd; i++) {
+                startWorker();
+            }
+        } else {
+            pendingRetirements.addAndGet(current - newSize);
+            executorService.setCorePoolSize(newSize);
+            executorService.setMaximumPoolSize(newSize);
+        }
+        workerTarget = newSize;
+        System.out.println(
+            String.format(
+                "[PoolAutoscaler] Resized workers %d → %d | %s",
+                current,
+                newSize,
+                autoscaler
+            )
+        );
+    }
+    
+    private boolean claimRetirement() {
+        while (true) {
+            int pending = pendingRetirements.get();
+            if (pending <= 0) {
+                return false;
+            }
+            if (pendingRetirements.compareAndSet(pending, pending - 1)) {
+                return true;
+            }
+        }
+    }
+    
+    /**
+     * Checked by every worker loop before it takes more work.
+     */
+    private boolean shouldRetire(int workerId) {
+        if (!claimRetirement()) {
+            return false;
+        }
+        DIAGNOSTICS.log(Level.INFO, "[Worker Task %d] Retiring (pool shrinking)", workerId);
+        return true;
+    }
+    
+    private void runWorker(int workerId) {
+        DIAGNOSTICS.log(
+            Level.INFO,
+            "[Worker Task %d] Started in thread: %s",
+            workerId,
+            Thread.currentThread().getName()
+        );
         
         try {
-            // Parsing (CPU-bound)
-            Thread.sleep(20);
-            
-            if (Thread.currentThread().isInterrupted()) {
-                throw new InterruptedException("Processing interrupted");
+            if (workerMode == WorkerMode.BATCH) {
+                runBatchLoop(workerId);
+            } else if (workerMode == WorkerMode.VIRTUAL_THREAD) {
+                runVirtualDispatchLoop(workerId);
+            } else if (workerMode == WorkerMode.COLUMNAR) {
+                runColumnarLoop(workerId);
+            } else {
+                runPerLogLoop(workerId);
             }
+        } catch (InterruptedException e) {
+            // CRITICAL: InterruptedException means thread was interrupted
+            // We must respond by stopping the loop
+            DIAGNOSTICS.log(
+                Level.INFO,
+                "[Worker Task %d] InterruptedException caught: %s",
+                workerId,
+                e.getMessage()
+            );
             
-            // Database write (I/O-bound - thread waits)
-            Thread.sleep(50);
+            // CRITICAL: Restore interrupt status
+            // This preserves the interrupt signal for callers
+            Thread.currentThread().interrupt();
+        } finally {
+            int remaining = liveWorkers.decrementAndGet();
+            synchronized (workerExitLock) {
+                workerExitLock.notifyAll();
+            }
+            DIAGNOSTICS.log(
+                Level.INFO,
+                "[Worker Task %d] Stopped. Thread: %s | Remaining workers: %d",
+                workerId,
+                Thread.currentThread().getName(),
+                remaining
+            );
+        }
+    }
+    
+    /**
+     * Main processing loop: one takeLog() per log.
+     */
+    private void runPerLogLoop(int workerId) throws InterruptedException {
+        while (running && !Thread.currentThread().isInterrupted() && !shouldRetire(workerId)) {
+            // Measure wait time (time spent waiting for logs)
+            long waitStart = System.nanoTime();
+            // takeLog() can throw InterruptedException
+            // This is the proper way to handle blocking operations
+            Log log = logQueue.takeLog();
+            totalWaitNanos.add(System.nanoTime() - waitStart);
             
+            // Check interrupt status again (might have been interrupted during wait)
             if (Thread.currentThread().isInterrupted()) {
-                throw new InterruptedException("Processing interrupted");
+                DIAGNOSTICS.log(
+                    Level.INFO,
+                    "[Worker Task %d] Interrupted after taking log, stopping...",
+                    workerId
+                );
+                break;
             }
             
-            // Network call (I/O-bound - thread waits)
-            Thread.sleep(30);
+            if (log != null) {
+                if (!running) {
+                    break;
+                }
+                if (!processAndRecord(log, workerId)) {
+                    break;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Batch processing loop: one takeBatch() per up to BATCH_DRAIN_MAX logs.
+     * 
+     * WHY BATCHING:
+     * - Queue lock, notifyAll() and thread wake-up are paid once per batch
+     * - A timeout keeps the loop responsive to shutdown when logs are scarce
+     */
+    private void runBatchLoop(int workerId) throws InterruptedException {
+        while (running && !Thread.currentThread().isInterrupted() && !shouldRetire(workerId)) {
+            long waitStart = System.nanoTime();
+            List<Log> batch = logQueue.takeBatch(1, BATCH_DRAIN_MAX, BATCH_DRAIN_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            long waitTime = System.nanoTime() - waitStart;
             
-            if (Thread.currentThread().isInterrupted()) {
-                throw new InterruptedException("Processing interrupted");
+            if (batch.isEmpty()) {
+                continue; // Timed out - re-check running flag
             }
+            totalWaitNanos.add(waitTime);
             
-            // Validation (CPU-bound)
-            Thread.sleep(10);
+            for (int i = 0; i < batch.size(); i++) {
+                if (!running || Thread.currentThread().isInterrupted()) {
+                    DIAGNOSTICS.log(
+                        Level.INFO,
+                        "[Worker Task %d] Stopping with %d logs of the current batch unprocessed",
+                        workerId,
+                        batch.size() - i
+                    );
+                    return;
+                }
+                if (!processAndRecord(batch.get(i), workerId)) {
+                    return;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Columnar loop: one LogBatch per queue operation, recorded as a unit.
+     * 
+     * WHY COLUMNAR:
+     * - No Log object per row between producer and worker
+     * - Metrics publish one atomic add per level and one window update per batch
+     * - The alert window takes its lock once per batch
+     */
+    private void runColumnarLoop(int workerId) throws InterruptedException {
+        long[] processingTimes = new long[batchQueue.getBatchCapacity()];
+        
+        while (running && !Thread.currentThread().isInterrupted() && !shouldRetire(workerId)) {
+            long waitStart = System.nanoTime();
+            LogBatch batch = batchQueue.takeBatch(BATCH_DRAIN_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            if (batch == null) {
+                continue; // Timed out - re-check running flag
+            }
+            totalWaitNanos.add(System.nanoTime() - waitStart);
             
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw e;
+            if (processingTimes.length < batch.size()) {
+                processingTimes = new long[batch.size()];
+            }
+            
+            int processed = 0;
+            boolean stopped = false;
+            try {
+                while (processed < batch.size()) {
+                    if (!running || Thread.currentThread().isInterrupted()) {
+                        DIAGNOSTICS.log(
+                            Level.INFO,
+                            "[Worker Task %d] Stopping with %d rows of the current batch unprocessed",
+                            workerId,
+                            batch.size() - processed
+                        );
+                        stopped = true;
+                        break;
+                    }
+                    tasksSubmitted.increment();
+                    long startNanos = System.nanoTime();
+                    long startCpu = threadCpuNanos();
+                    processLog(workerId, ALL_STAGES);
+                    long elapsedNanos = recordServiceTime(startNanos, startCpu);
+                    processingTimes[processed++] = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+                }
+            } finally {
+                // Record exactly the rows that were processed, then hand the arrays back
+                batch.truncate(processed);
+                metrics.recordBatch(batch, processingTimes);
+                LogDeduplicator dedup = deduplicator;
+                if (dedup == null) {
+                    streamingEvaluator.record(batch);
+                } else {
+                    StringBuilder message = new StringBuilder(); // Reused: offer() copies only new fingerprints
+                    for (int i = 0; i < processed; i++) {
+                        message.setLength(0);
+                        dedup.offer(batch.getTimestamp(i), batch.getLevel(i), batch.getSourceId(i), batch.appendMessage(i, message));
+                    }
+                }
+                tasksCompleted.add(processed);
+                LongConsumer listener = completionListener;
+                if (listener != null) {
+                    for (int i = 0; i < processed; i++) {
+                        listener.accept(batch.getTimestamp(i));
+                    }
+                }
+                batchQueue.recycle(batch);
+            }
+            if (stopped) {
+                return;
+            }
         }
     }
     
-    private void addToBatch(Log log) {
-        synchronized (batchLock) {
-            logBatch.add(log);
+    /**
+     * Virtual thread dispatch loop: takes logs and hands each to its own virtual thread.
+     * 
+     * WHY VIRTUAL THREADS:
+     * - processLog() is ~110ms of simulated I/O and almost no CPU
+     * - A blocked virtual thread unmounts from its carrier, so thousands can wait at once
+     * - Throughput scales with outstanding I/O, not with the platform thread count
+     * 
+     * The Semaphore is acquired BEFORE taking a log, so when poolSize logs are
+     * in flight the dispatcher stops draining the queue and producers feel
+     * backpressure exactly as they do with a fixed pool.
+     */
+    private void runVirtualDispatchLoop(int workerId) throws InterruptedException {
+        while (running && !Thread.currentThread().isInterrupted()) {
+            inFlightPermits.acquire();
             
-            if (logBatch.size() >= BATCH_SIZE) {
-                List<Log> batchToEvaluate = new ArrayList<>(logBatch);
-                logBatch.clear();
-                
-                Future<AlertEvaluationService.AlertResult> future = 
-                    alertService.evaluateLogsAsync(batchToEvaluate, "AUTO-" + System.currentTimeMillis());
-                
-                new Thread(() -> {
+            Log log;
+            try {
+                long waitStart = System.nanoTime();
+                log = logQueue.takeLog();
+                totalWaitNanos.add(System.nanoTime() - waitStart);
+            } catch (InterruptedException e) {
+                inFlightPermits.release();
+                throw e;
+            }
+            
+            if (!running) {
+                inFlightPermits.release();
+                break;
+            }
+            
+            int inFlight = poolSize - inFlightPermits.availablePermits();
+            peakInFlight.accumulateAndGet(inFlight, Math::max);
+            
+            try {
+                virtualExecutor.execute(() -> {
                     try {
-                        AlertEvaluationService.AlertResult result = future.get();
-                        if (result.shouldTriggerAlert()) {
-                            System.out.println(
-                                String.format(
-                                    "\n🚨 ALERT TRIGGERED: %s\n",
-                                    result
-                                )
-                            );
-                        }
+                        processAndRecord(log, workerId);
                     } catch (InterruptedException e) {
                         Thread.currentThread().interrupt();
-                        System.out.println("[Alert Check] Interrupted, cancelling evaluation...");
-                        future.cancel(true);
-                    } catch (ExecutionException e) {
-                        System.err.println(
-                            String.format(
-                                "[Alert Check] Evaluation failed: %s",
-                                e.getCause().getMessage()
-                            )
-                        );
+                    } finally {
+                        inFlightPermits.release();
                     }
-                }).start();
+                });
+            } catch (RejectedExecutionException e) {
+                // Executor already shut down - shutdown is in progress
+                inFlightPermits.release();
+                break;
             }
         }
     }
     
+    /**
+     * Processes one log and records metrics.
+     * 
+     * @return false if the worker was interrupted during processing and must stop
+     */
+    private boolean processAndRecord(Log log, int workerId) throws InterruptedException {
+        tasksSubmitted.increment();
+        
+        long startNanos = System.nanoTime();
+        long startCpu = threadCpuNanos();
+        GroupCommitSink groupSink = sink;
+        
+        // Process log (this method checks for interruption)
+        processLog(workerId, groupSink != null ? WORKER_STAGES : ALL_STAGES);
+        
+        // Check if we were interrupted during processing
+        if (Thread.currentThread().isInterrupted()) {
+            DIAGNOSTICS.log(
+                Level.INFO,
+                "[Worker Task %d] Interrupted during processing, stopping...",
+                workerId
+            );
+            return false;
+        }
+        
+        long elapsedNanos = recordServiceTime(startNanos, startCpu);
+        if (groupSink != null) {
+            // Completed when its batch is written: the sink's callback records it
+            groupSink.submit(log, startNanos);
+        } else {
+            recordCompleted(log, elapsedNanos);
+        }
+        return true;
+    }
+    
+    /**
+     * Metrics, alert window and completion listener for one finished log.
+     */
+    private void recordCompleted(Log log, long elapsedNanos) {
+        // ProcessingMetrics keeps milliseconds; the stage timers hold the sub-ms detail
+        metrics.recordProcessed(log, TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        if (deduplicator == null) {
+            streamingEvaluator.record(log); // With dedup, alerts come from the aggregated records only
+        }
+        recordCompletion(log);
+    }
+    
+    /**
+     * Completion count, dedup and completion listener (every mode).
+     */
+    private void recordCompletion(Log log) {
+        tasksCompleted.increment();
+        LogDeduplicator dedup = deduplicator;
+        if (dedup != null) {
+            dedup.offer(log);
+        }
+        
+        LongConsumer listener = completionListener;
+        if (listener != null) {
+            listener.accept(log.getTimestamp());
+        }
+    }
+    
+    /**
+     * Bulk ingestion: counts a batch of historical logs in the metrics
+     * without processing them (see BulkIngestor). Thread-safe; the batch
+     * can be reused once this returns.
+     */
+    public void recordIngested(LogBatch batch) {
+        metrics.recordIngested(batch);
+        ingestedLogs.add(batch.size());
+    }
+    
+    /**
+     * CPU time of the calling thread, or -1 when not autoscaling (or unsupported).
+     */
+    private long threadCpuNanos() {
+        if (autoscaler == null || !THREAD_MX.isCurrentThreadCpuTimeSupported()) {
+            return -1;
+        }
+        return THREAD_MX.getCurrentThreadCpuTime();
+    }
+    
+    /**
+     * Wall and CPU time of one log: the autoscaler's service time and wait/compute ratio.
+     * 
+     * @return wall time of the log in nanoseconds
+     */
+    private long recordServiceTime(long startNanos, long startCpu) {
+        long elapsedNanos = System.nanoTime() - startNanos;
+        processingNanos.add(elapsedNanos);
+        if (startCpu >= 0) {
+            long endCpu = THREAD_MX.getCurrentThreadCpuTime();
+            if (endCpu >= startCpu) {
+                processingCpuNanos.add(endCpu - startCpu);
+            }
+        }
+        return elapsedNanos;
+    }
+    
+    /**
+     * Processes a log with simulated I/O-bound work.
+     * 
+     * I/O-BOUND CHARACTERISTICS:
+     * - Thread spends time waiting (I/O operations)
+     * - CPU is idle during waits
+     * - Can benefit from more threads than CPU cores
+     */
+    private void processLog(int workerId, ProcessingStage[] stages) throws InterruptedException {
+        // Simulated stages (see ProcessingStage): parse 20ms (CPU), DB write 50ms (I/O),
+        // network 30ms (I/O), validation 10ms (CPU). Each stage's end is the next one's start.
+        try {
+            long stageStart = System.nanoTime();
+            for (ProcessingStage stage : stages) {
+                stage.simulate();
+                long stageEnd = System.nanoTime();
+                stageTimers.record(stage, stageEnd - stageStart);
+                stageStart = stageEnd;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+    }
+    
     public void shutdown() throws InterruptedException {
         System.out.println("\n[LogProcessingService] Initiating graceful shutdown...");
         running = false;
         
+        StagedPipeline pipeline = stagedPipeline;
+        if (pipeline != null) {
+            // Stages drain in order: accepted logs finish, the input queue is left as is
+            pipeline.shutdown(10, TimeUnit.SECONDS);
+        }
+        PartitionedPipeline partitioned = partitionedPipeline;
+        if (partitioned != null) {
+            // Routed logs finish, the input queue is left as is
+            partitioned.shutdown(10, TimeUnit.SECONDS);
+        }
+        
         executorService.shutdown();
         
         try {
@@ -434,32 +1158,64 @@ public class LogProcessingService {
             Thread.currentThread().interrupt();
         }
         
-        if (!shutdownLatch.await(5, TimeUnit.SECONDS)) {
+        if (virtualExecutor != null) {
+            // Dispatcher is gone; let in-flight virtual threads finish, same budget as the pool
+            virtualExecutor.shutdown();
+            if (!virtualExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+                System.out.println("[LogProcessingService] Interrupting in-flight virtual threads...");
+                virtualExecutor.shutdownNow();
+                virtualExecutor.awaitTermination(5, TimeUnit.SECONDS);
+            }
+        }
+        
+        if (!awaitWorkersStopped(5, TimeUnit.SECONDS)) {
             System.err.println(
                 String.format(
                     "[LogProcessingService] Warning: %d workers did not acknowledge shutdown",
-                    shutdownLatch.getCount()
+                    liveWorkers.get()
                 )
             );
         }
         
-        synchronized (batchLock) {
-            if (!logBatch.isEmpty()) {
-                System.out.println(
-                    String.format(
-                        "[LogProcessingService] Evaluating final batch of %d logs...",
-                        logBatch.size()
-                    )
-                );
-                try {
-                    Future<AlertEvaluationService.AlertResult> future = 
-                        alertService.evaluateLogsAsync(logBatch, "FINAL");
-                    AlertEvaluationService.AlertResult result = future.get(5, TimeUnit.SECONDS);
-                    System.out.println("[LogProcessingService] Final batch result: " + result);
-                } catch (Exception e) {
-                    System.err.println("[LogProcessingService] Final batch evaluation failed: " + e.getMessage());
-                }
-            }
+        GroupCommitSink groupSink = sink;
+        if (groupSink != null) {
+            // Workers have stopped submitting: write what is pending so those logs complete
+            groupSink.close();
+        }
+        
+        Thread flusher = dedupFlusher;
+        if (flusher != null) {
+            // Every log has completed: evaluate the last, partial window
+            flusher.interrupt();
+            flusher.join(1000);
+            flushDedupWindow();
+        }
+        
+        // Worker stop messages before the reports below
+        DIAGNOSTICS.flush(1, TimeUnit.SECONDS);
+        
+        if (streamingEvaluator.getLogsRecorded() > 0) {
+            System.out.println(
+                String.format(
+                    "[LogProcessingService] Final alert window (last %d logs): %s | Alerts raised: %d, cleared: %d",
+                    streamingEvaluator.getWindowSize(),
+                    streamingEvaluator.evaluateNow(),
+                    streamingEvaluator.getAlertsRaised(),
+                    streamingEvaluator.getAlertsCleared()
+                )
+            );
+        }
+        
+        if (partitioned != null) {
+            System.out.println(
+                String.format(
+                    "[LogProcessingService] Partition alert windows (last %d logs each): %d alerting now | Alerts raised: %d, cleared: %d",
+                    ALERT_WINDOW_SIZE,
+                    partitioned.getActiveAlerts(),
+                    partitioned.getAlertsRaised(),
+                    partitioned.getAlertsCleared()
+                )
+            );
         }
         
         alertService.shutdown();
@@ -470,6 +1226,18 @@ public class LogProcessingService {
         System.out.println("[LogProcessingService] Shutdown complete");
     }
     
+    private boolean awaitWorkersStopped(long timeout, TimeUnit unit) throws InterruptedException {
+        long remainingNanos = unit.toNanos(timeout);
+        synchronized (workerExitLock) {
+            long deadline = System.nanoTime() + remainingNanos;
+            while (liveWorkers.get() > 0 && remainingNanos > 0) {
+                TimeUnit.NANOSECONDS.timedWait(workerExitLock, remainingNanos);
+                remainingNanos = deadline - System.nanoTime();
+            }
+            return liveWorkers.get() == 0;
+        }
+    }
+    
     /**
      * Prints comprehensive performance report.
      */
@@ -509,12 +1277,33 @@ public class LogProcessingService {
                 peakQueueSize.get()
             )
         );
+        if (virtualExecutor != null) {
+            System.out.println(
+                String.format(
+                    "Peak Virtual Threads In Flight: %d/%d",
+                    peakInFlight.get(),
+                    poolSize
+                )
+            );
+        }
+        if (autoscaler != null) {
+            System.out.println(
+                String.format(
+                    "Autoscaled Workers: %d → %d after %d resizes (%s)",
+                    workerCount,
+                    workerTarget,
+                    autoscaler.getResizeCount(),
+                    autoscaler
+                )
+            );
+        }
         
         if (tasksCompleted.sum() > 0) {
-            double avgWaitTime = (double) totalWaitTime.get() / tasksCompleted.sum();
-            double avgProcessTime = (double) totalProcessingTime.get() / tasksCompleted.sum();
-            double waitRatio = totalWaitTime.get() > 0 ? 
-                (double) totalProcessingTime.get() / totalWaitTime.get() : 0;
+            long waitNanos = totalWaitNanos.sum();
+            long busyNanos = processingNanos.sum();
+            double avgWaitTime = waitNanos / 1e6 / tasksCompleted.sum();
+            double avgProcessTime = busyNanos / 1e6 / tasksCompleted.sum();
+            double waitRatio = waitNanos > 0 ? (double) busyNanos / waitNanos : 0;
             
             System.out.println(
                 String.format(
@@ -528,6 +1317,24 @@ public class LogProcessingService {
                     avgProcessTime
                 )
             );
+            System.out.print("Stage Times:\n" + stageTimers.describe());
+            if (sink != null) {
+                // db_write and network above are per batch, not per log
+                System.out.println("Group Commit: " + sink);
+            }
+            if (deduplicator != null) {
+                System.out.println("Dedup: " + deduplicator);
+            }
+            if (stagedPipeline != null) {
+                // Stages are sized individually: the single-pool analysis below does not apply
+                System.out.print("Stage Pools:\n" + stagedPipeline.describe());
+                return;
+            }
+            if (partitionedPipeline != null) {
+                // One owner per partition: balance depends on the sources, not the pool size
+                System.out.print("Partitions:\n" + partitionedPipeline.describe());
+                return;
+            }
             System.out.println(
                 String.format(
                     "Wait/Process Ratio: %.2f (I/O-bound if > 1.0)",
@@ -574,15 +1381,116 @@ public class LogProcessingService {
         return running;
     }
     
+    /**
+     * In PARTITIONED mode, the partitions' metrics merged in.
+     */
     public ProcessingMetrics.MetricsSnapshot getMetrics() {
-        return metrics.getSnapshot();
+        ProcessingMetrics.MetricsSnapshot snapshot = metrics.getSnapshot();
+        PartitionedPipeline partitioned = partitionedPipeline;
+        return partitioned != null ? snapshot.merge(partitioned.getMetricsSnapshot()) : snapshot;
     }
     
     public AlertEvaluationService getAlertService() {
         return alertService;
     }
     
+    public StreamingAlertEvaluator getStreamingEvaluator() {
+        return streamingEvaluator;
+    }
+    
     public ThreadPoolExecutor getExecutorService() {
         return executorService;
     }
+    
+    /**
+     * Input queue, or null in COLUMNAR mode.
+     */
+    public BlockingLogQueue getLogQueue() {
+        return logQueue;
+    }
+    
+    /**
+     * Logs waiting in the input queue (LogBatchQueue rows in COLUMNAR mode).
+     */
+    public int getQueueDepth() {
+        return queueDepth();
+    }
+    
+    public long getTasksSubmitted() {
+        return tasksSubmitted.sum();
+    }
+    
+    public long getTasksCompleted() {
+        return tasksCompleted.sum();
+    }
+    
+    /**
+     * Logs counted through recordIngested() (bulk ingestion).
+     */
+    public long getIngestedLogs() {
+        return ingestedLogs.sum();
+    }
+    
+    public int getLiveWorkers() {
+        return liveWorkers.get();
+    }
+    
+    /**
+     * Virtual threads currently processing a log (0 outside VIRTUAL_THREAD mode).
+     */
+    public int getVirtualThreadsInFlight() {
+        return inFlightPermits != null ? poolSize - inFlightPermits.availablePermits() : 0;
+    }
+    
+    /**
+     * Wall time spent processing logs, summed over workers. Its rate divided
+     * by the worker count is the real utilization: long-running worker tasks
+     * keep getActiveCount() at the pool size even when they are idle in take().
+     */
+    public long getBusyNanos() {
+        return processingNanos.sum();
+    }
+    
+    public long getTotalWaitNanos() {
+        return totalWaitNanos.sum();
+    }
+    
+    /**
+     * STAGED mode pipeline (null in other modes or before start()).
+     */
+    public StagedPipeline getStagedPipeline() {
+        return stagedPipeline;
+    }
+    
+    /**
+     * PARTITIONED mode pipeline (null in other modes or before start()).
+     */
+    public PartitionedPipeline getPartitionedPipeline() {
+        return partitionedPipeline;
+    }
+    
+    /**
+     * Group-commit sink, or null when workers write each log themselves.
+     */
+    public GroupCommitSink getGroupCommitSink() {
+        return sink;
+    }
+    
+    /**
+     * Fingerprint deduplicator, or null when every log is evaluated on its own.
+     */
+    public LogDeduplicator getDeduplicator() {
+        return deduplicator;
+    }
+    
+    /**
+     * Per-stage (parse, DB write, network, validation) timing histograms.
+     */
+    public StageTimers getStageTimers() {
+        return stageTimers;
+    }
+    
+    public WorkerMode getWorkerMode() {
+        return workerMode;
+    }
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package com.logprocessing;
 
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
@@ -17,6 +19,9 @@ import java.util.concurrent.Future;
  */
 public class LogProcessingSystem {
     
+    // COLUMNAR mode: rows per LogBatch handed from a producer to a worker
+    private static final int COLUMNAR_BATCH_ROWS = 8;
+    
     public static void main(String[] args) throws InterruptedException {
         System.out.println("=== STEP 8: Performance & Starvation ===\n");
         System.out.println("=== COMPLETE MULTI-THREADED LOG PROCESSING SYSTEM ===\n");
@@ -30,8 +35,6 @@ public class LogProcessingSystem {
             )
         );
         
-        LogQueue logQueue = new LogQueue(50); // Larger queue for high load
-        
         // Optimal pool size for I/O-bound tasks: CPU cores × 2
         // This allows threads to wait on I/O while others work
         int poolSize = cpuCores * 2;
@@ -42,19 +45,56 @@ public class LogProcessingSystem {
             )
         );
         
-        LogProcessingService processingService = new LogProcessingService(poolSize, logQueue);
-        processingService.start();
+        // -Dlogprocessing.workerMode=BATCH drains the queue in batches,
+        // COLUMNAR moves whole LogBatches instead of Log objects,
+        // STAGED runs a thread pool per processing stage,
+        // PARTITIONED gives each source one owner thread
+        LogProcessingService.WorkerMode workerMode = LogProcessingService.WorkerMode.valueOf(
+            System.getProperty("logprocessing.workerMode", "PER_LOG").toUpperCase()
+        );
         
         // Create multiple producers to generate high load
-        LogProducerWorker producer1 = new LogProducerWorker(logQueue, "APP-1");
-        LogProducerWorker producer2 = new LogProducerWorker(logQueue, "APP-2");
-        LogProducerWorker producer3 = new LogProducerWorker(logQueue, "APP-3");
-        LogProducerWorker producer4 = new LogProducerWorker(logQueue, "APP-4");
+        LogProcessingService processingService;
+        LogProducerWorker producer1;
+        LogProducerWorker producer2;
+        LogProducerWorker producer3;
+        LogProducerWorker producer4;
+        BlockingLogQueue logQueue = null; // null in COLUMNAR mode
+        if (workerMode == LogProcessingService.WorkerMode.COLUMNAR) {
+            // Producers fill pooled LogBatches, workers consume whole batches
+            LogBatchQueue batchQueue = new LogBatchQueue(50, COLUMNAR_BATCH_ROWS);
+            processingService = new LogProcessingService(poolSize, batchQueue);
+            producer1 = new LogProducerWorker(batchQueue, "APP-1");
+            producer2 = new LogProducerWorker(batchQueue, "APP-2");
+            producer3 = new LogProducerWorker(batchQueue, "APP-3");
+            producer4 = new LogProducerWorker(batchQueue, "APP-4");
+        } else {
+            logQueue = createLogQueue(50); // Larger queue for high load
+            processingService = new LogProcessingService(poolSize, logQueue, workerMode);
+            producer1 = new LogProducerWorker(logQueue, "APP-1");
+            producer2 = new LogProducerWorker(logQueue, "APP-2");
+            producer3 = new LogProducerWorker(logQueue, "APP-3");
+            producer4 = new LogProducerWorker(logQueue, "APP-4");
+        }
+        
+        configureAutoscaling(processingService, workerMode, cpuCores);
+        configureStages(processingService, workerMode);
+        configureSink(processingService, workerMode);
+        configurePartitions(processingService, workerMode);
+        configureDedup(processingService);
+        processingService.start();
+        PrometheusExporter exporter = startMetricsExporter(processingService);
         
-        producer1.start();
-        producer2.start();
-        producer3.start();
-        producer4.start();
+        // -Dlogprocessing.tail=<file>: real log lines replace the synthetic producers
+        LogFileTailer tailer = createTailer(logQueue);
+        if (tailer != null) {
+            tailer.start();
+        } else {
+            producer1.start();
+            producer2.start();
+            producer3.start();
+            producer4.start();
+        }
         
         System.out.println("\n[Main Thread] All threads started.");
         System.out.println("KEY OBSERVATIONS:");
@@ -107,13 +147,23 @@ public class LogProcessingSystem {
         // Graceful shutdown
         System.out.println("\n[Main Thread] Initiating graceful shutdown...\n");
         
+        if (tailer != null) {
+            tailer.stopTailer();
+        }
         producer1.stopProducer();
         producer2.stopProducer();
         producer3.stopProducer();
         producer4.stopProducer();
         
         processingService.shutdown();
+        closeLogQueue(processingService.getLogQueue());
+        if (exporter != null) {
+            exporter.close();
+        }
         
+        if (tailer != null) {
+            tailer.join();
+        }
         producer1.join();
         producer2.join();
         producer3.join();
@@ -128,6 +178,9 @@ public class LogProcessingSystem {
         System.out.println("Total Evaluations: " + processingService.getAlertService().getEvaluationsCompleted());
         System.out.println("Alerts Triggered: " + processingService.getAlertService().getAlertsTriggered());
         System.out.println("Evaluations Cancelled: " + processingService.getAlertService().getEvaluationsCancelled());
+        if (logQueue instanceof LogQueue && ((LogQueue) logQueue).getOverflowPolicy() != OverflowPolicy.BLOCK) {
+            System.out.println("Load Shedding: " + ((LogQueue) logQueue).describeDrops());
+        }
         
         System.out.println("\n=== Complete System Verification ===");
         System.out.println("✓ Thread pool sized appropriately for I/O-bound tasks");
@@ -159,4 +212,249 @@ public class LogProcessingSystem {
         System.out.println("7. volatile ensures visibility of updates across threads");
         System.out.println("8. Thread-safe collections prevent race conditions");
     }
+    
+    /**
+     * -Dlogprocessing.autoscale=true lets the pool follow load between
+     * 1 and cores × 4 workers instead of staying at cores × 2.
+     */
+    static void configureAutoscaling(LogProcessingService processingService,
+                                     LogProcessingService.WorkerMode workerMode, int cpuCores) {
+        if (Boolean.getBoolean("logprocessing.autoscale")
+                && workerMode != LogProcessingService.WorkerMode.VIRTUAL_THREAD
+                && workerMode != LogProcessingService.WorkerMode.PARTITIONED) {
+            processingService.enableAutoscaling(
+                new PoolAutoscaler(
+                    Integer.getInteger("logprocessing.autoscale.min", 1),
+                    Integer.getInteger("logprocessing.autoscale.max", cpuCores * 4),
+                    0.8
+                )
+            );
+        }
+    }
+    
+    /**
+     * STAGED mode: -Dlogprocessing.stageThreads=parse:2,db_write:8 overrides
+     * the threads of the listed stages (the others keep their proportional share).
+     */
+    static void configureStages(LogProcessingService processingService,
+                                LogProcessingService.WorkerMode workerMode) {
+        String spec = System.getProperty("logprocessing.stageThreads");
+        if (spec == null || workerMode != LogProcessingService.WorkerMode.STAGED) {
+            return;
+        }
+        for (String entry : spec.split(",")) {
+            String[] nameAndThreads = entry.trim().split(":");
+            ProcessingStage stage = null;
+            for (ProcessingStage candidate : ProcessingStage.values()) {
+                if (candidate.getMetricName().equalsIgnoreCase(nameAndThreads[0].trim())) {
+                    stage = candidate;
+                }
+            }
+            if (stage == null || nameAndThreads.length != 2) {
+                throw new IllegalArgumentException("Invalid stage thread spec: " + entry);
+            }
+            processingService.setStageThreads(stage, Integer.parseInt(nameAndThreads[1].trim()));
+        }
+    }
+    
+    /**
+     * -Dlogprocessing.sink=group batches DB and network writes through a
+     * GroupCommitSink (PER_LOG and VIRTUAL_THREAD modes). Tuned with
+     * logprocessing.sink.maxBatch (64), .lingerMs (10) and .writers (2).
+     */
+    static void configureSink(LogProcessingService processingService,
+                              LogProcessingService.WorkerMode workerMode) {
+        if (!"group".equalsIgnoreCase(System.getProperty("logprocessing.sink"))
+                || workerMode == LogProcessingService.WorkerMode.COLUMNAR
+                || workerMode == LogProcessingService.WorkerMode.STAGED
+                || workerMode == LogProcessingService.WorkerMode.PARTITIONED) {
+            return;
+        }
+        processingService.useGroupCommitSink(
+            Integer.getInteger("logprocessing.sink.maxBatch", 64),
+            Long.getLong("logprocessing.sink.lingerMs", 10),
+            Integer.getInteger("logprocessing.sink.writers", 2)
+        );
+    }
+    
+    /**
+     * PARTITIONED mode: -Dlogprocessing.partitions=8 sets the number of
+     * partitions (owner threads); default is the pool size.
+     */
+    static void configurePartitions(LogProcessingService processingService,
+                                    LogProcessingService.WorkerMode workerMode) {
+        Integer partitions = Integer.getInteger("logprocessing.partitions");
+        if (partitions == null || workerMode != LogProcessingService.WorkerMode.PARTITIONED) {
+            return;
+        }
+        processingService.setPartitions(partitions);
+    }
+    
+    /**
+     * -Dlogprocessing.dedup.windowMs=1000 counts repeated messages per
+     * window (LogDeduplicator) and evaluates the alert rules once per window
+     * on the aggregated records. logprocessing.dedup.maxFingerprints (1024)
+     * bounds the records kept per window. Off by default.
+     */
+    static void configureDedup(LogProcessingService processingService) {
+        Long windowMillis = Long.getLong("logprocessing.dedup.windowMs");
+        if (windowMillis == null) {
+            return;
+        }
+        processingService.enableDeduplication(
+            windowMillis,
+            Integer.getInteger("logprocessing.dedup.maxFingerprints", 1024)
+        );
+    }
+    
+    /**
+     * -Dlogprocessing.tail=/var/log/app.log follows that file (rotation
+     * included) instead of generating logs. logprocessing.tail.fromStart=true
+     * reads the existing content first; logprocessing.tail.pollMs (200) is
+     * the idle re-check interval.
+     * 
+     * @param logQueue null in COLUMNAR mode, which has no per-log queue
+     */
+    static LogFileTailer createTailer(BlockingLogQueue logQueue) {
+        String file = System.getProperty("logprocessing.tail");
+        if (file == null) {
+            return null;
+        }
+        if (logQueue == null) {
+            throw new IllegalArgumentException("logprocessing.tail feeds a BlockingLogQueue; COLUMNAR mode has none");
+        }
+        return new LogFileTailer(
+            Paths.get(file),
+            logQueue,
+            Boolean.getBoolean("logprocessing.tail.fromStart"),
+            Long.getLong("logprocessing.tail.pollMs", 200)
+        );
+    }
+    
+    /**
+     * -Dlogprocessing.metricsPort=9404 serves Prometheus metrics at /metrics
+     * while the service runs (0 picks a free port). Off by default.
+     */
+    static PrometheusExporter startMetricsExporter(LogProcessingService processingService) {
+        Integer port = Integer.getInteger("logprocessing.metricsPort");
+        if (port == null) {
+            return null;
+        }
+        try {
+            PrometheusExporter exporter = new PrometheusExporter(processingService, port);
+            exporter.start();
+            return exporter;
+        } catch (IOException e) {
+            System.err.println(
+                String.format(
+                    "[Main Thread] Cannot serve metrics on port %d (%s)",
+                    port,
+                    e.getMessage()
+                )
+            );
+            return null;
+        }
+    }
+    
+    /**
+     * Releases queues that hold resources (SpillingLogQueue's mapped
+     * segments); call after the service has stopped taking from the queue.
+     */
+    static void closeLogQueue(BlockingLogQueue logQueue) {
+        if (!(logQueue instanceof AutoCloseable)) {
+            return;
+        }
+        try {
+            ((AutoCloseable) logQueue).close();
+        } catch (Exception e) {
+            System.err.println(
+                String.format(
+                    "[Main Thread] Cannot close log queue (%s)",
+                    e.getMessage()
+                )
+            );
+        }
+    }
+    
+    /**
+     * Selects the queue implementation per deployment.
+     * 
+     * -Dlogprocessing.queue=ring            → RingBufferLogQueue (lock-free)
+     * -Dlogprocessing.waitStrategy=yielding → blocking | yielding | busy-spin
+     * -Dlogprocessing.queue=priority        → PriorityLaneLogQueue (lane per level, DRR)
+     * -Dlogprocessing.queue=spill           → SpillingLogQueue (overflow to disk)
+     * -Dlogprocessing.spillDir=/path        → segment directory (default: tmpdir/logprocessing-spill)
+     * -Dlogprocessing.spillSegmentBytes=N   → segment file size (default 4 MB)
+     * Default: monitor-based LogQueue
+     * -Dlogprocessing.overflow=shed-lowest-level → LogQueue overflow policy:
+     *   block | drop-newest | drop-oldest | shed-lowest-level | sample
+     * -Dlogprocessing.sampleRate=0.1        → SAMPLE policy keep probability
+     */
+    static BlockingLogQueue createLogQueue(int capacity) {
+        String queueType = System.getProperty("logprocessing.queue", "monitor");
+        if ("priority".equalsIgnoreCase(queueType)) {
+            System.out.println(
+                String.format(
+                    "[Main Thread] Using PriorityLaneLogQueue (capacity=%d per level, deficit round robin)",
+                    capacity
+                )
+            );
+            return new PriorityLaneLogQueue(capacity);
+        }
+        if ("spill".equalsIgnoreCase(queueType)) {
+            String spillDir = System.getProperty(
+                "logprocessing.spillDir",
+                Paths.get(System.getProperty("java.io.tmpdir"), "logprocessing-spill").toString()
+            );
+            int segmentBytes = Integer.getInteger("logprocessing.spillSegmentBytes", 4 * 1024 * 1024);
+            try {
+                SpillSegmentStore store = new SpillSegmentStore(Paths.get(spillDir), segmentBytes);
+                System.out.println(
+                    String.format(
+                        "[Main Thread] Using SpillingLogQueue (capacity=%d, spillDir=%s, pending on disk=%d)",
+                        capacity,
+                        spillDir,
+                        store.size()
+                    )
+                );
+                return new SpillingLogQueue(capacity, store);
+            } catch (IOException e) {
+                System.err.println(
+                    String.format(
+                        "[Main Thread] Cannot open spill directory %s (%s), using LogQueue",
+                        spillDir,
+                        e.getMessage()
+                    )
+                );
+                return new LogQueue(capacity);
+            }
+        }
+        if ("ring".equalsIgnoreCase(queueType)) {
+            String strategy = System.getProperty("logprocessing.waitStrategy", "blocking");
+            System.out.println(
+                String.format(
+                    "[Main Thread] Using RingBufferLogQueue (capacity=%d, waitStrategy=%s)",
+                    capacity,
+                    strategy
+                )
+            );
+            return new RingBufferLogQueue(capacity, WaitStrategy.fromName(strategy));
+        }
+        OverflowPolicy overflow = OverflowPolicy.fromName(System.getProperty("logprocessing.overflow", "block"));
+        if (overflow != OverflowPolicy.BLOCK) {
+            double sampleRate = Double.parseDouble(
+                System.getProperty("logprocessing.sampleRate", String.valueOf(LogQueue.DEFAULT_SAMPLE_RATE))
+            );
+            System.out.println(
+                String.format(
+                    "[Main Thread] Using LogQueue (capacity=%d, overflow=%s%s)",
+                    capacity,
+                    overflow,
+                    overflow == OverflowPolicy.SAMPLE ? ", sampleRate=" + sampleRate : ""
+                )
+            );
+            return new LogQueue(capacity, overflow, sampleRate);
+        }
+        return new LogQueue(capacity);
+    }
 }
\ No newline at end of file
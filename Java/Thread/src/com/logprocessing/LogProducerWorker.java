@@ -7,13 +7,26 @@ package com.logprocessing;
  */
 public class LogProducerWorker extends Thread {
     
-    private final LogQueue logQueue;
+    private final BlockingLogQueue logQueue;
+    private final LogBatchQueue batchQueue; // Columnar mode: rows go into LogBatches
     private final String producerId;
     private volatile boolean running = true;
     private int producedCount = 0;
     
-    public LogProducerWorker(LogQueue logQueue, String producerId) {
+    public LogProducerWorker(BlockingLogQueue logQueue, String producerId) {
         this.logQueue = logQueue;
+        this.batchQueue = null;
+        this.producerId = producerId;
+        this.setName("Producer-" + producerId);
+    }
+    
+    /**
+     * Columnar producer: appends rows to a pooled LogBatch and hands over
+     * each full batch, instead of allocating a Log per row.
+     */
+    public LogProducerWorker(LogBatchQueue batchQueue, String producerId) {
+        this.logQueue = null;
+        this.batchQueue = batchQueue;
         this.producerId = producerId;
         this.setName("Producer-" + producerId);
     }
@@ -28,6 +41,22 @@ public class LogProducerWorker extends Thread {
             )
         );
         
+        if (batchQueue != null) {
+            runColumnar();
+        } else {
+            runPerLog();
+        }
+        
+        System.out.println(
+            String.format(
+                "[Producer Thread %s] Stopped. Total produced: %d",
+                producerId,
+                producedCount
+            )
+        );
+    }
+    
+    private void runPerLog() {
         while (running) {
             try {
                 // Generate log with random level
@@ -52,14 +81,38 @@ public class LogProducerWorker extends Thread {
                 break;
             }
         }
+    }
+    
+    private void runColumnar() {
+        // Per-producer constants: no String or id lookup per row
+        String message = "Log message from " + producerId;
+        int sourceId = SourceRegistry.global().idOf(producerId);
+        LogBatch batch = batchQueue.obtainBatch();
         
-        System.out.println(
-            String.format(
-                "[Producer Thread %s] Stopped. Total produced: %d",
-                producerId,
-                producedCount
-            )
-        );
+        while (running) {
+            try {
+                batch.add(System.currentTimeMillis(), producedCount + 1, Log.randomLogLevel(), sourceId, producerId, message);
+                producedCount++;
+                
+                if (batch.isFull()) {
+                    batchQueue.putBatch(batch); // Ownership passes to the consumer
+                    batch = batchQueue.obtainBatch();
+                }
+                
+                Thread.sleep(400); // Logs arrive every 400ms
+            
+            } catch (InterruptedException e) {
+                System.out.println(
+                    String.format(
+                        "[Producer Thread %s] Interrupted, stopping (%d rows in unsent batch)...",
+                        producerId,
+                        batch.size()
+                    )
+                );
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
     }
     
     public void stopProducer() {
@@ -1,7 +1,16 @@
 package com.logprocessing;
 
+import com.diagnostics.DiagnosticSink;
+import com.diagnostics.DiagnosticSink.Level;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * STEP 2: Thread-Safe Log Queue
@@ -20,16 +29,51 @@ import java.util.Queue;
  * - Workers would poll constantly (waste CPU)
  * - Lost logs if worker is busy
  * - No buffering during high load
+ * 
+ * OVERFLOW: By default a full queue blocks producers; an OverflowPolicy
+ * can shed load instead (see OverflowPolicy, STEP 22).
  */
-public class LogQueue {
+public class LogQueue implements BlockingLogQueue {
+    
+    // Queue/worker chatter goes through the async sink, not System.out under our locks
+    private static final DiagnosticSink DIAGNOSTICS = DiagnosticSink.get();
+    
+    // SAMPLE policy: early dropping starts at this fill level
+    private static final double SAMPLE_HIGH_WATER = 0.75;
+    public static final double DEFAULT_SAMPLE_RATE = 0.1;
     
     private final Queue<Log> queue;
     private final int maxSize;
     private final Object lock = new Object(); // Monitor for synchronization
     
+    // Load shedding (guarded by lock)
+    private final OverflowPolicy overflowPolicy;
+    private final double sampleRate;
+    private final int sampleHighWater;
+    private final int[] queuedByLevel = new int[LogLevel.COUNT];
+    private final long[] droppedByLevel = new long[LogLevel.COUNT];
+    private volatile Consumer<Log> dropListener;
+    
     public LogQueue(int maxSize) {
+        this(maxSize, OverflowPolicy.BLOCK);
+    }
+    
+    public LogQueue(int maxSize, OverflowPolicy overflowPolicy) {
+        this(maxSize, overflowPolicy, DEFAULT_SAMPLE_RATE);
+    }
+    
+    /**
+     * @param sampleRate SAMPLE policy: probability a non-ERROR log is kept above the high-water mark
+     */
+    public LogQueue(int maxSize, OverflowPolicy overflowPolicy, double sampleRate) {
+        if (sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("Sample rate must be in [0, 1]: " + sampleRate);
+        }
         this.queue = new LinkedList<>();
         this.maxSize = maxSize;
+        this.overflowPolicy = overflowPolicy;
+        this.sampleRate = sampleRate;
+        this.sampleHighWater = Math.max(1, (int) (maxSize * SAMPLE_HIGH_WATER));
     }
     
     /**
@@ -46,31 +90,42 @@ public class LogQueue {
      * - If queue full: Producer thread BLOCKS (waits)
      * - If queue has space: Producer adds log and CONTINUES
      */
+    @Override
     public void addLog(Log log) throws InterruptedException {
         synchronized (lock) {
+            if (overflowPolicy == OverflowPolicy.SAMPLE && sampledOutLocked(log)) {
+                return;
+            }
+            
             // Wait while queue is full
             // This is a "guarded wait" - we wait until condition is met
             while (queue.size() >= maxSize) {
-                System.out.println(
-                    String.format(
-                        "[Producer Thread %s] Queue full (%d/%d), waiting...",
-                        Thread.currentThread().getName(),
-                        queue.size(),
-                        maxSize
-                    )
+                if (overflowPolicy != OverflowPolicy.BLOCK) {
+                    if (shedLocked(log)) {
+                        return; // Incoming log dropped
+                    }
+                    if (queue.size() < maxSize) {
+                        break; // An older log was evicted
+                    }
+                }
+                DIAGNOSTICS.log(
+                    Level.INFO,
+                    "[Producer Thread %s] Queue full (%d/%d), waiting...",
+                    Thread.currentThread().getName(),
+                    queue.size(),
+                    maxSize
                 );
                 lock.wait(); // Releases lock, thread goes to WAITING state
             }
             
             // Add log to queue
-            queue.offer(log);
-            System.out.println(
-                String.format(
-                    "[Producer Thread %s] Added log: %s | Queue size: %d",
-                    Thread.currentThread().getName(),
-                    log.getId(),
-                    queue.size()
-                )
+            offerLocked(log);
+            DIAGNOSTICS.log(
+                Level.DEBUG,
+                "[Producer Thread %s] Added log: %s | Queue size: %d",
+                Thread.currentThread().getName(),
+                log.getId(),
+                queue.size()
             );
             
             // Wake up any waiting consumers
@@ -96,28 +151,27 @@ public class LogQueue {
      * - Polling: Thread checks queue 1000x/second (wastes CPU)
      * - wait(): Thread sleeps until notified (uses CPU only when needed)
      */
+    @Override
     public Log takeLog() throws InterruptedException {
         synchronized (lock) {
             // Wait while queue is empty
             while (queue.isEmpty()) {
-                System.out.println(
-                    String.format(
-                        "[Consumer Thread %s] Queue empty, waiting for logs...",
-                        Thread.currentThread().getName()
-                    )
+                DIAGNOSTICS.log(
+                    Level.DEBUG,
+                    "[Consumer Thread %s] Queue empty, waiting for logs...",
+                    Thread.currentThread().getName()
                 );
                 lock.wait(); // Thread blocks here until notifyAll() is called
             }
             
             // Remove and return log
-            Log log = queue.poll();
-            System.out.println(
-                String.format(
-                    "[Consumer Thread %s] Took log: %s | Queue size: %d",
-                    Thread.currentThread().getName(),
-                    log.getId(),
-                    queue.size()
-                )
+            Log log = pollLocked();
+            DIAGNOSTICS.log(
+                Level.DEBUG,
+                "[Consumer Thread %s] Took log: %s | Queue size: %d",
+                Thread.currentThread().getName(),
+                log.getId(),
+                queue.size()
             );
             
             // Wake up any waiting producers (if queue was full)
@@ -127,10 +181,228 @@ public class LogQueue {
         }
     }
     
+    /**
+     * Batch consumer method: Takes between min and max logs at once.
+     * 
+     * INTERNAL BEHAVIOR:
+     * 1. Thread acquires lock ONCE for the whole batch
+     * 2. Waits (with timeout) until at least min logs are queued
+     * 3. Removes up to max logs
+     * 4. Calls notifyAll() ONCE to wake waiting producers
+     * 
+     * WHY BATCHING:
+     * - takeLog(): 1 lock acquire + 1 notifyAll + 1 wake-up PER LOG
+     * - takeBatch(): the same costs paid once PER BATCH
+     */
+    @Override
+    public List<Log> takeBatch(int min, int max, long timeout, TimeUnit unit) throws InterruptedException {
+        if (min < 0 || max < 1 || min > max) {
+            throw new IllegalArgumentException(
+                String.format("Invalid batch bounds: min=%d, max=%d", min, max)
+            );
+        }
+        long remainingNanos = unit.toNanos(timeout);
+        synchronized (lock) {
+            // Timed guarded wait: deadline-based so spurious wake-ups don't extend it
+            long deadline = System.nanoTime() + remainingNanos;
+            while (queue.size() < min && remainingNanos > 0) {
+                TimeUnit.NANOSECONDS.timedWait(lock, remainingNanos);
+                remainingNanos = deadline - System.nanoTime();
+            }
+            
+            List<Log> batch = new ArrayList<>(Math.min(max, queue.size()));
+            drainLocked(batch, max);
+            if (!batch.isEmpty()) {
+                DIAGNOSTICS.log(
+                    Level.DEBUG,
+                    "[Consumer Thread %s] Took batch of %d logs | Queue size: %d",
+                    Thread.currentThread().getName(),
+                    batch.size(),
+                    queue.size()
+                );
+            }
+            return batch;
+        }
+    }
+    
+    /**
+     * Non-blocking batch removal: moves up to max queued logs into target.
+     */
+    @Override
+    public int drainTo(Collection<? super Log> target, int max) {
+        synchronized (lock) {
+            return drainLocked(target, max);
+        }
+    }
+    
+    // Caller must hold lock
+    private int drainLocked(Collection<? super Log> target, int max) {
+        int drained = 0;
+        while (drained < max && !queue.isEmpty()) {
+            target.add(pollLocked());
+            drained++;
+        }
+        if (drained > 0) {
+            // One wake-up for the whole batch of freed slots
+            lock.notifyAll();
+        }
+        return drained;
+    }
+    
+    // Caller must hold lock
+    private void offerLocked(Log log) {
+        queue.offer(log);
+        queuedByLevel[log.getLogLevel().ordinal()]++;
+    }
+    
+    // Caller must hold lock
+    private Log pollLocked() {
+        Log log = queue.poll();
+        if (log != null) {
+            queuedByLevel[log.getLogLevel().ordinal()]--;
+        }
+        return log;
+    }
+    
+    /**
+     * Applies the overflow policy to a full queue. Caller must hold lock.
+     * 
+     * @return true if the incoming log was dropped; false if the caller should
+     *         add it (room was made) or wait for room
+     */
+    private boolean shedLocked(Log log) {
+        switch (overflowPolicy) {
+            case DROP_NEWEST:
+                countDropLocked(log);
+                return true;
+            case DROP_OLDEST:
+                countDropLocked(pollLocked());
+                return false;
+            case SHED_LOWEST_LEVEL:
+            case SAMPLE: // Incoming non-ERRORs were already sampled out when full
+                LogLevel lowest = lowestQueuedLevelLocked();
+                if (log.getLogLevel().isMoreSevereThan(lowest)) {
+                    countDropLocked(evictOldestLocked(lowest));
+                    return false;
+                }
+                break;
+            default:
+                return false;
+        }
+        // Nothing less severe to evict: ERROR waits, anything else is dropped
+        if (log.getLogLevel() == LogLevel.ERROR) {
+            return false;
+        }
+        countDropLocked(log);
+        return true;
+    }
+    
+    /**
+     * SAMPLE policy, random early drop. Caller must hold lock.
+     */
+    private boolean sampledOutLocked(Log log) {
+        if (log.getLogLevel() == LogLevel.ERROR || queue.size() < sampleHighWater) {
+            return false;
+        }
+        if (queue.size() < maxSize && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            return false;
+        }
+        countDropLocked(log);
+        return true;
+    }
+    
+    // Caller must hold lock
+    private LogLevel lowestQueuedLevelLocked() {
+        for (int ordinal = LogLevel.COUNT - 1; ordinal >= 0; ordinal--) {
+            if (queuedByLevel[ordinal] > 0) {
+                return LogLevel.fromOrdinal(ordinal);
+            }
+        }
+        return LogLevel.ERROR;
+    }
+    
+    // Caller must hold lock. Linear scan; the queue is bounded and small.
+    private Log evictOldestLocked(LogLevel level) {
+        Iterator<Log> it = queue.iterator();
+        while (it.hasNext()) {
+            Log queued = it.next();
+            if (queued.getLogLevel() == level) {
+                it.remove();
+                queuedByLevel[level.ordinal()]--;
+                return queued;
+            }
+        }
+        throw new IllegalStateException("No queued " + level + " log to evict");
+    }
+    
+    // Caller must hold lock
+    private void countDropLocked(Log dropped) {
+        droppedByLevel[dropped.getLogLevel().ordinal()]++;
+        Consumer<Log> listener = dropListener;
+        if (listener != null) {
+            listener.accept(dropped);
+        }
+        DIAGNOSTICS.log(
+            Level.DEBUG,
+            "[LogQueue] %s dropped %s log %s",
+            overflowPolicy,
+            dropped.getLogLevel(),
+            dropped.getId()
+        );
+    }
+    
+    /**
+     * Called with every log the overflow policy drops (incoming or evicted):
+     * such a log never reaches a worker. Runs under the queue lock on the
+     * producer's thread, so it must be cheap and must not touch the queue.
+     */
+    public void setDropListener(Consumer<Log> dropListener) {
+        this.dropListener = dropListener;
+    }
+    
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+    
+    /**
+     * Logs dropped by the overflow policy (incoming or evicted), all levels.
+     */
+    public long getDroppedCount() {
+        synchronized (lock) {
+            long total = 0;
+            for (long dropped : droppedByLevel) {
+                total += dropped;
+            }
+            return total;
+        }
+    }
+    
+    public long getDroppedCount(LogLevel level) {
+        synchronized (lock) {
+            return droppedByLevel[level.ordinal()];
+        }
+    }
+    
+    /**
+     * e.g. "SHED_LOWEST_LEVEL dropped 120 (ERROR=0, WARNING=3, INFO=117, UNKNOWN=0)"
+     */
+    public String describeDrops() {
+        synchronized (lock) {
+            StringBuilder sb = new StringBuilder();
+            long total = 0;
+            for (int i = 0; i < LogLevel.COUNT; i++) {
+                total += droppedByLevel[i];
+                sb.append(i == 0 ? "" : ", ").append(LogLevel.fromOrdinal(i)).append('=').append(droppedByLevel[i]);
+            }
+            return String.format("%s dropped %d (%s)", overflowPolicy, total, sb);
+        }
+    }
+    
     /**
      * Returns current queue size (for monitoring).
      * Thread-safe because it's synchronized.
      */
+    @Override
     public int size() {
         synchronized (lock) {
             return queue.size();
@@ -140,6 +412,7 @@ public class LogQueue {
     /**
      * Checks if queue is empty.
      */
+    @Override
     public boolean isEmpty() {
         synchronized (lock) {
             return queue.isEmpty();
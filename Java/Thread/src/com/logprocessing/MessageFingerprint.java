@@ -0,0 +1,174 @@
+package com.logprocessing;
+
+/**
+ * STEP 31: Message Fingerprints
+ * 
+ * Reduces a log message to its template by masking the parts that change
+ * between repeats of the same event, and hashes the template to 64 bits.
+ * 
+ * <pre>
+ * "Timeout after 3000ms calling 10.0.0.12 (req 8f14e45f-ceea-467f-a8c1-2b7a5e1d9c3f)"
+ * "Timeout after &lt;n&gt;ms calling &lt;n&gt;.&lt;n&gt;.&lt;n&gt;.&lt;n&gt; (req &lt;uuid&gt;)"
+ * </pre>
+ * 
+ * MASKED:
+ * - UUIDs (8-4-4-4-12 hex digits) → &lt;uuid&gt;
+ * - Hex ids: 0x-prefixed, or 8+ hex characters mixing digits and letters
+ *   (hashes, trace ids) → &lt;hex&gt;
+ * - Every other run of digits → &lt;n&gt;
+ * 
+ * KEY CONCEPTS:
+ * - fingerprint() masks and hashes in one pass (FNV-1a), without building
+ *   the template: no allocation per log
+ * - template() builds the masked text, for display, once per new fingerprint
+ * 
+ * WHY THIS DESIGN:
+ * - "Connection refused to db-7 after 3 retries" and the same line with
+ *   "4 retries" are one problem; counting them separately hides that it is
+ *   one dependency failing thousands of times
+ */
+public final class MessageFingerprint {
+    
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final int MIN_HEX_ID_LENGTH = 8;
+    private static final int UUID_LENGTH = 36;
+    
+    private MessageFingerprint() {
+    }
+    
+    /**
+     * 64-bit hash of the masked message. Equal templates give equal fingerprints.
+     */
+    public static long fingerprint(CharSequence message) {
+        return mask(message, null);
+    }
+    
+    /**
+     * The masked message, e.g. "Timeout after &lt;n&gt;ms".
+     */
+    public static String template(CharSequence message) {
+        StringBuilder out = new StringBuilder(message.length());
+        mask(message, out);
+        return out.toString();
+    }
+    
+    /**
+     * Scans message once, hashing what template() would contain (and
+     * appending it to out when out is not null).
+     */
+    private static long mask(CharSequence message, StringBuilder out) {
+        long hash = FNV_OFFSET;
+        int length = message.length();
+        int i = 0;
+        while (i < length) {
+            char c = message.charAt(i);
+            boolean wordStart = i == 0 || !isWordChar(message.charAt(i - 1));
+            if (wordStart && isHex(c)) {
+                int end = wordEnd(message, i);
+                if (isUuid(message, i, end)) {
+                    hash = emit(hash, "<uuid>", out);
+                    i = end;
+                    continue;
+                }
+                if (isHexId(message, i, end)) {
+                    hash = emit(hash, "<hex>", out);
+                    i = end;
+                    continue;
+                }
+            }
+            if (c >= '0' && c <= '9') {
+                while (i < length && message.charAt(i) >= '0' && message.charAt(i) <= '9') {
+                    i++;
+                }
+                hash = emit(hash, "<n>", out);
+                continue;
+            }
+            hash = emit(hash, c, out);
+            i++;
+        }
+        return hash;
+    }
+    
+    private static long emit(long hash, char c, StringBuilder out) {
+        if (out != null) {
+            out.append(c);
+        }
+        return (hash ^ c) * FNV_PRIME;
+    }
+    
+    private static long emit(long hash, String token, StringBuilder out) {
+        for (int i = 0; i < token.length(); i++) {
+            hash = emit(hash, token.charAt(i), out);
+        }
+        return hash;
+    }
+    
+    /**
+     * End of the run of word characters (letters, digits, '_', '-') starting at start.
+     */
+    private static int wordEnd(CharSequence message, int start) {
+        int end = start;
+        while (end < message.length() && isWordChar(message.charAt(end))) {
+            end++;
+        }
+        return end;
+    }
+    
+    private static boolean isUuid(CharSequence message, int start, int end) {
+        if (end - start != UUID_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < UUID_LENGTH; i++) {
+            char c = message.charAt(start + i);
+            boolean dash = i == 8 || i == 13 || i == 18 || i == 23;
+            if (dash ? c != '-' : !isHex(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * "0x1f", or 8+ hex digits mixing digits and letters: "a3f9c2e1" is an
+     * id, "accepted" or "facade" stay text and "12345678" is a number (&lt;n&gt;,
+     * like any shorter number, so it does not change the fingerprint).
+     */
+    private static boolean isHexId(CharSequence message, int start, int end) {
+        int length = end - start;
+        if (length > 2 && message.charAt(start) == '0'
+                && (message.charAt(start + 1) == 'x' || message.charAt(start + 1) == 'X')) {
+            return allHex(message, start + 2, end);
+        }
+        if (length < MIN_HEX_ID_LENGTH || !allHex(message, start, end)) {
+            return false;
+        }
+        boolean digit = false;
+        boolean letter = false;
+        for (int i = start; i < end; i++) {
+            if (message.charAt(i) <= '9') {
+                digit = true;
+            } else {
+                letter = true;
+            }
+        }
+        return digit && letter;
+    }
+    
+    private static boolean allHex(CharSequence message, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!isHex(message.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static boolean isHex(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+    
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '-';
+    }
+}
@@ -0,0 +1,49 @@
+package com.logprocessing;
+
+/**
+ * STEP 22: Overflow (Load-Shedding) Policies
+ * 
+ * What LogQueue.addLog() does when the queue is full.
+ * 
+ * <pre>
+ * BLOCK             - producer waits for room (classic backpressure, the default)
+ * DROP_NEWEST       - the incoming log is discarded
+ * DROP_OLDEST       - the oldest queued log is evicted to make room
+ * SHED_LOWEST_LEVEL - evict the oldest log of the least severe queued level,
+ *                     if it is less severe than the incoming one (UNKNOWN, INFO,
+ *                     WARNING, then ERROR); ERROR is never dropped
+ * SAMPLE            - random early drop: above the high-water mark non-ERROR logs
+ *                     are admitted with probability sampleRate; when full they
+ *                     are dropped and an ERROR evicts like SHED_LOWEST_LEVEL
+ * </pre>
+ * 
+ * WHY THIS DESIGN:
+ * - During an incident INFO volume spikes with ERRORs; blocking slows every
+ *   producer, including the ones reporting the errors
+ * - Shedding keeps producers at full speed and spends the capacity on the
+ *   logs that matter; every drop is counted per level
+ * 
+ * ERROR GUARANTEE (SHED_LOWEST_LEVEL, SAMPLE): an ERROR only waits when the
+ * queue holds nothing but ERRORs - that is real overload, and blocking is
+ * the honest answer.
+ */
+public enum OverflowPolicy {
+    BLOCK,
+    DROP_NEWEST,
+    DROP_OLDEST,
+    SHED_LOWEST_LEVEL,
+    SAMPLE;
+    
+    /**
+     * Parses "drop-oldest", "DROP_OLDEST", "shed-lowest-level", ...
+     */
+    static OverflowPolicy fromName(String name) {
+        String normalized = name.trim().toUpperCase().replace('-', '_');
+        for (OverflowPolicy policy : values()) {
+            if (policy.name().equals(normalized)) {
+                return policy;
+            }
+        }
+        throw new IllegalArgumentException("Unknown overflow policy: " + name);
+    }
+}
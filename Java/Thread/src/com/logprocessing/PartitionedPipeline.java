@@ -0,0 +1,367 @@
+package com.logprocessing;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * STEP 32: Source-Partitioned Pipeline
+ * 
+ * Every log of a source is processed by the same owner thread, which keeps
+ * that partition's metrics and alert window to itself:
+ * 
+ * <pre>
+ *                         ┌→ inbox 0 → [owner 0] → metrics 0, alert window 0
+ * input queue → [router] ─┼→ inbox 1 → [owner 1] → metrics 1, alert window 1
+ *   (source id mod n)     └→ inbox 2 → [owner 2] → metrics 2, alert window 2
+ * </pre>
+ * 
+ * KEY CONCEPTS:
+ * - Single writer: each partition's ProcessingMetrics and
+ *   StreamingAlertEvaluator are written by one thread only, so their atomics
+ *   and lock are never contended and their cache lines stay on one core
+ * - Merge on read: snapshots of the partitions are combined only when
+ *   someone asks (report, /metrics), not on every log
+ * - Per-source ordering: one router, FIFO inboxes and one owner per
+ *   partition, so a source's logs complete in the order they were queued
+ * - Backpressure: the router blocks on a full inbox, the input queue fills,
+ *   producers block
+ * 
+ * WHY THIS DESIGN:
+ * - With shared metrics, every worker writes the same counters and window
+ *   buckets; under load those cache lines move between cores on every log
+ * - Downstream consumers need a source's logs in order; workers racing on
+ *   one queue finish them in any order
+ * 
+ * TRADE-OFFS:
+ * - A source can use only one thread: a single hot source is limited to one
+ *   owner's throughput, and skewed sources leave other owners idle
+ * - One full inbox blocks the router for every partition (head-of-line
+ *   blocking); that is the price of keeping order with bounded memory
+ * - Alert windows are per partition: the last N logs of that partition's
+ *   sources, not of the whole system
+ * 
+ * SHUTDOWN:
+ * The router stops taking input; each owner drains its inbox and exits once
+ * the router has exited, so routed logs are finished unless the timeout passes.
+ */
+public class PartitionedPipeline {
+    
+    /**
+     * Callbacks from the router and owner threads.
+     */
+    public interface Listener {
+        /** The router took a log from the input queue */
+        void onAccepted(Log log);
+        
+        /**
+         * An owner finished a log (its partition's metrics and alert window
+         * are already updated).
+         * 
+         * @param busyNanos time spent in the processing stages
+         */
+        void onCompleted(Log log, int partition, long busyNanos);
+    }
+    
+    /**
+     * Alert callback with the partition that raised it.
+     */
+    public interface PartitionAlertListener {
+        void onAlert(int partition, AlertEvaluationService.AlertResult result);
+    }
+    
+    private static final ProcessingStage[] STAGES = ProcessingStage.inOrder();
+    private static final long POLL_TIMEOUT_MS = 100; // Re-check shutdown while idle
+    private static final int ROUTE_BATCH = 32;       // Logs per input queue take
+    
+    private final BlockingLogQueue input;
+    private final int inboxCapacity;
+    private final boolean alertWindows;
+    private final StageTimers timers;
+    private final Listener listener;
+    private final Partition[] partitions;
+    
+    private final ExecutorService routerExecutor;
+    private final ExecutorService ownerExecutor;
+    private volatile boolean stopping = false;
+    private volatile boolean routerExited = false;
+    
+    /**
+     * One owner thread's state. Everything but the inbox is written by the
+     * owner only; other threads only read it (snapshots, monitor).
+     */
+    private static final class Partition {
+        private final BlockingQueue<Log> inbox;
+        private final ProcessingMetrics metrics;
+        private final StreamingAlertEvaluator alerts;
+        private volatile long processed = 0;
+        private volatile int peakDepth = 0; // Written by the router only
+        
+        private Partition(int inboxCapacity, AlertEvaluationService alertService, int alertWindowSize) {
+            this.inbox = new ArrayBlockingQueue<>(inboxCapacity);
+            this.metrics = new ProcessingMetrics();
+            this.alerts = new StreamingAlertEvaluator(alertService, alertWindowSize);
+        }
+    }
+    
+    /**
+     * @param partitionCount  owner threads (and partitions)
+     * @param inboxCapacity   bound of each partition's inbox
+     * @param alertWindowSize logs per partition alert window
+     * @param alertWindows    false when alerts are evaluated elsewhere (dedup):
+     *                        owners then skip their alert window
+     */
+    public PartitionedPipeline(BlockingLogQueue input, int partitionCount, int inboxCapacity,
+                               AlertEvaluationService alertService, int alertWindowSize, boolean alertWindows,
+                               StageTimers timers, Listener listener) {
+        if (partitionCount < 1) {
+            throw new IllegalArgumentException("Need at least 1 partition: " + partitionCount);
+        }
+        this.input = input;
+        this.inboxCapacity = inboxCapacity;
+        this.alertWindows = alertWindows;
+        this.timers = timers;
+        this.listener = listener;
+        this.partitions = new Partition[partitionCount];
+        for (int i = 0; i < partitionCount; i++) {
+            partitions[i] = new Partition(inboxCapacity, alertService, alertWindowSize);
+        }
+        this.routerExecutor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "partition-router"));
+        final AtomicInteger threadNumber = new AtomicInteger(0);
+        this.ownerExecutor = Executors.newFixedThreadPool(
+            partitionCount,
+            runnable -> new Thread(runnable, "partition-owner-" + threadNumber.getAndIncrement())
+        );
+    }
+    
+    /**
+     * Registers a callback invoked (asynchronously) each time any
+     * partition's alert window raises an alert.
+     */
+    public void onAlert(PartitionAlertListener listener) {
+        for (int i = 0; i < partitions.length; i++) {
+            final int partition = i;
+            partitions[i].alerts.onAlert(result -> listener.onAlert(partition, result));
+        }
+    }
+    
+    /**
+     * Partition of a source: registered ids are dense, so id mod n spreads
+     * them evenly; unregistered sources fall back to the name's hash.
+     */
+    public static int partitionOf(int sourceId, String source, int partitionCount) {
+        if (sourceId >= 0) {
+            return sourceId % partitionCount;
+        }
+        return source != null ? Math.floorMod(source.hashCode(), partitionCount) : 0;
+    }
+    
+    public void start() {
+        for (int i = 0; i < partitions.length; i++) {
+            final int partition = i;
+            ownerExecutor.execute(() -> runOwner(partition));
+        }
+        routerExecutor.execute(this::runRouter);
+        System.out.println(
+            String.format(
+                "[PartitionedPipeline] Started: router → %d partitions (inboxes: %d)",
+                partitions.length,
+                inboxCapacity
+            )
+        );
+    }
+    
+    private void runRouter() {
+        try {
+            while (!stopping) {
+                List<Log> logs = input.takeBatch(1, ROUTE_BATCH, POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                for (Log log : logs) {
+                    listener.onAccepted(log);
+                    Partition partition = partitions[partitionOf(log.getSourceId(), log.getSource(), partitions.length)];
+                    partition.inbox.put(log); // Blocks while the owner is behind: backpressure
+                    int depth = partition.inbox.size();
+                    if (depth > partition.peakDepth) {
+                        partition.peakDepth = depth;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            // Forced shutdown: logs taken in the current batch but not routed are abandoned
+            Thread.currentThread().interrupt();
+        } finally {
+            routerExited = true;
+        }
+    }
+    
+    private void runOwner(int index) {
+        Partition partition = partitions[index];
+        try {
+            while (true) {
+                Log log = partition.inbox.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (log == null) {
+                    // The router's last put() happens before routerExited is set
+                    if (routerExited && partition.inbox.isEmpty()) {
+                        break;
+                    }
+                    continue;
+                }
+                
+                long start = System.nanoTime();
+                long stageStart = start;
+                for (ProcessingStage stage : STAGES) {
+                    stage.simulate();
+                    long stageEnd = System.nanoTime();
+                    timers.record(stage, stageEnd - stageStart);
+                    stageStart = stageEnd;
+                }
+                long busyNanos = stageStart - start;
+                
+                partition.metrics.recordProcessed(log, TimeUnit.NANOSECONDS.toMillis(busyNanos));
+                if (alertWindows) {
+                    partition.alerts.record(log);
+                }
+                partition.processed++; // Single writer: no lost updates
+                listener.onCompleted(log, index, busyNanos);
+            }
+        } catch (InterruptedException e) {
+            // Forced shutdown: logs left in this inbox are abandoned
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Stops taking input and lets routed logs finish.
+     * 
+     * @return true if every partition drained within the timeout
+     */
+    public boolean shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        stopping = true;
+        routerExecutor.shutdown();
+        ownerExecutor.shutdown();
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        boolean drained = routerExecutor.awaitTermination(timeout, unit)
+            && ownerExecutor.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        if (!drained) {
+            int abandoned = getQueued();
+            routerExecutor.shutdownNow();
+            ownerExecutor.shutdownNow();
+            routerExecutor.awaitTermination(5, TimeUnit.SECONDS);
+            ownerExecutor.awaitTermination(5, TimeUnit.SECONDS);
+            System.out.println(
+                String.format(
+                    "[PartitionedPipeline] Drain timed out, interrupted owners (%d logs in inboxes)",
+                    abandoned
+                )
+            );
+        }
+        return drained;
+    }
+    
+    /**
+     * All partitions' metrics, merged now.
+     */
+    public ProcessingMetrics.MetricsSnapshot getMetricsSnapshot() {
+        ProcessingMetrics.MetricsSnapshot merged = partitions[0].metrics.getSnapshot();
+        for (int i = 1; i < partitions.length; i++) {
+            merged = merged.merge(partitions[i].metrics.getSnapshot());
+        }
+        return merged;
+    }
+    
+    public int getPartitionCount() {
+        return partitions.length;
+    }
+    
+    public int getInboxCapacity() {
+        return inboxCapacity;
+    }
+    
+    public int getQueueDepth(int partition) {
+        return partitions[partition].inbox.size();
+    }
+    
+    public long getProcessed(int partition) {
+        return partitions[partition].processed;
+    }
+    
+    public StreamingAlertEvaluator getAlertWindow(int partition) {
+        return partitions[partition].alerts;
+    }
+    
+    public long getAlertsRaised() {
+        long raised = 0;
+        for (Partition partition : partitions) {
+            raised += partition.alerts.getAlertsRaised();
+        }
+        return raised;
+    }
+    
+    public long getAlertsCleared() {
+        long cleared = 0;
+        for (Partition partition : partitions) {
+            cleared += partition.alerts.getAlertsCleared();
+        }
+        return cleared;
+    }
+    
+    /**
+     * Partitions whose alert window is currently alerting.
+     */
+    public int getActiveAlerts() {
+        int active = 0;
+        for (Partition partition : partitions) {
+            if (partition.alerts.isAlertActive()) {
+                active++;
+            }
+        }
+        return active;
+    }
+    
+    private int getQueued() {
+        int queued = 0;
+        for (Partition partition : partitions) {
+            queued += partition.inbox.size();
+        }
+        return queued;
+    }
+    
+    /**
+     * One-line inbox depth per partition, for the periodic monitor.
+     */
+    public String describeDepths() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < partitions.length; i++) {
+            if (sb.length() > 0) {
+                sb.append(" | ");
+            }
+            sb.append(String.format("p%d: %d", i, getQueueDepth(i)));
+        }
+        return sb.toString();
+    }
+    
+    /**
+     * Per-partition processed count, peak inbox depth and alert state.
+     */
+    public String describe() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < partitions.length; i++) {
+            Partition partition = partitions[i];
+            sb.append(
+                String.format(
+                    "  p%-3d processed=%d peak inbox=%d/%d alerts raised=%d%s%n",
+                    i,
+                    partition.processed,
+                    partition.peakDepth,
+                    inboxCapacity,
+                    partition.alerts.getAlertsRaised(),
+                    partition.alerts.isAlertActive() ? " (ALERTING)" : ""
+                )
+            );
+        }
+        return sb.toString();
+    }
+}
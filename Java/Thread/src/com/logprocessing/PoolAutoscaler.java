@@ -0,0 +1,214 @@
+package com.logprocessing;
+
+/**
+ * STEP 21: Closed-Loop Pool Autoscaler
+ * 
+ * Decides how many worker threads the service needs, from what the workers
+ * actually measured in the last interval. LogProcessingService feeds it
+ * cumulative counters and applies the returned size.
+ * 
+ * CONTROL LAW:
+ * <pre>
+ * λ (arrival rate)  = completed/s + queue growth/s
+ * S (service time)  = busy time / completed
+ * Little's law      : busy workers L = λ × S   → size for L / targetUtilization
+ * Backlog           : + queueDepth × S / DRAIN_HORIZON_SECONDS
+ * CPU cap (Goetz)   : cores × targetUtilization × (1 + wait/compute)
+ * </pre>
+ * 
+ * HYSTERESIS (no flapping):
+ * - Dead band: changes smaller than ~10% of the pool (min 1 thread) are ignored
+ * - Confirmation: grow after UP_CONFIRMATIONS agreeing samples, shrink after
+ *   DOWN_CONFIRMATIONS (shrinking is cheap to undo but slower to be sure of)
+ * - Step limits: at most ×2 up, at most -25% down per decision
+ * 
+ * WHY THIS DESIGN:
+ * - cores × 2 is right for exactly one wait/compute ratio and one load level
+ * - The monitor used to print "consider increasing pool size" and stop there
+ * 
+ * THREAD SAFETY:
+ * - NOT thread-safe; called from the single autoscaler thread
+ */
+public class PoolAutoscaler {
+    
+    private static final double DEAD_BAND = 0.10;
+    private static final int UP_CONFIRMATIONS = 2;
+    private static final int DOWN_CONFIRMATIONS = 3;
+    private static final double DRAIN_HORIZON_SECONDS = 10.0;
+    
+    private final int minSize;
+    private final int maxSize;
+    private final double targetUtilization;
+    private final int cores;
+    
+    // Previous cumulative sample
+    private boolean hasPrevious = false;
+    private long prevCompleted;
+    private long prevBusyNanos;
+    private long prevCpuNanos;
+    private int prevQueueDepth;
+    private long prevTimeNanos;
+    
+    // Estimates and hysteresis state
+    private double serviceTimeSeconds = Double.NaN;
+    private double waitComputeRatio = Double.NaN;
+    private double arrivalRate = 0;
+    private int lastDesired;
+    private int upStreak = 0;
+    private int downStreak = 0;
+    private int resizeCount = 0;
+    
+    /**
+     * @param minSize           never shrink below this many workers
+     * @param maxSize           never grow beyond this many workers
+     * @param targetUtilization fraction of time a worker should be busy (0 < u ≤ 1)
+     */
+    public PoolAutoscaler(int minSize, int maxSize, double targetUtilization) {
+        if (minSize < 1 || maxSize < minSize) {
+            throw new IllegalArgumentException(
+                String.format("Invalid bounds: min=%d, max=%d", minSize, maxSize)
+            );
+        }
+        if (targetUtilization <= 0 || targetUtilization > 1) {
+            throw new IllegalArgumentException("Target utilization must be in (0, 1]: " + targetUtilization);
+        }
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.targetUtilization = targetUtilization;
+        this.cores = Runtime.getRuntime().availableProcessors();
+        this.lastDesired = minSize;
+    }
+    
+    /**
+     * Feeds one sample of cumulative counters and returns the pool size to use.
+     * 
+     * @param completed    logs processed since start
+     * @param busyNanos    wall time workers spent processing since start
+     * @param cpuNanos     CPU time workers spent processing since start, or -1 if unknown
+     * @param queueDepth   logs currently waiting in the log queue
+     * @param nowNanos     System.nanoTime() of the sample
+     * @param currentSize  workers currently running
+     * @return new size, or currentSize for no change
+     */
+    public int update(long completed, long busyNanos, long cpuNanos, int queueDepth,
+                      long nowNanos, int currentSize) {
+        if (!hasPrevious) {
+            remember(completed, busyNanos, cpuNanos, queueDepth, nowNanos);
+            hasPrevious = true;
+            return currentSize;
+        }
+        
+        double seconds = (nowNanos - prevTimeNanos) / 1e9;
+        long doneDelta = completed - prevCompleted;
+        long busyDelta = busyNanos - prevBusyNanos;
+        long cpuDelta = cpuNanos >= 0 && prevCpuNanos >= 0 ? cpuNanos - prevCpuNanos : -1;
+        int queueGrowth = queueDepth - prevQueueDepth;
+        remember(completed, busyNanos, cpuNanos, queueDepth, nowNanos);
+        if (seconds <= 0) {
+            return currentSize;
+        }
+        
+        // Estimates carry over idle intervals: no completions, no new service time
+        if (doneDelta > 0) {
+            serviceTimeSeconds = busyDelta / 1e9 / doneDelta;
+            if (cpuDelta > 0) {
+                waitComputeRatio = Math.max(0, (double) (busyDelta - cpuDelta) / cpuDelta);
+            }
+        }
+        arrivalRate = Math.max(0, (doneDelta + queueGrowth) / seconds);
+        if (Double.isNaN(serviceTimeSeconds)) {
+            return currentSize; // Nothing measured yet
+        }
+        
+        double busyWorkers = arrivalRate * serviceTimeSeconds;                        // Little's law
+        double backlogWorkers = queueDepth * serviceTimeSeconds / DRAIN_HORIZON_SECONDS;
+        double desired = busyWorkers / targetUtilization + backlogWorkers;
+        if (!Double.isNaN(waitComputeRatio)) {
+            // Beyond this, extra threads only queue for CPU
+            desired = Math.min(desired, cores * targetUtilization * (1 + waitComputeRatio));
+        }
+        lastDesired = clamp((int) Math.ceil(desired));
+        
+        int deadBand = Math.max(1, (int) Math.round(currentSize * DEAD_BAND));
+        if (lastDesired >= currentSize + deadBand) {
+            upStreak++;
+            downStreak = 0;
+        } else if (lastDesired <= currentSize - deadBand) {
+            downStreak++;
+            upStreak = 0;
+        } else {
+            upStreak = 0;
+            downStreak = 0;
+        }
+        
+        int newSize = currentSize;
+        if (upStreak >= UP_CONFIRMATIONS) {
+            newSize = Math.min(lastDesired, currentSize * 2);
+        } else if (downStreak >= DOWN_CONFIRMATIONS) {
+            newSize = Math.max(lastDesired, currentSize - Math.max(1, currentSize / 4));
+        }
+        newSize = clamp(newSize);
+        if (newSize != currentSize) {
+            upStreak = 0;
+            downStreak = 0;
+            resizeCount++;
+        }
+        return newSize;
+    }
+    
+    private void remember(long completed, long busyNanos, long cpuNanos, int queueDepth, long nowNanos) {
+        prevCompleted = completed;
+        prevBusyNanos = busyNanos;
+        prevCpuNanos = cpuNanos;
+        prevQueueDepth = queueDepth;
+        prevTimeNanos = nowNanos;
+    }
+    
+    private int clamp(int size) {
+        return Math.max(minSize, Math.min(maxSize, size));
+    }
+    
+    public int getMinSize() {
+        return minSize;
+    }
+    
+    public int getMaxSize() {
+        return maxSize;
+    }
+    
+    /** Size the control law asked for in the last sample, before hysteresis */
+    public int getLastDesired() {
+        return lastDesired;
+    }
+    
+    public double getArrivalRate() {
+        return arrivalRate;
+    }
+    
+    public double getServiceTimeSeconds() {
+        return serviceTimeSeconds;
+    }
+    
+    /** NaN until CPU time has been measured */
+    public double getWaitComputeRatio() {
+        return waitComputeRatio;
+    }
+    
+    public int getResizeCount() {
+        return resizeCount;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format(
+            "PoolAutoscaler[λ=%.1f/s, S=%.1fms, W/C=%.1f, desired=%d, bounds=%d..%d, resizes=%d]",
+            arrivalRate,
+            serviceTimeSeconds * 1000,
+            waitComputeRatio,
+            lastDesired,
+            minSize,
+            maxSize,
+            resizeCount
+        );
+    }
+}
@@ -0,0 +1,213 @@
+package com.logprocessing;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * STEP 23: Multi-Lane Priority Queue (Deficit Round Robin)
+ * 
+ * One FIFO lane per LogLevel. Consumers dequeue with deficit round robin:
+ * 
+ * <pre>
+ * lanes:   ERROR   WARNING   INFO   UNKNOWN
+ * quantum:   8        4        2       1      (logs per round)
+ * 
+ * A lane's turn: deficit += quantum, serve while deficit > 0 and lane non-empty,
+ * then move to the next lane. An empty lane forfeits its deficit.
+ * </pre>
+ * 
+ * KEY CONCEPTS:
+ * - Bounded latency for severe logs: when every lane is backlogged, ERROR gets
+ *   8 of every 15 dequeues, however deep the INFO lane is
+ * - No starvation: every non-empty lane is served at least `quantum` logs per round
+ * - Work conserving: lanes with nothing queued cost nothing
+ * - Per-lane capacity: a flood of INFO blocks only INFO producers
+ * 
+ * WHY THIS DESIGN:
+ * - LogQueue is strictly FIFO: an ERROR waits behind every INFO queued before it
+ * - Strict priority (always ERROR first) would starve INFO under a long incident
+ * 
+ * ORDERING: FIFO within a level, not across levels.
+ */
+public class PriorityLaneLogQueue implements BlockingLogQueue {
+    
+    /** Logs per round, indexed by LogLevel ordinal (ERROR, WARNING, INFO, UNKNOWN) */
+    private static final int[] DEFAULT_QUANTA = {8, 4, 2, 1};
+    
+    private final ArrayDeque<Log>[] lanes;
+    private final int laneCapacity;
+    private final int[] quanta;
+    private final Object lock = new Object();
+    
+    // DRR state, guarded by lock
+    private final int[] deficits = new int[LogLevel.COUNT];
+    private int currentLane = 0;
+    private int totalSize = 0;
+    private final long[] served = new long[LogLevel.COUNT];
+    
+    public PriorityLaneLogQueue(int laneCapacity) {
+        this(laneCapacity, DEFAULT_QUANTA);
+    }
+    
+    /**
+     * @param laneCapacity max logs per lane
+     * @param quanta       logs served per round, indexed by LogLevel ordinal
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"}) // Generic array creation
+    public PriorityLaneLogQueue(int laneCapacity, int[] quanta) {
+        if (laneCapacity < 1) {
+            throw new IllegalArgumentException("Lane capacity must be positive: " + laneCapacity);
+        }
+        if (quanta.length != LogLevel.COUNT) {
+            throw new IllegalArgumentException(
+                String.format("Expected %d quanta, got %d", LogLevel.COUNT, quanta.length)
+            );
+        }
+        for (int quantum : quanta) {
+            if (quantum < 1) {
+                throw new IllegalArgumentException("Quanta must be positive: " + Arrays.toString(quanta));
+            }
+        }
+        this.laneCapacity = laneCapacity;
+        this.quanta = quanta.clone();
+        this.lanes = new ArrayDeque[LogLevel.COUNT];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new ArrayDeque<>();
+        }
+    }
+    
+    /**
+     * Blocks only while this log's own lane is full.
+     */
+    @Override
+    public void addLog(Log log) throws InterruptedException {
+        ArrayDeque<Log> lane = lanes[log.getLogLevel().ordinal()];
+        synchronized (lock) {
+            while (lane.size() >= laneCapacity) {
+                lock.wait();
+            }
+            lane.addLast(log);
+            totalSize++;
+            lock.notifyAll();
+        }
+    }
+    
+    @Override
+    public Log takeLog() throws InterruptedException {
+        synchronized (lock) {
+            while (totalSize == 0) {
+                lock.wait();
+            }
+            Log log = pollLocked();
+            lock.notifyAll(); // Room in that lane
+            return log;
+        }
+    }
+    
+    @Override
+    public List<Log> takeBatch(int min, int max, long timeout, TimeUnit unit) throws InterruptedException {
+        if (min < 0 || max < 1 || min > max) {
+            throw new IllegalArgumentException(
+                String.format("Invalid batch bounds: min=%d, max=%d", min, max)
+            );
+        }
+        long remainingNanos = unit.toNanos(timeout);
+        synchronized (lock) {
+            long deadline = System.nanoTime() + remainingNanos;
+            while (totalSize < min && remainingNanos > 0) {
+                TimeUnit.NANOSECONDS.timedWait(lock, remainingNanos);
+                remainingNanos = deadline - System.nanoTime();
+            }
+            List<Log> batch = new ArrayList<>(Math.min(max, totalSize));
+            drainLocked(batch, max);
+            return batch;
+        }
+    }
+    
+    @Override
+    public int drainTo(Collection<? super Log> target, int max) {
+        synchronized (lock) {
+            return drainLocked(target, max);
+        }
+    }
+    
+    // Caller must hold lock
+    private int drainLocked(Collection<? super Log> target, int max) {
+        int drained = 0;
+        while (drained < max && totalSize > 0) {
+            target.add(pollLocked());
+            drained++;
+        }
+        if (drained > 0) {
+            lock.notifyAll();
+        }
+        return drained;
+    }
+    
+    /**
+     * Deficit round robin, one log at a time. Caller must hold lock and
+     * ensure totalSize > 0 (so the loop always finds a non-empty lane).
+     */
+    private Log pollLocked() {
+        while (true) {
+            ArrayDeque<Log> lane = lanes[currentLane];
+            if (lane.isEmpty()) {
+                deficits[currentLane] = 0; // Idle lanes don't bank credit
+                nextLane();
+                continue;
+            }
+            if (deficits[currentLane] == 0) {
+                deficits[currentLane] = quanta[currentLane]; // Start of this lane's turn
+            }
+            Log log = lane.pollFirst();
+            totalSize--;
+            served[currentLane]++;
+            if (--deficits[currentLane] == 0 || lane.isEmpty()) {
+                deficits[currentLane] = 0;
+                nextLane();
+            }
+            return log;
+        }
+    }
+    
+    private void nextLane() {
+        currentLane = (currentLane + 1) % lanes.length;
+    }
+    
+    @Override
+    public int size() {
+        synchronized (lock) {
+            return totalSize;
+        }
+    }
+    
+    @Override
+    public boolean isEmpty() {
+        synchronized (lock) {
+            return totalSize == 0;
+        }
+    }
+    
+    public int laneSize(LogLevel level) {
+        synchronized (lock) {
+            return lanes[level.ordinal()].size();
+        }
+    }
+    
+    /**
+     * Logs dequeued from a lane since creation.
+     */
+    public long getServedCount(LogLevel level) {
+        synchronized (lock) {
+            return served[level.ordinal()];
+        }
+    }
+    
+    public int getLaneCapacity() {
+        return laneCapacity;
+    }
+}
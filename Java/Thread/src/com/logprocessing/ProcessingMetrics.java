@@ -1,9 +1,15 @@
 package com.logprocessing;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * STEP 4: Thread-Safe Metrics Collector
@@ -12,8 +18,10 @@ import java.util.concurrent.atomic.AtomicLong;
  * 
  * KEY CONCEPTS:
  * - AtomicInteger/AtomicLong: Thread-safe counters (lock-free)
- * - ConcurrentHashMap: Thread-safe map for concurrent access
- * - synchronized blocks: For complex operations that need atomicity
+ * - Primitive counter arrays: Indexed by LogLevel ordinal / SourceRegistry id
+ * - HeavyHitterSketch: Bounded top-K for sources beyond the registry capacity
+ * - RollingWindow: Recent (1s / 1m / 5m) rates and percentiles
+ * - LatencyHistogram: Lock-free striped histogram for min/max/percentiles
  * 
  * WHY THIS DESIGN:
  * - Multiple worker threads update metrics concurrently
@@ -30,21 +38,38 @@ public class ProcessingMetrics {
     // AtomicInteger: Thread-safe counter (uses CAS - Compare-And-Swap)
     // No locking needed - very efficient for simple increments
     private final AtomicInteger totalProcessed = new AtomicInteger(0);
-    private final AtomicInteger errorCount = new AtomicInteger(0);
-    private final AtomicInteger warningCount = new AtomicInteger(0);
-    private final AtomicInteger infoCount = new AtomicInteger(0);
+    
+    // Per-level counters indexed by LogLevel.ordinal(), one cache line apart
+    // so ERROR and INFO increments from different cores don't false-share
+    private static final int LEVEL_STRIDE = 8;
+    private final AtomicLongArray levelCounts = new AtomicLongArray(LogLevel.COUNT * LEVEL_STRIDE);
     
     // AtomicLong for timestamps (64-bit)
     private final AtomicLong totalProcessingTime = new AtomicLong(0);
     
-    // ConcurrentHashMap: Thread-safe map
-    // Multiple threads can read/write concurrently without locking
-    private final Map<String, AtomicInteger> logsBySource = new ConcurrentHashMap<>();
+    // Per-source counts indexed by SourceRegistry id: no hashing on the hot
+    // path. LongAdder, not a dense atomic array: neighbouring ids would share
+    // a cache line, and one hot source stripes over cells instead of one
+    // contended slot. Always the global registry: Log and LogBatch carry
+    // ids interned there.
+    private final SourceRegistry sourceRegistry = SourceRegistry.global();
+    private final LongAdder[] countsBySourceId = newCounters(sourceRegistry.capacity());
+    
+    // Sources beyond the registry's capacity: bounded top-K (Space-Saving)
+    private static final int TRACKED_SOURCES = 64;
+    private static final int REPORTED_SOURCES = 10;
+    private final HeavyHitterSketch overflowSources = new HeavyHitterSketch(TRACKED_SOURCES);
+    
+    // Lock-free latency histogram (ms): replaces the synchronized min/max block
+    // that serialized every worker on one monitor
+    private final LatencyHistogram latencyHistogram = new LatencyHistogram();
     
-    // For complex operations, we use synchronized blocks
-    private final Object statsLock = new Object();
-    private int maxProcessingTime = 0;
-    private int minProcessingTime = Integer.MAX_VALUE;
+    // Rolling windows: recent load, not lifetime totals
+    private final List<RollingWindow> windows = Arrays.asList(
+        new RollingWindow("1s", 10, 100),    // 10 × 100ms buckets
+        new RollingWindow("1m", 60, 1000),   // 60 × 1s buckets
+        new RollingWindow("5m", 60, 5000)    // 60 × 5s buckets
+    );
     
     /**
      * Records a processed log with its level.
@@ -58,50 +83,166 @@ public class ProcessingMetrics {
      * - Thread 2: Reads current value (6), increments to 7, writes 7
      * - No lost updates because increment is atomic
      */
+    public void recordProcessed(Log log, long processingTimeMs) {
+        // Level and source id were interned when the Log was created
+        record(log.getLogLevel(), log.getSourceId(), log.getSource(), processingTimeMs);
+    }
+    
+    /**
+     * Records a processed log from raw level/source strings (parses and interns them).
+     */
     public void recordProcessed(String logLevel, String source, long processingTimeMs) {
+        record(LogLevel.parse(logLevel), sourceRegistry.idOf(source), source, processingTimeMs);
+    }
+    
+    /**
+     * Allocation-free: atomic increments on primitive arrays indexed by
+     * level ordinal and source id.
+     */
+    private void record(LogLevel level, int sourceId, String source, long processingTimeMs) {
         // Atomic operations - no synchronization needed
         totalProcessed.incrementAndGet();
         totalProcessingTime.addAndGet(processingTimeMs);
         
-        // Update level-specific counters
-        switch (logLevel.toUpperCase()) {
-            case "ERROR":
-                errorCount.incrementAndGet();
-                break;
-            case "WARNING":
-                warningCount.incrementAndGet();
-                break;
-            case "INFO":
-                infoCount.incrementAndGet();
-                break;
+        // UNKNOWN is counted too, but only reported as part of the total
+        levelCounts.incrementAndGet(level.ordinal() * LEVEL_STRIDE);
+        countSource(sourceId, source);
+        
+        // Min/max/percentiles: one striped atomic increment, no lock
+        latencyHistogram.record(processingTimeMs);
+        
+        boolean error = level == LogLevel.ERROR;
+        boolean warning = level == LogLevel.WARNING;
+        for (RollingWindow window : windows) {
+            window.record(error, warning, processingTimeMs);
+        }
+    }
+    
+    /**
+     * Records every row of a columnar batch.
+     * 
+     * Level counts are summed locally and published with one atomic add per
+     * level; the windows see one bucket update per batch instead of per row.
+     * 
+     * @param processingTimesMs per-row processing time, indexed like the batch
+     */
+    public void recordBatch(LogBatch batch, long[] processingTimesMs) {
+        recordRows(batch, processingTimesMs, batch.size(), true);
+    }
+    
+    /**
+     * Records rows that were not processed by a worker (bulk ingestion of
+     * historical logs): lifetime level and source counts only. No processing
+     * time, so a backfill does not drag the latency percentiles toward 0,
+     * and no rolling windows, which describe live load: hours of old logs
+     * read in seconds would show as a huge current rate and error spike.
+     * (The lifetime average still divides by every row.)
+     */
+    public void recordIngested(LogBatch batch) {
+        recordRows(batch, null, 0, false);
+    }
+    
+    /**
+     * @param timedRows rows [0, timedRows) have a processing time
+     * @param live      rows happened now and belong in the rolling windows
+     */
+    private void recordRows(LogBatch batch, long[] processingTimesMs, int timedRows, boolean live) {
+        int rows = batch.size();
+        if (rows == 0) {
+            return;
         }
+        long[] perLevel = new long[LogLevel.COUNT];
+        batch.countLevels(perLevel);
         
-        // ConcurrentHashMap: Thread-safe putIfAbsent + increment pattern
-        // If source doesn't exist, create new counter
-        // If exists, increment existing counter
-        logsBySource.computeIfAbsent(source, k -> new AtomicInteger(0))
-                   .incrementAndGet();
+        long totalTime = 0;
+        for (int i = 0; i < timedRows; i++) {
+            totalTime += processingTimesMs[i];
+            latencyHistogram.record(processingTimesMs[i]);
+        }
+        for (int i = 0; i < rows; i++) {
+            int sourceId = batch.getSourceId(i);
+            countSource(sourceId, sourceId >= 0 ? null : batch.getSource(i));
+        }
         
-        // For complex operations (min/max), use synchronized block
-        // This ensures the entire read-check-update is atomic
-        synchronized (statsLock) {
-            if (processingTimeMs > maxProcessingTime) {
-                maxProcessingTime = (int) processingTimeMs;
-            }
-            if (processingTimeMs < minProcessingTime) {
-                minProcessingTime = (int) processingTimeMs;
+        totalProcessed.addAndGet(rows);
+        totalProcessingTime.addAndGet(totalTime);
+        for (int level = 0; level < LogLevel.COUNT; level++) {
+            if (perLevel[level] > 0) {
+                levelCounts.addAndGet(level * LEVEL_STRIDE, perLevel[level]);
             }
         }
+        
+        if (!live) {
+            return;
+        }
+        long errors = perLevel[LogLevel.ERROR.ordinal()];
+        long warnings = perLevel[LogLevel.WARNING.ordinal()];
+        for (RollingWindow window : windows) {
+            window.recordBatch(rows, errors, warnings, processingTimesMs, timedRows);
+        }
     }
     
     /**
      * Records an error during processing.
      */
     public void recordError(String source) {
-        errorCount.incrementAndGet();
+        levelCounts.incrementAndGet(LogLevel.ERROR.ordinal() * LEVEL_STRIDE);
         totalProcessed.incrementAndGet();
-        logsBySource.computeIfAbsent(source, k -> new AtomicInteger(0))
-                   .incrementAndGet();
+        countSource(sourceRegistry.idOf(source), source);
+        
+        for (RollingWindow window : windows) {
+            window.record(true, false, -1);
+        }
+    }
+    
+    private void countSource(int sourceId, String source) {
+        if (sourceId >= 0) {
+            countsBySourceId[sourceId].increment();
+        } else if (source != null) {
+            // Registry full: fall back to the bounded sketch
+            overflowSources.offer(source);
+        }
+    }
+    
+    private static LongAdder[] newCounters(int count) {
+        LongAdder[] counters = new LongAdder[count];
+        for (int i = 0; i < count; i++) {
+            counters[i] = new LongAdder();
+        }
+        return counters;
+    }
+    
+    private long levelCount(LogLevel level) {
+        return levelCounts.get(level.ordinal() * LEVEL_STRIDE);
+    }
+    
+    /**
+     * Highest per-source counts: exact for registered sources, approximate
+     * (with error bounds) for overflow sources.
+     */
+    private List<HeavyHitterSketch.HeavyHitter> topSources(int k) {
+        List<HeavyHitterSketch.HeavyHitter> all = new ArrayList<>();
+        int registered = sourceRegistry.size();
+        for (int id = 0; id < registered; id++) {
+            long count = countsBySourceId[id].sum();
+            if (count > 0) {
+                all.add(new HeavyHitterSketch.HeavyHitter(sourceRegistry.nameOf(id), count, 0));
+            }
+        }
+        all.addAll(overflowSources.topK(k));
+        Collections.sort(all, (a, b) -> Long.compare(b.getCount(), a.getCount()));
+        return all.size() > k ? new ArrayList<>(all.subList(0, k)) : all;
+    }
+    
+    /**
+     * Current rates and percentiles for each rolling window (1s, 1m, 5m).
+     */
+    public List<RollingWindow.WindowSnapshot> getWindowSnapshots() {
+        List<RollingWindow.WindowSnapshot> snapshots = new ArrayList<>(windows.size());
+        for (RollingWindow window : windows) {
+            snapshots.add(window.snapshot());
+        }
+        return snapshots;
     }
     
     /**
@@ -110,21 +251,22 @@ public class ProcessingMetrics {
      * THREAD SAFETY:
      * - Individual reads are safe (AtomicInteger.get() is thread-safe)
      * - But snapshot might be slightly inconsistent (metrics change during read)
-     * - For production, might want to synchronize entire snapshot
+     * - Recording never blocks on snapshots: there is no shared lock
      */
     public MetricsSnapshot getSnapshot() {
-        synchronized (statsLock) {
-            return new MetricsSnapshot(
-                totalProcessed.get(),
-                errorCount.get(),
-                warningCount.get(),
-                infoCount.get(),
-                totalProcessingTime.get(),
-                maxProcessingTime,
-                minProcessingTime == Integer.MAX_VALUE ? 0 : minProcessingTime,
-                new ConcurrentHashMap<>(logsBySource) // Copy for safety
-            );
-        }
+        LatencyHistogram.Snapshot latency = latencyHistogram.snapshot();
+        return new MetricsSnapshot(
+            totalProcessed.get(),
+            (int) levelCount(LogLevel.ERROR),
+            (int) levelCount(LogLevel.WARNING),
+            (int) levelCount(LogLevel.INFO),
+            totalProcessingTime.get(),
+            (int) latency.getMax(),
+            (int) latency.getMin(),
+            topSources(REPORTED_SOURCES),
+            latency,
+            getWindowSnapshots()
+        );
     }
     
     /**
@@ -138,12 +280,16 @@ public class ProcessingMetrics {
         private final long totalProcessingTime;
         private final int maxProcessingTime;
         private final int minProcessingTime;
-        private final Map<String, AtomicInteger> logsBySource;
+        private final List<HeavyHitterSketch.HeavyHitter> topSources;
+        private final LatencyHistogram.Snapshot latency;
+        private final List<RollingWindow.WindowSnapshot> windows;
         
         public MetricsSnapshot(int totalProcessed, int errorCount, int warningCount,
                               int infoCount, long totalProcessingTime,
                               int maxProcessingTime, int minProcessingTime,
-                              Map<String, AtomicInteger> logsBySource) {
+                              List<HeavyHitterSketch.HeavyHitter> topSources,
+                              LatencyHistogram.Snapshot latency,
+                              List<RollingWindow.WindowSnapshot> windows) {
             this.totalProcessed = totalProcessed;
             this.errorCount = errorCount;
             this.warningCount = warningCount;
@@ -151,7 +297,9 @@ public class ProcessingMetrics {
             this.totalProcessingTime = totalProcessingTime;
             this.maxProcessingTime = maxProcessingTime;
             this.minProcessingTime = minProcessingTime;
-            this.logsBySource = logsBySource;
+            this.topSources = topSources;
+            this.latency = latency;
+            this.windows = windows;
         }
         
         public int getTotalProcessed() { return totalProcessed; }
@@ -161,16 +309,69 @@ public class ProcessingMetrics {
         public long getTotalProcessingTime() { return totalProcessingTime; }
         public int getMaxProcessingTime() { return maxProcessingTime; }
         public int getMinProcessingTime() { return minProcessingTime; }
-        public Map<String, AtomicInteger> getLogsBySource() { return logsBySource; }
+        public List<HeavyHitterSketch.HeavyHitter> getTopSources() { return topSources; }
+        
+        /**
+         * Top sources as source → approximate count, highest first.
+         */
+        public Map<String, Long> getLogsBySource() {
+            Map<String, Long> bySource = new LinkedHashMap<>();
+            for (HeavyHitterSketch.HeavyHitter hitter : topSources) {
+                bySource.put(hitter.getKey(), hitter.getCount());
+            }
+            return bySource;
+        }
+        public LatencyHistogram.Snapshot getLatency() { return latency; }
+        public List<RollingWindow.WindowSnapshot> getWindows() { return windows; }
+        public long getP50ProcessingTime() { return latency.getP50(); }
+        public long getP90ProcessingTime() { return latency.getP90(); }
+        public long getP99ProcessingTime() { return latency.getP99(); }
+        public long getP999ProcessingTime() { return latency.getP999(); }
         
         public double getAverageProcessingTime() {
             return totalProcessed > 0 ? (double) totalProcessingTime / totalProcessed : 0.0;
         }
         
+        /**
+         * Lifetime error rate. Use getWindows() for the recent rate.
+         */
         public double getErrorRate() {
             return totalProcessed > 0 ? (double) errorCount / totalProcessed * 100 : 0.0;
         }
         
+        /**
+         * Combined view of two collectors (e.g. PartitionedPipeline partitions).
+         * Top sources are exact when the collectors count disjoint sources:
+         * the overall top 10 is then within the union of each one's top 10.
+         */
+        public MetricsSnapshot merge(MetricsSnapshot other) {
+            List<HeavyHitterSketch.HeavyHitter> sources = new ArrayList<>(topSources);
+            sources.addAll(other.topSources);
+            Collections.sort(sources, (a, b) -> Long.compare(b.getCount(), a.getCount()));
+            if (sources.size() > REPORTED_SOURCES) {
+                sources = new ArrayList<>(sources.subList(0, REPORTED_SOURCES));
+            }
+            
+            List<RollingWindow.WindowSnapshot> mergedWindows = new ArrayList<>(windows.size());
+            for (int i = 0; i < windows.size(); i++) {
+                mergedWindows.add(windows.get(i).merge(other.windows.get(i)));
+            }
+            
+            LatencyHistogram.Snapshot mergedLatency = latency.merge(other.latency);
+            return new MetricsSnapshot(
+                totalProcessed + other.totalProcessed,
+                errorCount + other.errorCount,
+                warningCount + other.warningCount,
+                infoCount + other.infoCount,
+                totalProcessingTime + other.totalProcessingTime,
+                (int) mergedLatency.getMax(),
+                (int) mergedLatency.getMin(),
+                sources,
+                mergedLatency,
+                mergedWindows
+            );
+        }
+        
         @Override
         public String toString() {
             StringBuilder sb = new StringBuilder();
@@ -181,9 +382,15 @@ public class ProcessingMetrics {
             sb.append(String.format("  - Info: %d\n", infoCount));
             sb.append(String.format("Avg Processing Time: %.2f ms\n", getAverageProcessingTime()));
             sb.append(String.format("Min/Max Processing Time: %d / %d ms\n", minProcessingTime, maxProcessingTime));
-            sb.append("\nLogs by Source:\n");
-            logsBySource.forEach((source, count) -> 
-                sb.append(String.format("  %s: %d\n", source, count.get()))
+            sb.append(String.format("Percentiles: p50=%d p90=%d p99=%d p99.9=%d max=%d ms\n",
+                latency.getP50(), latency.getP90(), latency.getP99(), latency.getP999(), latency.getMax()));
+            sb.append("\nRecent Windows:\n");
+            windows.forEach(window -> 
+                sb.append(String.format("  %s\n", window))
+            );
+            sb.append("\nTop Sources:\n");
+            topSources.forEach(hitter -> 
+                sb.append(String.format("  %s\n", hitter))
             );
             return sb.toString();
         }
@@ -0,0 +1,78 @@
+package com.logprocessing;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * STEP 26: Processing Stages
+ * 
+ * The four steps of processing one log, in order, with their simulated cost.
+ * 
+ * <pre>
+ *            kind  per log  per batch (GroupCommitSink)
+ * PARSE      CPU   20ms     -
+ * DB_WRITE   I/O   50ms     50ms + 1ms/row
+ * NETWORK    I/O   30ms     30ms + 0.5ms/row
+ * VALIDATION CPU   10ms     -
+ * </pre>
+ * 
+ * A round trip costs the same for one row or many; only the per-row part
+ * grows with the batch.
+ */
+public enum ProcessingStage {
+    PARSE("parse", 20, 0, false),
+    DB_WRITE("db_write", 50, 1000, true),
+    NETWORK("network", 30, 500, true),
+    VALIDATION("validation", 10, 0, false);
+    
+    private static final ProcessingStage[] VALUES = values();
+    
+    /** Number of stages, for arrays indexed by ordinal() */
+    public static final int COUNT = VALUES.length;
+    
+    private final String metricName;
+    private final long simulatedMillis;
+    private final long simulatedRowMicros; // Batched: extra cost per row after the first
+    private final boolean ioBound;
+    
+    ProcessingStage(String metricName, long simulatedMillis, long simulatedRowMicros, boolean ioBound) {
+        this.metricName = metricName;
+        this.simulatedMillis = simulatedMillis;
+        this.simulatedRowMicros = simulatedRowMicros;
+        this.ioBound = ioBound;
+    }
+    
+    /**
+     * Runs the simulated work: the thread sleeps, as it would on a real
+     * parser's cache misses or a database round trip.
+     */
+    void simulate() throws InterruptedException {
+        Thread.sleep(simulatedMillis);
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedException("Processing interrupted");
+        }
+    }
+    
+    /**
+     * Runs the simulated work for a batch of rows in one round trip.
+     */
+    void simulateBatch(int rows) throws InterruptedException {
+        TimeUnit.MICROSECONDS.sleep(
+            TimeUnit.MILLISECONDS.toMicros(simulatedMillis) + simulatedRowMicros * Math.max(0, rows - 1)
+        );
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedException("Processing interrupted");
+        }
+    }
+    
+    /**
+     * Stages in processing order (shared array, do not modify).
+     */
+    static ProcessingStage[] inOrder() {
+        return VALUES;
+    }
+    
+    /** Lower-case name for metrics labels, e.g. "db_write" */
+    public String getMetricName() { return metricName; }
+    public long getSimulatedMillis() { return simulatedMillis; }
+    public boolean isIoBound() { return ioBound; }
+}
@@ -0,0 +1,310 @@
+package com.logprocessing;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * STEP 25: Prometheus Metrics Endpoint
+ * 
+ * Serves the live service state at GET /metrics in the Prometheus text
+ * exposition format (version 0.0.4), using the JDK's built-in HTTP server.
+ * 
+ * KEY CONCEPTS:
+ * - Pull model: the scraper decides when to read; nothing is pushed and
+ *   workers never touch the exporter
+ * - Counters (_total) only go up; rate() in the query turns them into
+ *   throughput. Gauges are point-in-time values (queue depth, workers)
+ * - Histograms are cumulative "le" buckets plus _sum and _count, so
+ *   percentiles can be aggregated across instances at query time
+ * 
+ * WHY THIS DESIGN:
+ * - Every value comes from an existing snapshot or lock-free counter, so
+ *   a scrape costs the same as one printPerformanceReport() and blocks no worker
+ * - One daemon thread serves requests: scrapes are rare and small
+ * - No framework: com.sun.net.httpserver ships with the JDK
+ * 
+ * WHAT WOULD GO WRONG WITHOUT IT:
+ * - The only numbers appear at shutdown, after the incident is over
+ * - Rates computed inside the service are tied to one sampling interval;
+ *   raw counters let every dashboard pick its own
+ * 
+ * UTILIZATION:
+ * Worker tasks are long-running, so the pool's active count always equals
+ * its size. Use rate(logprocessing_worker_busy_seconds_total[1m]) /
+ * logprocessing_workers instead: the fraction of worker time spent processing.
+ */
+public class PrometheusExporter implements AutoCloseable {
+    
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    
+    // Processing time buckets (ms): simulated work is ~110ms, tail goes to seconds
+    private static final long[] LATENCY_BUCKETS_MS = {1, 5, 10, 25, 50, 75, 100, 125, 150, 200, 250, 500, 1000, 2500, 5000};
+    
+    // Stage time buckets (µs): sub-ms real parsers up to multi-second I/O stalls
+    private static final long[] STAGE_BUCKETS_US = {
+        100, 1000, 5000, 10000, 15000, 20000, 30000, 50000, 75000, 100000, 250000, 1000000
+    };
+    
+    // Group-commit batch sizes (rows): 1 means linger flushes under light load
+    private static final long[] BATCH_BUCKETS_ROWS = {1, 2, 4, 8, 16, 32, 64, 128, 256};
+    
+    private final LogProcessingService service;
+    private final HttpServer server;
+    private final ExecutorService httpExecutor;
+    
+    /**
+     * Binds to port (0 = any free port) on all interfaces. Call start() to serve.
+     */
+    public PrometheusExporter(LogProcessingService service, int port) throws IOException {
+        this.service = service;
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        this.httpExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "PrometheusExporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(httpExecutor);
+        server.createContext("/metrics", this::handle);
+    }
+    
+    public void start() {
+        server.start();
+        System.out.println(
+            String.format(
+                "[PrometheusExporter] Serving metrics at http://localhost:%d/metrics",
+                getPort()
+            )
+        );
+    }
+    
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+    
+    @Override
+    public void close() {
+        server.stop(0);
+        httpExecutor.shutdownNow();
+    }
+    
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            if (!"GET".equals(method) && !"HEAD".equals(method)) {
+                exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = scrape().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            if ("HEAD".equals(method)) {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+    
+    /**
+     * Renders the current state. Public so it can be logged or tested
+     * without going through HTTP.
+     */
+    public String scrape() {
+        StringBuilder out = new StringBuilder(4096);
+        ProcessingMetrics.MetricsSnapshot metrics = service.getMetrics();
+        
+        // Throughput
+        header(out, "logprocessing_logs_processed_total", "counter", "Logs processed, by level");
+        sample(out, "logprocessing_logs_processed_total", "level=\"ERROR\"", metrics.getErrorCount());
+        sample(out, "logprocessing_logs_processed_total", "level=\"WARNING\"", metrics.getWarningCount());
+        sample(out, "logprocessing_logs_processed_total", "level=\"INFO\"", metrics.getInfoCount());
+        long other = metrics.getTotalProcessed() - metrics.getErrorCount() - metrics.getWarningCount() - metrics.getInfoCount();
+        sample(out, "logprocessing_logs_processed_total", "level=\"UNKNOWN\"", Math.max(0, other));
+        header(out, "logprocessing_tasks_submitted_total", "counter", "Logs taken by workers");
+        sample(out, "logprocessing_tasks_submitted_total", null, service.getTasksSubmitted());
+        header(out, "logprocessing_tasks_completed_total", "counter", "Logs fully processed by workers");
+        sample(out, "logprocessing_tasks_completed_total", null, service.getTasksCompleted());
+        header(out, "logprocessing_ingested_logs_total", "counter", "Logs recorded by bulk ingestion (not processed by workers)");
+        sample(out, "logprocessing_ingested_logs_total", null, service.getIngestedLogs());
+        header(out, "logprocessing_window_logs_per_second", "gauge", "Processing rate over a rolling window");
+        for (RollingWindow.WindowSnapshot window : metrics.getWindows()) {
+            sample(out, "logprocessing_window_logs_per_second", windowLabel(window), window.getRatePerSecond());
+        }
+        header(out, "logprocessing_window_error_ratio", "gauge", "Share of ERROR logs over a rolling window");
+        for (RollingWindow.WindowSnapshot window : metrics.getWindows()) {
+            sample(out, "logprocessing_window_error_ratio", windowLabel(window), window.getErrorRate() / 100.0);
+        }
+        
+        // Queue
+        header(out, "logprocessing_queue_depth", "gauge", "Logs waiting in the input queue");
+        sample(out, "logprocessing_queue_depth", null, service.getQueueDepth());
+        BlockingLogQueue logQueue = service.getLogQueue();
+        if (logQueue instanceof LogQueue) {
+            LogQueue queue = (LogQueue) logQueue;
+            header(out, "logprocessing_queue_dropped_total", "counter", "Logs dropped by the overflow policy, by level");
+            for (LogLevel level : LogLevel.values()) {
+                sample(out, "logprocessing_queue_dropped_total", "level=\"" + level + "\"", queue.getDroppedCount(level));
+            }
+        } else if (logQueue instanceof SpillingLogQueue) {
+            SpillingLogQueue queue = (SpillingLogQueue) logQueue;
+            header(out, "logprocessing_queue_spilled", "gauge", "Logs currently spilled to disk");
+            sample(out, "logprocessing_queue_spilled", null, queue.getSpilledCount());
+            header(out, "logprocessing_queue_spilled_total", "counter", "Logs ever spilled to disk");
+            sample(out, "logprocessing_queue_spilled_total", null, queue.getSpilledTotal());
+        }
+        
+        // Pool
+        header(out, "logprocessing_workers", "gauge", "Live worker tasks");
+        sample(out, "logprocessing_workers", null, service.getLiveWorkers());
+        header(out, "logprocessing_pool_threads", "gauge", "Platform threads in the worker pool");
+        sample(out, "logprocessing_pool_threads", null, service.getExecutorService().getPoolSize());
+        header(out, "logprocessing_pool_max_threads", "gauge", "Configured maximum pool size");
+        sample(out, "logprocessing_pool_max_threads", null, service.getExecutorService().getMaximumPoolSize());
+        if (service.getWorkerMode() == LogProcessingService.WorkerMode.VIRTUAL_THREAD) {
+            header(out, "logprocessing_virtual_threads_in_flight", "gauge", "Virtual threads processing a log");
+            sample(out, "logprocessing_virtual_threads_in_flight", null, service.getVirtualThreadsInFlight());
+        }
+        StagedPipeline pipeline = service.getStagedPipeline();
+        if (pipeline != null) {
+            header(out, "logprocessing_stage_threads", "gauge", "Threads per pipeline stage (STAGED mode)");
+            for (ProcessingStage stage : ProcessingStage.inOrder()) {
+                sample(out, "logprocessing_stage_threads", "stage=\"" + stage.getMetricName() + "\"", pipeline.getThreads(stage));
+            }
+            header(out, "logprocessing_stage_queue_depth", "gauge", "Logs waiting in front of each pipeline stage");
+            for (ProcessingStage stage : ProcessingStage.inOrder()) {
+                sample(out, "logprocessing_stage_queue_depth", "stage=\"" + stage.getMetricName() + "\"", pipeline.getQueueDepth(stage));
+            }
+        }
+        PartitionedPipeline partitioned = service.getPartitionedPipeline();
+        if (partitioned != null) {
+            header(out, "logprocessing_partition_queue_depth", "gauge", "Logs waiting in each partition's inbox (PARTITIONED mode)");
+            for (int i = 0; i < partitioned.getPartitionCount(); i++) {
+                sample(out, "logprocessing_partition_queue_depth", "partition=\"" + i + "\"", partitioned.getQueueDepth(i));
+            }
+            header(out, "logprocessing_partition_logs_total", "counter", "Logs processed by each partition's owner");
+            for (int i = 0; i < partitioned.getPartitionCount(); i++) {
+                sample(out, "logprocessing_partition_logs_total", "partition=\"" + i + "\"", partitioned.getProcessed(i));
+            }
+        }
+        header(out, "logprocessing_worker_busy_seconds_total", "counter", "Worker wall time spent processing logs");
+        sample(out, "logprocessing_worker_busy_seconds_total", null, service.getBusyNanos() / 1e9);
+        header(out, "logprocessing_queue_wait_seconds_total", "counter", "Worker time spent waiting for logs");
+        sample(out, "logprocessing_queue_wait_seconds_total", null, service.getTotalWaitNanos() / 1e9);
+        
+        // Latency
+        histogram(out, "logprocessing_processing_time_ms", "Per-log processing time (ms)", LATENCY_BUCKETS_MS, metrics.getLatency());
+        header(out, "logprocessing_window_processing_time_ms", "gauge", "Processing time percentile over a rolling window (ms)");
+        for (RollingWindow.WindowSnapshot window : metrics.getWindows()) {
+            LatencyHistogram.Snapshot latency = window.getLatency();
+            String label = windowLabel(window);
+            sample(out, "logprocessing_window_processing_time_ms", label + ",quantile=\"0.5\"", latency.getP50());
+            sample(out, "logprocessing_window_processing_time_ms", label + ",quantile=\"0.99\"", latency.getP99());
+            sample(out, "logprocessing_window_processing_time_ms", label + ",quantile=\"0.999\"", latency.getP999());
+        }
+        
+        StageTimers stages = service.getStageTimers();
+        String stageName = "logprocessing_stage_time_us";
+        header(out, stageName, "histogram", "Time per processing stage (µs)");
+        for (ProcessingStage stage : ProcessingStage.inOrder()) {
+            LatencyHistogram.Snapshot latency = stages.snapshot(stage);
+            String label = "stage=\"" + stage.getMetricName() + "\"";
+            for (long bound : STAGE_BUCKETS_US) {
+                sample(out, stageName + "_bucket", label + ",le=\"" + bound + "\"", latency.getCountAtOrBelow(bound));
+            }
+            sample(out, stageName + "_bucket", label + ",le=\"+Inf\"", latency.getTotalCount());
+            sample(out, stageName + "_sum", label, latency.getSum());
+            sample(out, stageName + "_count", label, latency.getTotalCount());
+        }
+        
+        GroupCommitSink sink = service.getGroupCommitSink();
+        if (sink != null) {
+            header(out, "logprocessing_sink_batches_total", "counter", "Group-commit batches written, by flush reason");
+            sample(out, "logprocessing_sink_batches_total", "reason=\"size\"", sink.getSizeFlushes());
+            sample(out, "logprocessing_sink_batches_total", "reason=\"linger\"", sink.getLingerFlushes());
+            header(out, "logprocessing_sink_rows_total", "counter", "Logs written by the group-commit sink");
+            sample(out, "logprocessing_sink_rows_total", null, sink.getRowsWritten());
+            header(out, "logprocessing_sink_pending", "gauge", "Logs waiting for their batch to be written");
+            sample(out, "logprocessing_sink_pending", null, sink.getPending());
+            histogram(out, "logprocessing_sink_batch_rows", "Rows per group-commit batch", BATCH_BUCKETS_ROWS, sink.getBatchSizes());
+        }
+        
+        LogDeduplicator dedup = service.getDeduplicator();
+        if (dedup != null) {
+            header(out, "logprocessing_dedup_logs_total", "counter", "Logs counted by the fingerprint deduplicator");
+            sample(out, "logprocessing_dedup_logs_total", null, dedup.getLogsOffered());
+            header(out, "logprocessing_dedup_records_total", "counter", "Aggregated records forwarded to alert evaluation");
+            sample(out, "logprocessing_dedup_records_total", null, dedup.getRecordsForwarded());
+            header(out, "logprocessing_dedup_overflow_logs_total", "counter", "Logs counted in an <other> record because the window was full");
+            sample(out, "logprocessing_dedup_overflow_logs_total", null, dedup.getOverflowLogs());
+            header(out, "logprocessing_dedup_fingerprints", "gauge", "Distinct fingerprints in the current window");
+            sample(out, "logprocessing_dedup_fingerprints", null, dedup.getFingerprints());
+        }
+        
+        // Alerts
+        AlertEvaluationService alerts = service.getAlertService();
+        StreamingAlertEvaluator streaming = service.getStreamingEvaluator();
+        header(out, "logprocessing_alert_evaluations_total", "counter", "Batch alert evaluations completed");
+        sample(out, "logprocessing_alert_evaluations_total", null, alerts.getEvaluationsCompleted());
+        header(out, "logprocessing_alert_evaluations_cancelled_total", "counter", "Batch alert evaluations cancelled");
+        sample(out, "logprocessing_alert_evaluations_cancelled_total", null, alerts.getEvaluationsCancelled());
+        header(out, "logprocessing_alerts_triggered_total", "counter", "Batch alert evaluations that triggered");
+        sample(out, "logprocessing_alerts_triggered_total", null, alerts.getAlertsTriggered());
+        // PARTITIONED mode: one window per partition, the service-wide window is unused
+        long raised = streaming.getAlertsRaised() + (partitioned != null ? partitioned.getAlertsRaised() : 0);
+        long cleared = streaming.getAlertsCleared() + (partitioned != null ? partitioned.getAlertsCleared() : 0);
+        header(out, "logprocessing_streaming_alerts_raised_total", "counter", "Streaming alert window transitions to alerting");
+        sample(out, "logprocessing_streaming_alerts_raised_total", null, raised);
+        header(out, "logprocessing_streaming_alerts_cleared_total", "counter", "Streaming alert window transitions back to normal");
+        sample(out, "logprocessing_streaming_alerts_cleared_total", null, cleared);
+        
+        return out.toString();
+    }
+    
+    private static String windowLabel(RollingWindow.WindowSnapshot window) {
+        return "window=\"" + window.getName() + "\"";
+    }
+    
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+    
+    private static void sample(StringBuilder out, String name, String labels, long value) {
+        out.append(name);
+        if (labels != null) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ').append(value).append('\n');
+    }
+    
+    private static void sample(StringBuilder out, String name, String labels, double value) {
+        out.append(name);
+        if (labels != null) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ').append(String.format(Locale.ROOT, "%.6f", value)).append('\n');
+    }
+    
+    private static void histogram(StringBuilder out, String name, String help, long[] buckets,
+                                  LatencyHistogram.Snapshot latency) {
+        header(out, name, "histogram", help);
+        for (long bound : buckets) {
+            sample(out, name + "_bucket", "le=\"" + bound + "\"", latency.getCountAtOrBelow(bound));
+        }
+        sample(out, name + "_bucket", "le=\"+Inf\"", latency.getTotalCount());
+        sample(out, name + "_sum", null, latency.getSum());
+        sample(out, name + "_count", null, latency.getTotalCount());
+    }
+}
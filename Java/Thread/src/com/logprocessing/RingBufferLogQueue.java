@@ -0,0 +1,244 @@
+package com.logprocessing;
+
+import com.logprocessing.WaitStrategy.Side;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BooleanSupplier;
+
+/**
+ * STEP 9: Lock-Free Bounded Ring Buffer Log Queue
+ * 
+ * Array-backed multi-producer / multi-consumer queue with the same
+ * addLog()/takeLog() contract as LogQueue.
+ * 
+ * KEY CONCEPTS:
+ * - Pre-allocated array: No node allocation per log (LinkedList allocates one)
+ * - Per-slot sequence numbers: Each slot says whose turn it is (producer or consumer)
+ * - CAS on head/tail: Producers only contend with producers, consumers with consumers
+ * - Pluggable WaitStrategy: What to do when full/empty (block, yield, spin)
+ * 
+ * INTERNAL BEHAVIOR (per slot, capacity = N):
+ * - sequence == pos       → slot is free for the producer claiming position pos
+ * - sequence == pos + 1   → slot holds the log written at pos, consumer may take it
+ * - sequence == pos + N   → consumer released the slot for the next lap
+ * 
+ * WHY THIS DESIGN:
+ * - LogQueue serializes every producer AND consumer on one monitor
+ * - notifyAll() wakes every waiting thread even if only one can proceed
+ * - At high ingest rates the monitor becomes the bottleneck before the workers do
+ * 
+ * WHAT WOULD GO WRONG WITHOUT IT:
+ * - Lock convoys: Threads queue up on the monitor instead of doing work
+ * - Thundering herd: notifyAll() wakes N threads for 1 free slot
+ * - GC pressure: One LinkedList node per log
+ */
+public class RingBufferLogQueue implements BlockingLogQueue {
+    
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<Log> buffer;
+    private final AtomicLongArray sequences;
+    
+    // Separate objects so producer and consumer cursors rarely share a cache line
+    private final AtomicLong tail = new AtomicLong(0); // Next position to write
+    private final AtomicLong head = new AtomicLong(0); // Next position to read
+    
+    private final WaitStrategy waitStrategy;
+    
+    // Pre-built predicates: no allocation when a thread has to wait
+    private final BooleanSupplier notFull = () -> size() < capacity();
+    private final BooleanSupplier notEmpty = () -> !isEmpty();
+    
+    public RingBufferLogQueue(int requestedCapacity) {
+        this(requestedCapacity, WaitStrategy.blocking());
+    }
+    
+    /**
+     * Creates a ring buffer. Capacity is rounded up to the next power of two
+     * so the slot index is a cheap bit mask instead of a modulo.
+     */
+    public RingBufferLogQueue(int requestedCapacity, WaitStrategy waitStrategy) {
+        if (requestedCapacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + requestedCapacity);
+        }
+        this.capacity = nextPowerOfTwo(requestedCapacity);
+        this.mask = capacity - 1;
+        this.buffer = new AtomicReferenceArray<>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+        this.waitStrategy = waitStrategy;
+    }
+    
+    /**
+     * Non-blocking insert. Returns false if the buffer is full.
+     */
+    public boolean offer(Log log) {
+        long pos = tail.get();
+        while (true) {
+            int index = (int) (pos & mask);
+            long sequence = sequences.get(index);
+            long diff = sequence - pos;
+            
+            if (diff == 0) {
+                // Slot free for this lap - try to claim it
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    buffer.lazySet(index, log);
+                    sequences.set(index, pos + 1); // Publish to consumers
+                    return true;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                // Consumer has not released this slot yet → full
+                return false;
+            } else {
+                // Another producer claimed pos, move on
+                pos = tail.get();
+            }
+        }
+    }
+    
+    /**
+     * Non-blocking remove. Returns null if the buffer is empty.
+     */
+    public Log poll() {
+        long pos = head.get();
+        while (true) {
+            int index = (int) (pos & mask);
+            long sequence = sequences.get(index);
+            long diff = sequence - (pos + 1);
+            
+            if (diff == 0) {
+                // Slot published for this position - try to claim it
+                if (head.compareAndSet(pos, pos + 1)) {
+                    Log log = buffer.get(index);
+                    buffer.lazySet(index, null); // Let GC reclaim the log
+                    sequences.set(index, pos + capacity); // Release slot for next lap
+                    return log;
+                }
+                pos = head.get();
+            } else if (diff < 0) {
+                // Producer has not published this slot yet → empty
+                return null;
+            } else {
+                // Another consumer took pos, move on
+                pos = head.get();
+            }
+        }
+    }
+    
+    /**
+     * Producer method: Adds a log, waiting according to the WaitStrategy while full.
+     */
+    @Override
+    public void addLog(Log log) throws InterruptedException {
+        while (!offer(log)) {
+            waitStrategy.await(Side.PRODUCERS, notFull);
+        }
+        waitStrategy.signal(Side.CONSUMERS);
+    }
+    
+    /**
+     * Consumer method: Takes a log, waiting according to the WaitStrategy while empty.
+     */
+    @Override
+    public Log takeLog() throws InterruptedException {
+        Log log;
+        while ((log = poll()) == null) {
+            waitStrategy.await(Side.CONSUMERS, notEmpty);
+        }
+        waitStrategy.signal(Side.PRODUCERS);
+        return log;
+    }
+    
+    /**
+     * Batch consumer method: Waits (per the WaitStrategy) until min logs are
+     * queued or the timeout elapses, then takes up to max.
+     * Waiting threads are signalled once per drained chunk instead of once per log.
+     */
+    @Override
+    public List<Log> takeBatch(int min, int max, long timeout, TimeUnit unit) throws InterruptedException {
+        if (min < 0 || max < 1 || min > max) {
+            throw new IllegalArgumentException(
+                String.format("Invalid batch bounds: min=%d, max=%d", min, max)
+            );
+        }
+        List<Log> batch = new ArrayList<>(Math.min(max, capacity));
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        
+        while (true) {
+            if (drainAvailable(batch, max - batch.size()) > 0) {
+                // Wake producers now: they may be blocked on the slots we just freed
+                waitStrategy.signal(Side.PRODUCERS);
+            }
+            long remainingNanos = deadline - System.nanoTime();
+            if (batch.size() >= min || remainingNanos <= 0) {
+                break;
+            }
+            final int needed = min - batch.size();
+            waitStrategy.await(Side.CONSUMERS, () -> size() >= needed, remainingNanos);
+        }
+        return batch;
+    }
+    
+    /**
+     * Non-blocking batch removal: moves up to max available logs into target.
+     */
+    @Override
+    public int drainTo(Collection<? super Log> target, int max) {
+        int drained = drainAvailable(target, max);
+        if (drained > 0) {
+            waitStrategy.signal(Side.PRODUCERS);
+        }
+        return drained;
+    }
+    
+    private int drainAvailable(Collection<? super Log> target, int max) {
+        int drained = 0;
+        Log log;
+        while (drained < max && (log = poll()) != null) {
+            target.add(log);
+            drained++;
+        }
+        return drained;
+    }
+    
+    /**
+     * Approximate size: exact when the queue is quiescent.
+     */
+    @Override
+    public int size() {
+        // Read head first so a concurrent poll can only make the result larger, never negative
+        long currentHead = head.get();
+        long currentTail = tail.get();
+        long size = currentTail - currentHead;
+        if (size < 0) {
+            return 0;
+        }
+        return (int) Math.min(size, capacity);
+    }
+    
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+    
+    public int capacity() {
+        return capacity;
+    }
+    
+    public WaitStrategy getWaitStrategy() {
+        return waitStrategy;
+    }
+    
+    private static int nextPowerOfTwo(int value) {
+        int highest = Integer.highestOneBit(value);
+        return highest == value ? value : highest << 1;
+    }
+}
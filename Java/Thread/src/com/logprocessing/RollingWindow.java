@@ -0,0 +1,256 @@
+package com.logprocessing;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * STEP 14: Time-Windowed Rolling Metrics
+ * 
+ * A ring of time buckets covering the last bucketCount × bucketMillis ms.
+ * 
+ * KEY CONCEPTS:
+ * - Epoch per bucket: epoch = now / bucketMillis, slot = epoch % bucketCount
+ * - CAS rotation: A stale slot's bucket is claimed by a CAS on its epoch and
+ *   reset in place; exactly one thread wins, the others wait for the reset
+ *   and use the same bucket
+ * - No allocation per rotation: each slot's bucket (and its ~15 KB latency
+ *   histogram) is created on first use and reused forever after. The 1s
+ *   window rotates every 100 ms, per ProcessingMetrics, stage and partition
+ * - A record() that looked the bucket up just before a rotation may land in
+ *   the new epoch; the windows are approximate at bucket edges anyway
+ * - Expiry on read: Snapshots only merge buckets whose epoch is still inside
+ *   the window, so idle periods need no background cleaner thread
+ * 
+ * WHY THIS DESIGN:
+ * - Lifetime totals go stale: an error rate over 3 hours hides a spike in the last minute
+ * - A global lock around "rotate then record" would serialize every worker
+ * 
+ * WHAT WOULD GO WRONG WITHOUT IT:
+ * - Alerts and dashboards lag real load by minutes
+ * - Recomputing recent rates would need the raw logs
+ */
+public class RollingWindow {
+    
+    private static final long ROTATING = -1; // Bucket epoch while it is being reset
+    
+    private final String name;
+    private final int bucketCount;
+    private final long bucketMillis;
+    private final long createdAt;
+    private final AtomicReferenceArray<Bucket> buckets;
+    
+    /**
+     * @param name         label used in reports, e.g. "1m"
+     * @param bucketCount  number of buckets in the ring
+     * @param bucketMillis time covered by each bucket
+     */
+    public RollingWindow(String name, int bucketCount, long bucketMillis) {
+        if (bucketCount < 2 || bucketMillis < 1) {
+            throw new IllegalArgumentException(
+                String.format("Invalid window: buckets=%d, bucketMillis=%d", bucketCount, bucketMillis)
+            );
+        }
+        this.name = name;
+        this.bucketCount = bucketCount;
+        this.bucketMillis = bucketMillis;
+        this.createdAt = System.currentTimeMillis();
+        this.buckets = new AtomicReferenceArray<>(bucketCount);
+    }
+    
+    /**
+     * Records one processed log. latencyMs < 0 means "no latency sample".
+     */
+    public void record(boolean error, boolean warning, long latencyMs) {
+        Bucket bucket = currentBucket(System.currentTimeMillis());
+        bucket.processed.increment();
+        if (error) {
+            bucket.errors.increment();
+        } else if (warning) {
+            bucket.warnings.increment();
+        }
+        if (latencyMs >= 0) {
+            bucket.latency.record(latencyMs);
+            bucket.latencySamples.increment();
+        }
+    }
+    
+    /**
+     * Records a batch: one bucket lookup and three adds for the counts,
+     * then one histogram record per latency sample.
+     */
+    public void recordBatch(long processed, long errors, long warnings, long[] latenciesMs, int latencyCount) {
+        Bucket bucket = currentBucket(System.currentTimeMillis());
+        bucket.processed.add(processed);
+        bucket.errors.add(errors);
+        bucket.warnings.add(warnings);
+        for (int i = 0; i < latencyCount; i++) {
+            bucket.latency.record(latenciesMs[i]);
+        }
+        bucket.latencySamples.add(latencyCount);
+    }
+    
+    private Bucket currentBucket(long now) {
+        long epoch = now / bucketMillis;
+        int slot = (int) (epoch % bucketCount);
+        Bucket bucket = buckets.get(slot);
+        if (bucket == null) {
+            Bucket fresh = new Bucket(epoch);
+            if (buckets.compareAndSet(slot, null, fresh)) {
+                return fresh; // First use of this slot: the only allocation it ever needs
+            }
+            bucket = buckets.get(slot);
+        }
+        while (true) {
+            long current = bucket.epoch.get();
+            if (current >= epoch) {
+                // Current bucket, or a newer one if this thread's clock read is stale
+                return bucket;
+            }
+            if (current != ROTATING && bucket.epoch.compareAndSet(current, ROTATING)) {
+                bucket.reset(); // We rotated the slot
+                bucket.epoch.set(epoch);
+                return bucket;
+            }
+            // Another thread is resetting this slot: a few adders, wait it out
+            Thread.yield();
+        }
+    }
+    
+    /**
+     * Merges all buckets still inside the window.
+     */
+    public WindowSnapshot snapshot() {
+        long now = System.currentTimeMillis();
+        long currentEpoch = now / bucketMillis;
+        long oldestEpoch = currentEpoch - bucketCount + 1;
+        
+        long processed = 0;
+        long errors = 0;
+        long warnings = 0;
+        long latencySum = 0;
+        long latencyMin = Long.MAX_VALUE;
+        long latencyMax = 0;
+        long[] counts = new long[LatencyHistogram.BUCKET_COUNT];
+        
+        for (int i = 0; i < bucketCount; i++) {
+            Bucket bucket = buckets.get(i);
+            long epoch = bucket != null ? bucket.epoch.get() : ROTATING;
+            if (epoch < oldestEpoch || epoch > currentEpoch) {
+                continue; // Expired, being reset, or not yet started
+            }
+            processed += bucket.processed.sum();
+            errors += bucket.errors.sum();
+            warnings += bucket.warnings.sum();
+            if (bucket.latencySamples.sum() > 0) {
+                bucket.latency.addCountsTo(counts);
+                latencySum += bucket.latency.getSum();
+                latencyMin = Math.min(latencyMin, bucket.latency.getMin());
+                latencyMax = Math.max(latencyMax, bucket.latency.getMax());
+            }
+        }
+        
+        // Full buckets plus the elapsed part of the current one, capped by uptime
+        long coveredMillis = (bucketCount - 1) * bucketMillis + (now % bucketMillis);
+        long elapsedMillis = Math.max(1, Math.min(coveredMillis, now - createdAt));
+        
+        LatencyHistogram.Snapshot latency = new LatencyHistogram.Snapshot(
+            counts,
+            latencyMin == Long.MAX_VALUE ? 0 : latencyMin,
+            latencyMax,
+            latencySum
+        );
+        return new WindowSnapshot(name, elapsedMillis, processed, errors, warnings, latency);
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public long getWindowMillis() {
+        return bucketCount * bucketMillis;
+    }
+    
+    private static final class Bucket {
+        private final AtomicLong epoch;
+        private final LongAdder processed = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder warnings = new LongAdder();
+        private final LongAdder latencySamples = new LongAdder();
+        // Single stripe: one bucket lives for bucketMillis, memory matters more than striping here
+        private final LatencyHistogram latency = new LatencyHistogram(1);
+        
+        private Bucket(long epoch) {
+            this.epoch = new AtomicLong(epoch);
+        }
+        
+        // Only the thread that claimed the bucket (epoch == ROTATING) calls this
+        void reset() {
+            processed.reset();
+            errors.reset();
+            warnings.reset();
+            latencySamples.reset();
+            latency.reset();
+        }
+    }
+    
+    /**
+     * Immutable view of one window: counts, rates and latency percentiles.
+     */
+    public static class WindowSnapshot {
+        private final String name;
+        private final long elapsedMillis;
+        private final long processed;
+        private final long errors;
+        private final long warnings;
+        private final LatencyHistogram.Snapshot latency;
+        
+        public WindowSnapshot(String name, long elapsedMillis, long processed,
+                              long errors, long warnings, LatencyHistogram.Snapshot latency) {
+            this.name = name;
+            this.elapsedMillis = elapsedMillis;
+            this.processed = processed;
+            this.errors = errors;
+            this.warnings = warnings;
+            this.latency = latency;
+        }
+        
+        public String getName() { return name; }
+        public long getElapsedMillis() { return elapsedMillis; }
+        public long getProcessed() { return processed; }
+        public long getErrors() { return errors; }
+        public long getWarnings() { return warnings; }
+        public LatencyHistogram.Snapshot getLatency() { return latency; }
+        
+        public double getRatePerSecond() {
+            return processed * 1000.0 / elapsedMillis;
+        }
+        
+        public double getErrorRate() {
+            return processed > 0 ? (double) errors / processed * 100 : 0.0;
+        }
+        
+        /**
+         * Combined view of the same window over two sets of buckets.
+         */
+        public WindowSnapshot merge(WindowSnapshot other) {
+            return new WindowSnapshot(
+                name,
+                Math.max(elapsedMillis, other.elapsedMillis),
+                processed + other.processed,
+                errors + other.errors,
+                warnings + other.warnings,
+                latency.merge(other.latency)
+            );
+        }
+        
+        @Override
+        public String toString() {
+            return String.format(
+                "[%s] %.1f logs/s | errors %.2f%% | p50=%d p99=%d max=%d ms",
+                name, getRatePerSecond(), getErrorRate(),
+                latency.getP50(), latency.getP99(), latency.getMax()
+            );
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.logprocessing;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * STEP 17: Interned Source Registry
+ * 
+ * Maps each source name to a dense int id (0, 1, 2, ...) the first time it
+ * is seen, so per-source state can live in primitive arrays indexed by id.
+ * 
+ * KEY CONCEPTS:
+ * - Interning: Registered once (cold path, synchronized), looked up lock-free
+ * - Dense ids: id < capacity, usable directly as an array index
+ * - Bounded: Once capacity sources exist, new ones get UNREGISTERED and
+ *   callers fall back to a bounded structure (HeavyHitterSketch)
+ * 
+ * WHY THIS DESIGN:
+ * - Hashing the source String for every processed log is wasted work once
+ *   the set of sources is known
+ * - An unbounded registry would grow forever with high-cardinality sources
+ */
+public class SourceRegistry {
+    
+    public static final int UNREGISTERED = -1;
+    public static final int DEFAULT_CAPACITY = 1024;
+    
+    private static final SourceRegistry GLOBAL = new SourceRegistry(DEFAULT_CAPACITY);
+    
+    private final int capacity;
+    private final Map<String, Integer> ids;
+    private final AtomicReferenceArray<String> names;
+    private volatile int size = 0; // Written under registrationLock only
+    private final Object registrationLock = new Object();
+    
+    public SourceRegistry(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.ids = new ConcurrentHashMap<>(Math.min(capacity, 256) * 2);
+        this.names = new AtomicReferenceArray<>(capacity);
+    }
+    
+    /**
+     * Registry shared by Log, ProcessingMetrics and the alert rules.
+     */
+    public static SourceRegistry global() {
+        return GLOBAL;
+    }
+    
+    /**
+     * Returns the id for source, registering it if needed.
+     * 
+     * @return a dense id, or UNREGISTERED if the registry is full (or source is null)
+     */
+    public int idOf(String source) {
+        if (source == null) {
+            return UNREGISTERED;
+        }
+        Integer id = ids.get(source);
+        if (id != null) {
+            return id; // Hot path: lock-free lookup, cached Integer
+        }
+        synchronized (registrationLock) {
+            id = ids.get(source);
+            if (id != null) {
+                return id;
+            }
+            if (size == capacity) {
+                return UNREGISTERED;
+            }
+            int newId = size;
+            names.set(newId, source);
+            ids.put(source, newId);
+            size = newId + 1;
+            return newId;
+        }
+    }
+    
+    /**
+     * Returns the id for source without registering it.
+     */
+    public int lookup(String source) {
+        Integer id = source == null ? null : ids.get(source);
+        return id != null ? id : UNREGISTERED;
+    }
+    
+    public String nameOf(int id) {
+        return id >= 0 && id < capacity ? names.get(id) : null;
+    }
+    
+    /**
+     * Number of registered sources; ids 0..size()-1 are valid.
+     */
+    public int size() {
+        return size;
+    }
+    
+    public int capacity() {
+        return capacity;
+    }
+}
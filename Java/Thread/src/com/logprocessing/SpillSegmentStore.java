@@ -0,0 +1,397 @@
+package com.logprocessing;
+
+import com.diagnostics.DiagnosticSink;
+import com.diagnostics.DiagnosticSink.Level;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * STEP 20: Append-Only Memory-Mapped Spill Segments
+ * 
+ * FIFO store of logs on disk, used by SpillingLogQueue when memory is full.
+ * 
+ * SEGMENT LAYOUT (one file per segment, fixed size, memory-mapped):
+ * <pre>
+ * [int MAGIC][int readOffset] [int len][record bytes] [int len][record bytes] ... [int 0 | END]
+ * record = long timestamp, then id, message, level, source as (short length + UTF-8)
+ * </pre>
+ * - Records are appended at the write position; a zero length marks the end
+ *   (a fresh mapped file is zero-filled)
+ * - readOffset is updated in the file on every poll, so after a restart
+ *   replay resumes right after the last consumed record; callers poll only
+ *   when they hand the log out (see SpillingLogQueue)
+ * - A fully consumed segment is deleted
+ * 
+ * WHY MEMORY-MAPPED:
+ * - Appends are memory copies; the OS writes pages back in the background
+ * - No write() system call per log
+ * 
+ * DURABILITY:
+ * - Survives a process crash (pages live in the OS page cache)
+ * - NOT a power-loss guarantee: there is no force() per record; close()
+ *   forces each segment, so a clean shutdown leaves the headers on disk
+ * 
+ * THREAD SAFETY:
+ * - NOT thread-safe; SpillingLogQueue calls it under its own lock
+ */
+public class SpillSegmentStore implements AutoCloseable {
+    
+    private static final int MAGIC = 0x4C4F4753; // "LOGS"
+    private static final int HEADER_BYTES = 8;
+    private static final int READ_OFFSET_POSITION = 4;
+    private static final int END_OF_SEGMENT = -1;
+    private static final String SUFFIX = ".seg";
+    private static final String CORRUPT_SUFFIX = ".corrupt";
+    private static final DiagnosticSink DIAGNOSTICS = DiagnosticSink.get();
+    
+    private final Path directory;
+    private final int segmentBytes;
+    private final Deque<Segment> segments = new ArrayDeque<>(); // Oldest first
+    private long nextSegmentId;
+    private long pendingRecords = 0;
+    
+    /**
+     * Opens (or creates) the spill directory and indexes any segments left
+     * by a previous run; their unconsumed records are returned first. A file
+     * that cannot be opened as a segment (torn header, foreign name) is
+     * renamed to *.corrupt and skipped, so it does not hide the others.
+     */
+    public SpillSegmentStore(Path directory, int segmentBytes) throws IOException {
+        if (segmentBytes < 1024) {
+            throw new IllegalArgumentException("Segment size too small: " + segmentBytes);
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        Files.createDirectories(directory);
+        
+        List<Path> existing = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "spill-*" + SUFFIX)) {
+            for (Path file : files) {
+                existing.add(file);
+            }
+        }
+        Collections.sort(existing); // Zero-padded ids: name order = creation order
+        
+        long maxId = -1;
+        for (Path file : existing) {
+            Segment segment;
+            try {
+                long id = segmentIdOf(file);
+                maxId = Math.max(maxId, id);
+                segment = Segment.open(file, id);
+            } catch (IOException | RuntimeException e) {
+                quarantine(file, e);
+                continue;
+            }
+            if (segment.pending == 0) {
+                segment.delete();
+                continue;
+            }
+            segment.sealed = true; // Recovered segments are only read, never appended to
+            segments.addLast(segment);
+            pendingRecords += segment.pending;
+        }
+        this.nextSegmentId = maxId + 1;
+    }
+    
+    /**
+     * Appends a log at the tail, rolling over to a new segment when full.
+     */
+    public void append(Log log) throws IOException {
+        byte[] record = encode(log);
+        if (record.length + 4 > segmentBytes - HEADER_BYTES - 4) {
+            throw new IllegalArgumentException(
+                String.format("Log %s (%d bytes) does not fit in a %d byte segment",
+                    log.getId(), record.length, segmentBytes)
+            );
+        }
+        Segment tail = segments.peekLast();
+        if (tail == null || tail.sealed || !tail.hasRoomFor(record.length)) {
+            if (tail != null && !tail.sealed) {
+                tail.seal();
+            }
+            tail = Segment.create(directory.resolve(segmentName(nextSegmentId)), nextSegmentId, segmentBytes);
+            nextSegmentId++;
+            segments.addLast(tail);
+        }
+        tail.write(record);
+        pendingRecords++;
+    }
+    
+    /**
+     * Removes and returns the oldest spilled log, or null if none are pending.
+     * 
+     * @throws IOException if the head segment cannot be read; discardHeadSegment() skips it
+     */
+    public Log poll() throws IOException {
+        while (!segments.isEmpty()) {
+            Segment head = segments.peekFirst();
+            byte[] record;
+            Log log;
+            try {
+                record = head.read();
+                log = record != null ? decode(record) : null;
+            } catch (IndexOutOfBoundsException | BufferUnderflowException | NegativeArraySizeException | IllegalArgumentException e) {
+                throw new IOException("Corrupt record in " + head.path, e);
+            }
+            if (record != null) {
+                pendingRecords--;
+                return log;
+            }
+            if (!head.sealed) {
+                return null; // Caught up with the writer
+            }
+            // Sealed and fully consumed
+            segments.pollFirst();
+            head.delete();
+        }
+        return null;
+    }
+    
+    /**
+     * Gives up on the oldest segment after poll() failed on it: its unread
+     * records are dropped from the store and the file is renamed to
+     * *.corrupt (kept for inspection, not replayed).
+     * 
+     * @return the number of records dropped
+     * @throws IOException if the file could not be renamed (the records are dropped anyway)
+     */
+    public long discardHeadSegment() throws IOException {
+        Segment head = segments.pollFirst();
+        if (head == null) {
+            return 0;
+        }
+        long dropped = Math.min(head.pending, pendingRecords);
+        pendingRecords -= dropped;
+        head.close();
+        Files.move(head.path, head.path.resolveSibling(head.path.getFileName() + CORRUPT_SUFFIX),
+            StandardCopyOption.REPLACE_EXISTING);
+        return dropped;
+    }
+    
+    /**
+     * Moves an unrecoverable file out of the replay set (kept for inspection).
+     */
+    private static void quarantine(Path file, Exception cause) throws IOException {
+        Path target = file.resolveSibling(file.getFileName() + CORRUPT_SUFFIX);
+        Files.move(file, target, StandardCopyOption.REPLACE_EXISTING);
+        DIAGNOSTICS.log(
+            Level.ERROR,
+            "[SpillSegmentStore] Cannot recover %s, moved to %s: %s",
+            file.getFileName(),
+            target.getFileName(),
+            cause.toString()
+        );
+    }
+    
+    public long size() {
+        return pendingRecords;
+    }
+    
+    public boolean isEmpty() {
+        return pendingRecords == 0;
+    }
+    
+    public int getSegmentCount() {
+        return segments.size();
+    }
+    
+    public Path getDirectory() {
+        return directory;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        for (Segment segment : segments) {
+            segment.close();
+        }
+        segments.clear();
+    }
+    
+    private static byte[] encode(Log log) {
+        byte[][] fields = {
+            utf8(log.getId()), utf8(log.getMessage()), utf8(log.getLevel()), utf8(log.getSource())
+        };
+        int length = 8;
+        for (byte[] field : fields) {
+            length += 2 + field.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.putLong(log.getTimestamp());
+        for (byte[] field : fields) {
+            buffer.putShort((short) field.length);
+            buffer.put(field);
+        }
+        return buffer.array();
+    }
+    
+    private static Log decode(byte[] record) {
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+        long timestamp = buffer.getLong();
+        String id = readString(buffer);
+        String message = readString(buffer);
+        String level = readString(buffer);
+        String source = readString(buffer);
+        return new Log(id, message, level, source, timestamp);
+    }
+    
+    private static byte[] utf8(String value) {
+        byte[] bytes = (value == null ? "" : value).getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Field too long to spill: " + bytes.length + " bytes");
+        }
+        return bytes;
+    }
+    
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getShort();
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+    
+    private static String segmentName(long id) {
+        return String.format("spill-%019d%s", id, SUFFIX);
+    }
+    
+    private static long segmentIdOf(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring("spill-".length(), name.length() - SUFFIX.length()));
+    }
+    
+    /**
+     * One mapped segment file.
+     */
+    private static final class Segment {
+        private final Path path;
+        private final long id;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private int readOffset;
+        private int writeOffset;
+        private long pending; // Unconsumed records
+        private boolean sealed = false;
+        
+        private Segment(Path path, long id, FileChannel channel, MappedByteBuffer buffer) {
+            this.path = path;
+            this.id = id;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+        
+        static Segment create(Path path, long id, int size) throws IOException {
+            FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(READ_OFFSET_POSITION, HEADER_BYTES);
+            Segment segment = new Segment(path, id, channel, buffer);
+            segment.readOffset = HEADER_BYTES;
+            segment.writeOffset = HEADER_BYTES;
+            return segment;
+        }
+        
+        /**
+         * Maps an existing segment and scans it to find the write position
+         * and the number of unconsumed records.
+         */
+        static Segment open(Path path, long id) throws IOException {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                return open(path, id, channel);
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+        
+        private static Segment open(Path path, long id, FileChannel channel) throws IOException {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            Segment segment = new Segment(path, id, channel, buffer);
+            if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+                throw new IOException("Not a spill segment: " + path);
+            }
+            int offset = buffer.getInt(READ_OFFSET_POSITION);
+            if (offset < HEADER_BYTES || offset > buffer.capacity()) {
+                throw new IOException("Torn header in " + path + ": read offset " + offset);
+            }
+            segment.readOffset = offset;
+            long pending = 0;
+            while (offset + 4 <= buffer.capacity()) {
+                int length = buffer.getInt(offset);
+                if (length <= 0 || offset + 4 + length > buffer.capacity()) {
+                    break; // End marker, or a record torn by a crash mid-append
+                }
+                offset += 4 + length;
+                pending++;
+            }
+            segment.writeOffset = offset;
+            segment.pending = pending;
+            return segment;
+        }
+        
+        boolean hasRoomFor(int recordLength) {
+            // Always keep 4 bytes for the end marker
+            return writeOffset + 4 + recordLength + 4 <= buffer.capacity();
+        }
+        
+        void write(byte[] record) {
+            // Payload first, length last: a reader never sees a length without its bytes
+            ByteBuffer target = buffer.duplicate();
+            target.position(writeOffset + 4);
+            target.put(record);
+            buffer.putInt(writeOffset, record.length);
+            writeOffset += 4 + record.length;
+            pending++;
+        }
+        
+        byte[] read() {
+            if (readOffset >= writeOffset) {
+                return null;
+            }
+            int length = buffer.getInt(readOffset);
+            if (length <= 0 || readOffset + 4 + length > writeOffset) {
+                throw new IndexOutOfBoundsException("Bad record length " + length + " at offset " + readOffset);
+            }
+            byte[] record = new byte[length];
+            ByteBuffer source = buffer.duplicate();
+            source.position(readOffset + 4);
+            source.get(record);
+            readOffset += 4 + length;
+            buffer.putInt(READ_OFFSET_POSITION, readOffset); // Persist consumption for replay
+            pending--;
+            return record;
+        }
+        
+        void seal() {
+            if (writeOffset + 4 <= buffer.capacity()) {
+                buffer.putInt(writeOffset, END_OF_SEGMENT);
+            }
+            sealed = true;
+        }
+        
+        void close() throws IOException {
+            buffer.force(); // Read position and last appends reach the file before unmapping
+            channel.close();
+        }
+        
+        void delete() throws IOException {
+            channel.close(); // No force(): the file is going away
+            Files.deleteIfExists(path);
+        }
+    }
+}
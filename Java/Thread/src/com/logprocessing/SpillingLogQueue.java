@@ -0,0 +1,264 @@
+package com.logprocessing;
+
+import com.diagnostics.DiagnosticSink;
+import com.diagnostics.DiagnosticSink.Level;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * STEP 20: Log Queue with Disk Spill-Over
+ * 
+ * Same monitor design as LogQueue, but when the in-memory queue is full
+ * addLog() appends to a SpillSegmentStore instead of blocking the producer.
+ * 
+ * ORDERING (FIFO across memory and disk):
+ * - While the spill is non-empty, new logs go to the spill too, even if
+ *   memory has room - otherwise they would overtake older spilled logs
+ * - Everything in memory is older than everything spilled, so consumers
+ *   take from memory first and then read the spill, one record per take
+ * 
+ * RESTART:
+ * - Segments left by a previous run are replayed before any new log
+ * - A spilled log is read from disk only when a consumer takes it, so its
+ *   consumption is persisted at hand-out: logs not yet taken are replayed
+ * 
+ * KEY CONCEPTS:
+ * - A burst costs disk bandwidth (a memory copy into a mapped page),
+ *   not producer latency
+ * - If the disk append fails, producers fall back to blocking like LogQueue
+ * 
+ * WHAT WOULD GO WRONG WITHOUT IT:
+ * - LogQueue: every producer thread stalls as soon as workers fall behind
+ */
+public class SpillingLogQueue implements BlockingLogQueue, AutoCloseable {
+    
+    private static final DiagnosticSink DIAGNOSTICS = DiagnosticSink.get();
+    
+    private final Deque<Log> memory = new ArrayDeque<>();
+    private final int maxSize;
+    private final SpillSegmentStore spill; // Guarded by lock
+    private final Object lock = new Object();
+    
+    private final long recoveredAtStart;
+    private long spilledTotal = 0; // Guarded by lock
+    
+    public SpillingLogQueue(int maxSize, SpillSegmentStore spill) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+        }
+        this.maxSize = maxSize;
+        this.spill = spill;
+        this.recoveredAtStart = spill.size();
+        if (recoveredAtStart > 0) {
+            DIAGNOSTICS.log(
+                Level.INFO,
+                "[SpillingLogQueue] Replaying %d spilled logs from %s",
+                recoveredAtStart,
+                spill.getDirectory()
+            );
+        }
+    }
+    
+    /**
+     * Producer method: never blocks while the spill store accepts writes.
+     */
+    @Override
+    public void addLog(Log log) throws InterruptedException {
+        synchronized (lock) {
+            if (spill.isEmpty() && memory.size() < maxSize) {
+                memory.addLast(log);
+            } else if (!trySpillLocked(log)) {
+                // Disk failed: wait for the spill to drain, then behave like LogQueue
+                while (!spill.isEmpty() || memory.size() >= maxSize) {
+                    lock.wait();
+                }
+                memory.addLast(log);
+            }
+            lock.notifyAll(); // Wake waiting consumers
+        }
+    }
+    
+    // Caller must hold lock
+    private boolean trySpillLocked(Log log) {
+        boolean wasEmpty = spill.isEmpty();
+        try {
+            spill.append(log);
+        } catch (IOException | IllegalArgumentException e) {
+            DIAGNOSTICS.log(
+                Level.ERROR,
+                "[SpillingLogQueue] Could not spill log %s, blocking producer: %s",
+                log.getId(),
+                e.toString()
+            );
+            return false;
+        }
+        spilledTotal++;
+        if (wasEmpty) {
+            DIAGNOSTICS.log(
+                Level.INFO,
+                "[Producer Thread %s] Queue full (%d/%d), spilling to %s",
+                Thread.currentThread().getName(),
+                memory.size(),
+                maxSize,
+                spill.getDirectory()
+            );
+        }
+        return true;
+    }
+    
+    // Caller must hold lock. Memory only holds logs older than the spill (see addLog).
+    private Log pollLocked() {
+        Log log = memory.pollFirst();
+        if (log != null || spill.isEmpty()) {
+            return log;
+        }
+        return pollSpillLocked();
+    }
+    
+    // Caller must hold lock. Reading marks the record consumed on disk: only call to hand it out.
+    private Log pollSpillLocked() {
+        Log log = null;
+        while (log == null && !spill.isEmpty()) {
+            try {
+                log = spill.poll();
+                if (log == null) {
+                    break;
+                }
+            } catch (IOException e) {
+                discardUnreadableSegmentLocked(e);
+            }
+        }
+        if (spill.isEmpty()) {
+            DIAGNOSTICS.log(Level.INFO, "[SpillingLogQueue] Spill drained, back to memory-only");
+            lock.notifyAll(); // Producers in the disk-failure fallback may proceed
+        }
+        return log;
+    }
+    
+    /**
+     * A consumer must not die on a bad segment: skip it, keep serving the
+     * rest of the spill, and report what was lost.
+     */
+    private void discardUnreadableSegmentLocked(IOException cause) {
+        long dropped;
+        try {
+            dropped = spill.discardHeadSegment();
+        } catch (IOException e) {
+            dropped = -1;
+            cause.addSuppressed(e);
+        }
+        DIAGNOSTICS.log(
+            Level.ERROR,
+            "[SpillingLogQueue] Skipping unreadable spill segment (%s logs lost): %s",
+            dropped >= 0 ? String.valueOf(dropped) : "unknown number of",
+            cause.toString()
+        );
+    }
+    
+    @Override
+    public Log takeLog() throws InterruptedException {
+        synchronized (lock) {
+            Log log;
+            while ((log = pollLocked()) == null) {
+                lock.wait();
+            }
+            lock.notifyAll();
+            return log;
+        }
+    }
+    
+    @Override
+    public List<Log> takeBatch(int min, int max, long timeout, TimeUnit unit) throws InterruptedException {
+        if (min < 0 || max < 1 || min > max) {
+            throw new IllegalArgumentException(
+                String.format("Invalid batch bounds: min=%d, max=%d", min, max)
+            );
+        }
+        long remainingNanos = unit.toNanos(timeout);
+        synchronized (lock) {
+            long deadline = System.nanoTime() + remainingNanos;
+            while (sizeLocked() < min && remainingNanos > 0) {
+                TimeUnit.NANOSECONDS.timedWait(lock, remainingNanos);
+                remainingNanos = deadline - System.nanoTime();
+            }
+            List<Log> batch = new ArrayList<>(Math.min(max, sizeLocked()));
+            drainLocked(batch, max);
+            return batch;
+        }
+    }
+    
+    @Override
+    public int drainTo(Collection<? super Log> target, int max) {
+        synchronized (lock) {
+            return drainLocked(target, max);
+        }
+    }
+    
+    // Caller must hold lock
+    private int drainLocked(Collection<? super Log> target, int max) {
+        int drained = 0;
+        Log log;
+        while (drained < max && (log = pollLocked()) != null) {
+            target.add(log);
+            drained++;
+        }
+        if (drained > 0) {
+            lock.notifyAll();
+        }
+        return drained;
+    }
+    
+    // Caller must hold lock
+    private int sizeLocked() {
+        return (int) Math.min(Integer.MAX_VALUE, memory.size() + spill.size());
+    }
+    
+    /**
+     * Logs in memory plus logs on disk.
+     */
+    @Override
+    public int size() {
+        synchronized (lock) {
+            return sizeLocked();
+        }
+    }
+    
+    @Override
+    public boolean isEmpty() {
+        synchronized (lock) {
+            return memory.isEmpty() && spill.isEmpty();
+        }
+    }
+    
+    public long getSpilledCount() {
+        synchronized (lock) {
+            return spill.size();
+        }
+    }
+    
+    public long getSpilledTotal() {
+        synchronized (lock) {
+            return spilledTotal;
+        }
+    }
+    
+    public long getRecoveredAtStart() {
+        return recoveredAtStart;
+    }
+    
+    /**
+     * Unmaps the segments. Unconsumed spilled logs stay on disk for the next run;
+     * logs still in memory are lost, as with LogQueue.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            spill.close();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.logprocessing;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * STEP 26: Per-Stage Nanosecond Timers
+ * 
+ * Time spent in each ProcessingStage, measured with System.nanoTime() and
+ * recorded in microseconds.
+ * 
+ * KEY CONCEPTS:
+ * - nanoTime() is monotonic and sub-microsecond; currentTimeMillis() is
+ *   wall-clock, can jump, and rounds anything under 1ms to 0
+ * - One histogram per stage: the end-to-end p99 says THAT processing is
+ *   slow, the stage histograms say WHERE
+ * - Lifetime histogram plus a 1-minute RollingWindow per stage: the window
+ *   follows the current load level, the lifetime view does not
+ * 
+ * WHY THIS DESIGN:
+ * - Back-to-back timestamps: the end of one stage is the start of the
+ *   next, so one nanoTime() call per stage and no gaps between stages
+ * - Lock-free striped histograms: recording costs an atomic increment per
+ *   stage, not a lock shared by every worker
+ * 
+ * WHAT WOULD GO WRONG WITHOUT IT:
+ * - Tuning the wrong stage: a 110ms average hides that the tail is all DB
+ * - Sub-millisecond stages (real parsers, validators) measure as 0
+ */
+public class StageTimers {
+    
+    private final LatencyHistogram[] lifetime = new LatencyHistogram[ProcessingStage.COUNT];
+    private final RollingWindow[] recent = new RollingWindow[ProcessingStage.COUNT];
+    private final LongAdder[] totalNanos = new LongAdder[ProcessingStage.COUNT];
+    
+    public StageTimers() {
+        for (int i = 0; i < ProcessingStage.COUNT; i++) {
+            lifetime[i] = new LatencyHistogram();
+            recent[i] = new RollingWindow("1m", 12, 5000); // 12 × 5s buckets
+            totalNanos[i] = new LongAdder();
+        }
+    }
+    
+    /**
+     * Records one execution of a stage.
+     */
+    public void record(ProcessingStage stage, long nanos) {
+        int i = stage.ordinal();
+        long micros = nanos / 1000;
+        lifetime[i].record(micros);
+        recent[i].record(false, false, micros);
+        totalNanos[i].add(nanos);
+    }
+    
+    /**
+     * Stage time (µs) since start.
+     */
+    public LatencyHistogram.Snapshot snapshot(ProcessingStage stage) {
+        return lifetime[stage.ordinal()].snapshot();
+    }
+    
+    /**
+     * Stage time (µs) over the last minute.
+     */
+    public LatencyHistogram.Snapshot recentSnapshot(ProcessingStage stage) {
+        return recent[stage.ordinal()].snapshot().getLatency();
+    }
+    
+    public long getTotalNanos(ProcessingStage stage) {
+        return totalNanos[stage.ordinal()].sum();
+    }
+    
+    /**
+     * One line per stage: share of total time and lifetime percentiles (ms).
+     */
+    public String describe() {
+        long allNanos = 0;
+        for (LongAdder total : totalNanos) {
+            allNanos += total.sum();
+        }
+        StringBuilder sb = new StringBuilder();
+        for (ProcessingStage stage : ProcessingStage.inOrder()) {
+            LatencyHistogram.Snapshot snapshot = snapshot(stage);
+            sb.append(
+                String.format(
+                    "  %-10s %5.1f%% of time | p50=%.3f p99=%.3f p99.9=%.3f max=%.3f ms%n",
+                    stage.getMetricName(),
+                    allNanos > 0 ? (double) getTotalNanos(stage) / allNanos * 100 : 0.0,
+                    snapshot.getP50() / 1000.0,
+                    snapshot.getP99() / 1000.0,
+                    snapshot.getP999() / 1000.0,
+                    snapshot.getMax() / 1000.0
+                )
+            );
+        }
+        return sb.toString();
+    }
+    
+    /**
+     * Compact last-minute p99 per stage, for the periodic monitor line.
+     */
+    public String describeRecentP99() {
+        StringBuilder sb = new StringBuilder();
+        ProcessingStage slowest = null;
+        long slowestP99 = -1;
+        for (ProcessingStage stage : ProcessingStage.inOrder()) {
+            long p99 = recentSnapshot(stage).getP99();
+            if (sb.length() > 0) {
+                sb.append(' ');
+            }
+            sb.append(String.format("%s=%.1f", stage.getMetricName(), p99 / 1000.0));
+            if (p99 > slowestP99) {
+                slowestP99 = p99;
+                slowest = stage;
+            }
+        }
+        return String.format("%s ms (tail: %s)", sb, slowest.getMetricName());
+    }
+}
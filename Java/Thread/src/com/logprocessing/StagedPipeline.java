@@ -0,0 +1,376 @@
+package com.logprocessing;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * STEP 27: Staged Event-Driven Pipeline (SEDA)
+ * 
+ * One thread pool per ProcessingStage, connected by bounded queues:
+ * 
+ * <pre>
+ * input queue → [parse] → q → [db_write] → q → [network] → q → [validation] → done
+ * </pre>
+ * 
+ * KEY CONCEPTS:
+ * - Stage isolation: a thread blocked on the database holds a db_write
+ *   thread, not a thread that could be parsing
+ * - Per-stage sizing: CPU stages need about a core each; I/O stages need
+ *   as many threads as requests they keep in flight (rate × stage time)
+ * - Bounded queues between stages: a slow stage fills its input queue and
+ *   blocks the stage before it, so backpressure reaches the producers
+ *   instead of memory growing without limit
+ * - Queue depth per stage shows the bottleneck directly: it is the stage
+ *   with the full queue in front of it
+ * 
+ * WHY THIS DESIGN:
+ * - With one pool running all four stages, adding threads for I/O also
+ *   adds CPU-stage concurrency, and sizing for CPU starves I/O
+ * - Each stage only needs its share of threads: stage time / total time
+ * 
+ * WHAT WOULD GO WRONG WITHOUT IT:
+ * - Pool sizing is a single compromise for work with different shapes
+ * - A DB slowdown occupies every worker, parsing stops too
+ * 
+ * TRADE-OFFS:
+ * - One hand-off per stage: more queue operations and context switches
+ *   per log than a single worker doing all four stages
+ * - Per-log latency includes time queued between stages
+ * 
+ * SHUTDOWN:
+ * Stages stop in order. The parse stage stops taking input; every later
+ * stage drains its queue and exits once the stage before it has exited,
+ * so logs already accepted are finished unless the timeout passes.
+ */
+public class StagedPipeline {
+    
+    /**
+     * Callbacks from stage threads.
+     */
+    public interface Listener {
+        /** The parse stage took a log from the input queue */
+        void onAccepted(Log log);
+        
+        /**
+         * The last stage finished a log.
+         * 
+         * @param pipelineNanos accepted → finished, including time queued between stages
+         * @param busyNanos     sum of the stage times (what a single worker would have spent)
+         */
+        void onCompleted(Log log, long pipelineNanos, long busyNanos);
+    }
+    
+    private static final ProcessingStage[] STAGES = ProcessingStage.inOrder();
+    private static final long POLL_TIMEOUT_MS = 100; // Re-check shutdown while idle
+    
+    private final BlockingLogQueue input;
+    private final int[] threads;
+    private final int queueCapacity;
+    private final StageTimers timers;
+    private final Listener listener;
+    
+    // queues[i] feeds stage i; stage 0 reads the input queue (queues[0] unused)
+    private final BlockingQueue<Task>[] queues;
+    private final ExecutorService[] executors;
+    private final AtomicIntegerArray liveThreads = new AtomicIntegerArray(STAGES.length);
+    private final AtomicIntegerArray peakDepth = new AtomicIntegerArray(STAGES.length);
+    private final LongAdder[] processed = new LongAdder[STAGES.length];
+    private volatile boolean stopping = false;
+    
+    /**
+     * A log in flight. Owned by one stage thread at a time; the queue
+     * hand-off publishes it to the next.
+     */
+    private static final class Task {
+        private final Log log;
+        private final long acceptedNanos;
+        private long busyNanos;
+        
+        private Task(Log log, long acceptedNanos) {
+            this.log = log;
+            this.acceptedNanos = acceptedNanos;
+        }
+    }
+    
+    /**
+     * @param threads       threads per stage, indexed by ProcessingStage.ordinal()
+     * @param queueCapacity bound of each inter-stage queue
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public StagedPipeline(BlockingLogQueue input, int[] threads, int queueCapacity,
+                          StageTimers timers, Listener listener) {
+        if (threads.length != STAGES.length) {
+            throw new IllegalArgumentException("Expected threads for " + STAGES.length + " stages");
+        }
+        this.input = input;
+        this.threads = threads.clone();
+        this.queueCapacity = queueCapacity;
+        this.timers = timers;
+        this.listener = listener;
+        this.queues = new BlockingQueue[STAGES.length];
+        this.executors = new ExecutorService[STAGES.length];
+        for (int i = 0; i < STAGES.length; i++) {
+            if (this.threads[i] < 1) {
+                throw new IllegalArgumentException("Stage " + STAGES[i].getMetricName() + " needs at least 1 thread");
+            }
+            queues[i] = i == 0 ? null : new ArrayBlockingQueue<>(queueCapacity);
+            processed[i] = new LongAdder();
+            final String prefix = "stage-" + STAGES[i].getMetricName() + "-";
+            final AtomicInteger threadNumber = new AtomicInteger(0);
+            executors[i] = Executors.newFixedThreadPool(
+                this.threads[i],
+                runnable -> new Thread(runnable, prefix + threadNumber.incrementAndGet())
+            );
+        }
+    }
+    
+    /**
+     * Default sizing: the same total thread budget as a single pool, shared
+     * in proportion to each stage's time (at least one thread per stage).
+     * 
+     * Largest-remainder rounding: every stage gets the floor of its exact
+     * share, then the threads left over go to the largest fractions. Rounding
+     * each share up instead oversubscribes (16 threads became 3+8+5+2=18).
+     * The shares sum to totalThreads unless it is below the stage count,
+     * where the one-thread minimum wins.
+     */
+    public static int[] proportionalThreads(int totalThreads) {
+        long totalMillis = 0;
+        for (ProcessingStage stage : STAGES) {
+            totalMillis += stage.getSimulatedMillis();
+        }
+        int[] threads = new int[STAGES.length];
+        long[] remainders = new long[STAGES.length]; // Fraction of a thread, in units of 1/totalMillis
+        int assigned = 0;
+        for (ProcessingStage stage : STAGES) {
+            long exact = (long) totalThreads * stage.getSimulatedMillis();
+            int i = stage.ordinal();
+            threads[i] = (int) Math.max(1, exact / totalMillis);
+            remainders[i] = exact >= totalMillis ? exact % totalMillis : 0; // Minimum already covers it
+            assigned += threads[i];
+        }
+        for (; assigned < totalThreads; assigned++) {
+            int largest = 0;
+            for (int i = 1; i < STAGES.length; i++) {
+                if (remainders[i] > remainders[largest]) {
+                    largest = i;
+                }
+            }
+            threads[largest]++;
+            remainders[largest] = -1; // At most one extra thread per stage
+        }
+        for (; assigned > totalThreads; assigned--) {
+            // Minimums pushed us over: take back from the stage with the most threads
+            int most = 0;
+            for (int i = 1; i < STAGES.length; i++) {
+                if (threads[i] > threads[most]) {
+                    most = i;
+                }
+            }
+            if (threads[most] == 1) {
+                break; // Fewer threads than stages
+            }
+            threads[most]--;
+        }
+        return threads;
+    }
+    
+    public void start() {
+        // Count every thread first: a stage must not see its upstream as "exited" before it started
+        for (int i = 0; i < STAGES.length; i++) {
+            liveThreads.set(i, threads[i]);
+        }
+        for (int i = 0; i < STAGES.length; i++) {
+            final int stage = i;
+            for (int t = 0; t < threads[i]; t++) {
+                executors[i].execute(() -> runStage(stage));
+            }
+        }
+        System.out.println("[StagedPipeline] Started: " + describeThreads());
+    }
+    
+    private void runStage(int stage) {
+        ProcessingStage current = STAGES[stage];
+        boolean last = stage == STAGES.length - 1;
+        try {
+            while (true) {
+                Task task = stage == 0 ? acceptInput() : queues[stage].poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (task == null) {
+                    if (inputClosed(stage)) {
+                        break;
+                    }
+                    continue;
+                }
+                
+                long stageStart = System.nanoTime();
+                current.simulate();
+                long stageNanos = System.nanoTime() - stageStart;
+                timers.record(current, stageNanos);
+                task.busyNanos += stageNanos;
+                processed[stage].increment();
+                
+                if (last) {
+                    listener.onCompleted(task.log, System.nanoTime() - task.acceptedNanos, task.busyNanos);
+                } else {
+                    BlockingQueue<Task> next = queues[stage + 1];
+                    next.put(task); // Blocks while the next stage is behind: backpressure
+                    int depth = next.size();
+                    if (depth > peakDepth.get(stage + 1)) {
+                        peakDepth.accumulateAndGet(stage + 1, depth, Math::max);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            // Forced shutdown: logs held by this stage are abandoned
+            Thread.currentThread().interrupt();
+        } finally {
+            liveThreads.decrementAndGet(stage);
+        }
+    }
+    
+    private Task acceptInput() throws InterruptedException {
+        if (stopping) {
+            return null;
+        }
+        List<Log> logs = input.takeBatch(1, 1, POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        if (logs.isEmpty()) {
+            return null;
+        }
+        Log log = logs.get(0);
+        listener.onAccepted(log);
+        return new Task(log, System.nanoTime());
+    }
+    
+    /**
+     * No more work will arrive for this stage: its upstream has stopped and
+     * its queue is empty. The queue is re-checked after reading the
+     * upstream count, because the upstream's last put() happens before its exit.
+     */
+    private boolean inputClosed(int stage) {
+        if (stage == 0) {
+            return stopping;
+        }
+        return liveThreads.get(stage - 1) == 0 && queues[stage].isEmpty();
+    }
+    
+    /**
+     * Stops accepting input and lets accepted logs finish.
+     * 
+     * @return true if every stage drained within the timeout
+     */
+    public boolean shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        stopping = true;
+        for (ExecutorService executor : executors) {
+            executor.shutdown();
+        }
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        boolean drained = true;
+        for (ExecutorService executor : executors) {
+            long remaining = deadline - System.nanoTime();
+            if (!executor.awaitTermination(Math.max(0, remaining), TimeUnit.NANOSECONDS)) {
+                drained = false;
+            }
+        }
+        if (!drained) {
+            int abandoned = getInFlightQueued();
+            for (ExecutorService executor : executors) {
+                executor.shutdownNow();
+            }
+            for (ExecutorService executor : executors) {
+                executor.awaitTermination(5, TimeUnit.SECONDS);
+            }
+            System.out.println(
+                String.format(
+                    "[StagedPipeline] Drain timed out, interrupted stages (%d logs queued between stages)",
+                    abandoned
+                )
+            );
+        }
+        return drained;
+    }
+    
+    public int getThreads(ProcessingStage stage) {
+        return threads[stage.ordinal()];
+    }
+    
+    /**
+     * Logs waiting in front of the stage (the input queue for PARSE).
+     */
+    public int getQueueDepth(ProcessingStage stage) {
+        return stage.ordinal() == 0 ? input.size() : queues[stage.ordinal()].size();
+    }
+    
+    /**
+     * Highest depth seen in front of the stage (inter-stage queues only).
+     */
+    public int getPeakQueueDepth(ProcessingStage stage) {
+        return peakDepth.get(stage.ordinal());
+    }
+    
+    public long getProcessed(ProcessingStage stage) {
+        return processed[stage.ordinal()].sum();
+    }
+    
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+    
+    private int getInFlightQueued() {
+        int queued = 0;
+        for (int i = 1; i < STAGES.length; i++) {
+            queued += queues[i].size();
+        }
+        return queued;
+    }
+    
+    private String describeThreads() {
+        StringBuilder sb = new StringBuilder();
+        for (ProcessingStage stage : STAGES) {
+            if (sb.length() > 0) {
+                sb.append(" → ");
+            }
+            sb.append(String.format("%s×%d", stage.getMetricName(), getThreads(stage)));
+        }
+        return String.format("%s (inter-stage queues: %d)", sb, queueCapacity);
+    }
+    
+    /**
+     * One-line queue depth per stage, for the periodic monitor.
+     */
+    public String describeDepths() {
+        StringBuilder sb = new StringBuilder();
+        for (ProcessingStage stage : STAGES) {
+            if (sb.length() > 0) {
+                sb.append(" | ");
+            }
+            sb.append(String.format("%s: %d", stage.getMetricName(), getQueueDepth(stage)));
+        }
+        return sb.toString();
+    }
+    
+    /**
+     * Per-stage threads, processed count and peak queue depth.
+     */
+    public String describe() {
+        StringBuilder sb = new StringBuilder();
+        for (ProcessingStage stage : STAGES) {
+            sb.append(
+                String.format(
+                    "  %-10s threads=%d processed=%d peak queue=%s%n",
+                    stage.getMetricName(),
+                    getThreads(stage),
+                    getProcessed(stage),
+                    stage.ordinal() == 0 ? "n/a (input queue)" : getPeakQueueDepth(stage) + "/" + queueCapacity
+                )
+            );
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,263 @@
+package com.logprocessing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * STEP 15: Incremental Streaming Alert Evaluator
+ * 
+ * Keeps alert state up to date as each log is recorded, instead of copying
+ * every N logs into a list and evaluating the copy on another thread.
+ * 
+ * KEY CONCEPTS:
+ * - Sliding window: Ring of the last windowSize log levels/sources with
+ *   running rule counters → O(1) update per log, no list copies
+ * - Rules come from the service's compiled AlertRuleEngine; adding a log
+ *   increments its counters, evicting one decrements them
+ * - Edge-triggered alerts: Listeners fire when the window goes OK → ALERT,
+ *   not on every log while the condition persists
+ * - CompletableFuture callbacks: Building the AlertResult and notifying
+ *   listeners runs on the alert executor, never on the worker thread
+ * 
+ * WHY THIS DESIGN:
+ * - The old addToBatch() copied each batch and started a new Thread just to
+ *   block on the Future → thousands of short-lived threads under load
+ * - Alert state was only as fresh as the last full batch
+ * 
+ * THREAD SAFETY:
+ * - record() holds a private lock for a handful of array/counter updates
+ * - Listener callbacks run outside the lock on the alert executor
+ */
+public class StreamingAlertEvaluator {
+    
+    private static final int RECENT_ERROR_MESSAGES = 5;
+    
+    private final AlertEvaluationService alertService;
+    private final AlertRuleEngine ruleEngine;
+    private final int windowSize;
+    
+    // Sliding window state, guarded by windowLock
+    private final Object windowLock = new Object();
+    private final byte[] levels;   // LogLevel ordinals
+    private final int[] sourceIds; // SourceRegistry ids
+    private final long[] counters;
+    private final String[] recentErrors = new String[RECENT_ERROR_MESSAGES];
+    private int head = 0;
+    private int filled = 0;
+    private int recentErrorIndex = 0;
+    private boolean alertActive = false;
+    
+    private final List<Consumer<AlertEvaluationService.AlertResult>> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong logsRecorded = new AtomicLong(0);
+    private final AtomicLong alertsRaised = new AtomicLong(0);
+    private final AtomicLong alertsCleared = new AtomicLong(0);
+    private volatile AlertEvaluationService.AlertResult lastAlert;
+    
+    /**
+     * @param windowSize number of most recent logs the thresholds apply to
+     */
+    public StreamingAlertEvaluator(AlertEvaluationService alertService, int windowSize) {
+        if (windowSize < 1) {
+            throw new IllegalArgumentException("Window size must be positive: " + windowSize);
+        }
+        this.alertService = alertService;
+        this.ruleEngine = alertService.getRuleEngine();
+        this.windowSize = windowSize;
+        this.levels = new byte[windowSize];
+        this.sourceIds = new int[windowSize];
+        this.counters = ruleEngine.newCounters();
+    }
+    
+    /**
+     * Registers a callback invoked (asynchronously) each time an alert is raised.
+     */
+    public void onAlert(Consumer<AlertEvaluationService.AlertResult> listener) {
+        listeners.add(listener);
+    }
+    
+    /**
+     * Adds one log to the sliding window and updates alert state.
+     * 
+     * Cost per call: constant, independent of window size.
+     */
+    public void record(Log log) {
+        LogLevel level = log.getLogLevel();
+        logsRecorded.incrementAndGet();
+        
+        Transition transition;
+        synchronized (windowLock) {
+            transition = addLocked(level, log.getSourceId(), level == LogLevel.ERROR ? log.getMessage() : null);
+        }
+        if (transition != null) {
+            dispatch(transition);
+        }
+    }
+    
+    /**
+     * Adds every row of a columnar batch under ONE lock acquisition.
+     * 
+     * Alert edges are still detected per row, so a spike inside the batch
+     * raises an alert even if the window is back to OK by the last row.
+     */
+    public void record(LogBatch batch) {
+        int rows = batch.size();
+        logsRecorded.addAndGet(rows);
+        
+        List<Transition> transitions = null;
+        synchronized (windowLock) {
+            for (int i = 0; i < rows; i++) {
+                LogLevel level = batch.getLevel(i);
+                Transition transition = addLocked(
+                    level,
+                    batch.getSourceId(i),
+                    level == LogLevel.ERROR ? batch.getMessage(i) : null
+                );
+                if (transition != null) {
+                    if (transitions == null) {
+                        transitions = new ArrayList<>(2);
+                    }
+                    transitions.add(transition);
+                }
+            }
+        }
+        if (transitions != null) {
+            for (Transition transition : transitions) {
+                dispatch(transition);
+            }
+        }
+    }
+    
+    /**
+     * Caller must hold windowLock.
+     * 
+     * @return the alert state change caused by this log, or null (the common case)
+     */
+    private Transition addLocked(LogLevel level, int sourceId, String errorMessage) {
+        // Evict the oldest log once the window is full
+        if (filled == windowSize) {
+            ruleEngine.accumulate(counters, LogLevel.fromOrdinal(levels[head]), sourceIds[head], -1);
+        } else {
+            filled++;
+        }
+        levels[head] = (byte) level.ordinal();
+        sourceIds[head] = sourceId;
+        ruleEngine.accumulate(counters, level, sourceId, +1);
+        head = (head + 1) % windowSize;
+        
+        if (errorMessage != null) {
+            recentErrors[recentErrorIndex] = errorMessage;
+            recentErrorIndex = (recentErrorIndex + 1) % RECENT_ERROR_MESSAGES;
+        }
+        
+        // Warm-up: a rate over the first few logs is meaningless (1 error in 2 = 50%)
+        boolean exceeded = filled == windowSize && ruleEngine.firstMatch(counters) >= 0;
+        if (exceeded == alertActive) {
+            return null; // No state change
+        }
+        alertActive = exceeded;
+        return new Transition(counters.clone(), exceeded ? copyRecentErrors() : null);
+    }
+    
+    private void dispatch(Transition transition) {
+        if (transition.errorMessages != null) {
+            raiseAlert(transition.counters, transition.errorMessages);
+        } else {
+            alertsCleared.incrementAndGet();
+        }
+    }
+    
+    /**
+     * Evaluates the current window synchronously (used for the final report
+     * at shutdown). A read-only look: not counted as a triggered alert.
+     */
+    public AlertEvaluationService.AlertResult evaluateNow() {
+        synchronized (windowLock) {
+            return alertService.previewCounters(counters.clone(), copyRecentErrors());
+        }
+    }
+    
+    private void raiseAlert(long[] snapshot, List<String> messages) {
+        alertsRaised.incrementAndGet();
+        try {
+            CompletableFuture
+                .supplyAsync(
+                    () -> alertService.evaluateCounters(snapshot, messages),
+                    alertService.getCallbackExecutor()
+                )
+                .thenAccept(result -> {
+                    lastAlert = result;
+                    for (Consumer<AlertEvaluationService.AlertResult> listener : listeners) {
+                        listener.accept(result);
+                    }
+                })
+                .exceptionally(error -> {
+                    System.err.println(
+                        String.format(
+                            "[Streaming Alert] Alert callback failed: %s",
+                            error.getMessage()
+                        )
+                    );
+                    return null;
+                });
+        } catch (RejectedExecutionException e) {
+            // Alert executor already shut down - nobody left to notify
+            System.out.println("[Streaming Alert] Alert raised during shutdown, not dispatched");
+        }
+    }
+    
+    // Caller must hold windowLock. Oldest first.
+    private List<String> copyRecentErrors() {
+        List<String> messages = new ArrayList<>(RECENT_ERROR_MESSAGES);
+        for (int i = 0; i < RECENT_ERROR_MESSAGES; i++) {
+            String message = recentErrors[(recentErrorIndex + i) % RECENT_ERROR_MESSAGES];
+            if (message != null) {
+                messages.add(message);
+            }
+        }
+        return messages;
+    }
+    
+    public long getLogsRecorded() {
+        return logsRecorded.get();
+    }
+    
+    public long getAlertsRaised() {
+        return alertsRaised.get();
+    }
+    
+    public long getAlertsCleared() {
+        return alertsCleared.get();
+    }
+    
+    public boolean isAlertActive() {
+        synchronized (windowLock) {
+            return alertActive;
+        }
+    }
+    
+    public AlertEvaluationService.AlertResult getLastAlert() {
+        return lastAlert;
+    }
+    
+    public int getWindowSize() {
+        return windowSize;
+    }
+    
+    /**
+     * OK → ALERT (errorMessages != null) or ALERT → OK (errorMessages == null).
+     */
+    private static final class Transition {
+        private final long[] counters;
+        private final List<String> errorMessages;
+        
+        private Transition(long[] counters, List<String> errorMessages) {
+            this.counters = counters;
+            this.errorMessages = errorMessages;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.logprocessing;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates thread-per-task executors backed by virtual threads (Java 21+).
+ * 
+ * The project still compiles and runs on Java 8, so the Java 21 API is
+ * looked up reflectively. On older runtimes we fall back to a cached pool
+ * of platform threads and say so once at startup.
+ */
+final class VirtualThreads {
+    
+    private VirtualThreads() {
+    }
+    
+    /**
+     * Returns true if the running JVM supports virtual threads.
+     */
+    static boolean isSupported() {
+        return virtualThreadFactory("probe-") != null;
+    }
+    
+    /**
+     * Creates an executor that starts one new (virtual) thread per task.
+     */
+    static ExecutorService newPerTaskExecutor(String namePrefix) {
+        ThreadFactory factory = virtualThreadFactory(namePrefix);
+        if (factory != null) {
+            try {
+                Method newThreadPerTask = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+                return (ExecutorService) newThreadPerTask.invoke(null, factory);
+            } catch (ReflectiveOperationException e) {
+                // Fall through to platform threads
+            }
+        }
+        
+        System.out.println(
+            String.format(
+                "[VirtualThreads] Virtual threads unavailable on Java %s, using cached platform thread pool",
+                System.getProperty("java.version")
+            )
+        );
+        AtomicInteger counter = new AtomicInteger(0);
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * Equivalent of Thread.ofVirtual().name(namePrefix, 0).factory(), or null
+     * when the runtime predates virtual threads.
+     */
+    private static ThreadFactory virtualThreadFactory(String namePrefix) {
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+}
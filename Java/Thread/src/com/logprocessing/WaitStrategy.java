@@ -0,0 +1,244 @@
+package com.logprocessing;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Pluggable wait strategy for RingBufferLogQueue.
+ * 
+ * Decides what a thread does while the ring buffer cannot make progress
+ * (producer: buffer full, consumer: buffer empty).
+ * 
+ * KEY CONCEPTS:
+ * - BLOCKING: Park on a Condition - lowest CPU, highest wake-up latency
+ * - YIELDING: Spin briefly, then Thread.yield() - medium CPU, low latency
+ * - BUSY_SPIN: Spin on the CPU - burns a core, lowest latency
+ * 
+ * WHY THIS DESIGN:
+ * - The queue algorithm stays the same; only the idle behaviour changes
+ * - Each deployment can trade CPU for latency without code changes
+ * 
+ * Strategies are stateful (waiter counts, locks), so each queue should
+ * get its own instance from the factory methods below.
+ */
+public interface WaitStrategy {
+    
+    /**
+     * Which side of the buffer a thread waits on.
+     */
+    enum Side {
+        PRODUCERS, // Waiting for a free slot (buffer full)
+        CONSUMERS  // Waiting for a log (buffer empty)
+    }
+    
+    /**
+     * Waits on the given side until ready returns true.
+     * 
+     * The caller re-checks its own operation afterwards, so a spurious
+     * return (condition true but another thread won the slot) is harmless.
+     */
+    void await(Side side, BooleanSupplier ready) throws InterruptedException;
+    
+    /**
+     * Waits on the given side until ready returns true or the timeout elapses.
+     * 
+     * @return the final value of ready
+     */
+    boolean await(Side side, BooleanSupplier ready, long timeoutNanos) throws InterruptedException;
+    
+    /**
+     * Wakes the threads waiting on one side: CONSUMERS after a successful
+     * offer, PRODUCERS after a successful poll.
+     */
+    void signal(Side side);
+    
+    static WaitStrategy blocking() {
+        return new BlockingWaitStrategy();
+    }
+    
+    static WaitStrategy yielding() {
+        return new YieldingWaitStrategy();
+    }
+    
+    static WaitStrategy busySpin() {
+        return new BusySpinWaitStrategy();
+    }
+    
+    /**
+     * Resolves a strategy by name: "blocking", "yielding" or "busy-spin".
+     */
+    static WaitStrategy fromName(String name) {
+        switch (name.trim().toLowerCase()) {
+            case "blocking":
+                return blocking();
+            case "yielding":
+                return yielding();
+            case "busy-spin":
+            case "busyspin":
+                return busySpin();
+            default:
+                throw new IllegalArgumentException("Unknown wait strategy: " + name);
+        }
+    }
+    
+    /**
+     * Parks waiting threads on a Condition per side (not full / not empty).
+     * 
+     * LOST WAKE-UP PREVENTION:
+     * - A waiter registers itself (waiters++) BEFORE checking the condition
+     * - A signaller publishes its change BEFORE reading waiters
+     * - Both are volatile accesses, so at least one side sees the other:
+     *   either the waiter sees the new state, or the signaller sees the waiter
+     * 
+     * NO THUNDERING HERD ACROSS SIDES:
+     * - A poll wakes only blocked producers, an offer only blocked consumers;
+     *   with one shared condition every hand-off woke both sides
+     * - signal() skips the lock entirely when nobody waits on that side,
+     *   which is the common case under load
+     * - Within a side it is still signalAll: waiters' conditions differ
+     *   (takeLog wants 1 log, takeBatch wants min), so a single signal could
+     *   wake a thread that goes back to sleep while another could proceed
+     */
+    class BlockingWaitStrategy implements WaitStrategy {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition notFull = lock.newCondition();  // Producers park here
+        private final Condition notEmpty = lock.newCondition(); // Consumers park here
+        private final AtomicInteger producersWaiting = new AtomicInteger(0);
+        private final AtomicInteger consumersWaiting = new AtomicInteger(0);
+        
+        @Override
+        public void await(Side side, BooleanSupplier ready) throws InterruptedException {
+            Condition condition = conditionFor(side);
+            AtomicInteger waiters = waitersFor(side);
+            lock.lockInterruptibly();
+            waiters.incrementAndGet();
+            try {
+                while (!ready.getAsBoolean()) {
+                    condition.await();
+                }
+            } finally {
+                waiters.decrementAndGet();
+                lock.unlock();
+            }
+        }
+        
+        @Override
+        public boolean await(Side side, BooleanSupplier ready, long timeoutNanos) throws InterruptedException {
+            Condition condition = conditionFor(side);
+            AtomicInteger waiters = waitersFor(side);
+            lock.lockInterruptibly();
+            waiters.incrementAndGet();
+            try {
+                long remaining = timeoutNanos;
+                boolean isReady;
+                while (!(isReady = ready.getAsBoolean()) && remaining > 0) {
+                    remaining = condition.awaitNanos(remaining);
+                }
+                return isReady;
+            } finally {
+                waiters.decrementAndGet();
+                lock.unlock();
+            }
+        }
+        
+        @Override
+        public void signal(Side side) {
+            if (waitersFor(side).get() > 0) {
+                lock.lock();
+                try {
+                    conditionFor(side).signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+        
+        private Condition conditionFor(Side side) {
+            return side == Side.PRODUCERS ? notFull : notEmpty;
+        }
+        
+        private AtomicInteger waitersFor(Side side) {
+            return side == Side.PRODUCERS ? producersWaiting : consumersWaiting;
+        }
+    }
+    
+    /**
+     * Spins for a short while, then yields the CPU between checks.
+     */
+    class YieldingWaitStrategy implements WaitStrategy {
+        private static final int SPIN_TRIES = 100;
+        
+        @Override
+        public void await(Side side, BooleanSupplier ready) throws InterruptedException {
+            int counter = 0;
+            while (!ready.getAsBoolean()) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException("Interrupted while waiting on ring buffer");
+                }
+                if (++counter > SPIN_TRIES) {
+                    Thread.yield();
+                }
+            }
+        }
+        
+        @Override
+        public boolean await(Side side, BooleanSupplier ready, long timeoutNanos) throws InterruptedException {
+            long deadline = System.nanoTime() + timeoutNanos;
+            int counter = 0;
+            while (!ready.getAsBoolean()) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException("Interrupted while waiting on ring buffer");
+                }
+                if (System.nanoTime() - deadline >= 0) {
+                    return false;
+                }
+                if (++counter > SPIN_TRIES) {
+                    Thread.yield();
+                }
+            }
+            return true;
+        }
+        
+        @Override
+        public void signal(Side side) {
+            // Waiters never sleep, nothing to wake
+        }
+    }
+    
+    /**
+     * Re-checks the condition in a tight loop.
+     * Only use when a dedicated core is available per waiting thread.
+     */
+    class BusySpinWaitStrategy implements WaitStrategy {
+        
+        @Override
+        public void await(Side side, BooleanSupplier ready) throws InterruptedException {
+            while (!ready.getAsBoolean()) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException("Interrupted while waiting on ring buffer");
+                }
+            }
+        }
+        
+        @Override
+        public boolean await(Side side, BooleanSupplier ready, long timeoutNanos) throws InterruptedException {
+            long deadline = System.nanoTime() + timeoutNanos;
+            while (!ready.getAsBoolean()) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException("Interrupted while waiting on ring buffer");
+                }
+                if (System.nanoTime() - deadline >= 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        @Override
+        public void signal(Side side) {
+            // Waiters never sleep, nothing to wake
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.orderprocessing.worker;
 
+import com.diagnostics.DiagnosticSink;
+import com.diagnostics.DiagnosticSink.Level;
 import com.orderprocessing.model.Order;
 import com.orderprocessing.queue.OrderQueue;
 import com.orderprocessing.service.InventoryService;
@@ -35,6 +37,9 @@ import java.util.concurrent.TimeoutException;
  *    size is tuned based on workload characteristics (CPU vs I/O bound).
  */
 public class OrderWorker implements Runnable {
+    // Async, level-gated diagnostics: workers never block on System.out
+    private static final DiagnosticSink DIAGNOSTICS = DiagnosticSink.get();
+    
     private final OrderQueue orderQueue;
     private final InventoryService inventoryService;
     private final PaymentService paymentService;
@@ -57,7 +62,7 @@ public class OrderWorker implements Runnable {
     @Override
     public void run() {
         String threadName = Thread.currentThread().getName();
-        System.out.println("[Worker] " + threadName + " started");
+        DIAGNOSTICS.log(Level.INFO, "[Worker] %s started", threadName);
         
         while (running && !Thread.currentThread().isInterrupted()) {
             try {
@@ -99,7 +104,7 @@ public class OrderWorker implements Runnable {
             } catch (InterruptedException e) {
                 // Thread was interrupted - exit gracefully
                 Thread.currentThread().interrupt();
-                System.out.println("[Worker] " + threadName + " interrupted, shutting down");
+                DIAGNOSTICS.log(Level.INFO, "[Worker] %s interrupted, shutting down", threadName);
                 break;
             } catch (Exception e) {
                 System.err.println("[Worker] " + threadName + " error: " + e.getMessage());
@@ -107,7 +112,9 @@ public class OrderWorker implements Runnable {
             }
         }
         
-        System.out.println("[Worker] " + threadName + " stopped");
+        DIAGNOSTICS.log(Level.INFO, "[Worker] %s stopped", threadName);
+        // Shutdown path: get this worker's messages out before the JVM may exit
+        DIAGNOSTICS.flush(1, TimeUnit.SECONDS);
     }
     
     /**
@@ -120,14 +127,14 @@ public class OrderWorker implements Runnable {
             // Check if order was cancelled
             if (order.isCancelled()) {
                 order.setStatus(Order.OrderStatus.CANCELLED);
-                System.out.println("[Worker] " + threadName + " - Order cancelled: " + order.getOrderId());
+                DIAGNOSTICS.log(Level.INFO, "[Worker] %s - Order cancelled: %s", threadName, order.getOrderId());
                 return;
             }
             
             // Stage 1: Check inventory
             if (!inventoryService.checkInventory(order.getProductId(), order.getQuantity())) {
                 order.setStatus(Order.OrderStatus.FAILED);
-                System.out.println("[Worker] " + threadName + " - Insufficient inventory: " + order.getOrderId());
+                DIAGNOSTICS.log(Level.INFO, "[Worker] %s - Insufficient inventory: %s", threadName, order.getOrderId());
                 return;
             }
             
@@ -145,13 +152,13 @@ public class OrderWorker implements Runnable {
             } catch (TimeoutException e) {
                 paymentFuture.cancel(true);
                 order.setStatus(Order.OrderStatus.FAILED);
-                System.out.println("[Worker] " + threadName + " - Payment timeout: " + order.getOrderId());
+                DIAGNOSTICS.log(Level.WARN, "[Worker] %s - Payment timeout: %s", threadName, order.getOrderId());
                 return;
             }
             
             if (!paymentResult.isSuccess()) {
                 order.setStatus(Order.OrderStatus.FAILED);
-                System.out.println("[Worker] " + threadName + " - Payment failed: " + order.getOrderId());
+                DIAGNOSTICS.log(Level.INFO, "[Worker] %s - Payment failed: %s", threadName, order.getOrderId());
                 return;
             }
             
@@ -162,7 +169,7 @@ public class OrderWorker implements Runnable {
                 // Payment succeeded but inventory update failed - need to refund
                 orderProcessor.submitRefund(order);
                 order.setStatus(Order.OrderStatus.FAILED);
-                System.out.println("[Worker] " + threadName + " - Inventory update failed: " + order.getOrderId());
+                DIAGNOSTICS.log(Level.WARN, "[Worker] %s - Inventory update failed: %s", threadName, order.getOrderId());
                 return;
             }
             
@@ -172,12 +179,12 @@ public class OrderWorker implements Runnable {
             
             // Stage 5: Complete order
             order.setStatus(Order.OrderStatus.COMPLETED);
-            System.out.println("[Worker] " + threadName + " - Order completed: " + order.getOrderId());
+            DIAGNOSTICS.log(Level.INFO, "[Worker] %s - Order completed: %s", threadName, order.getOrderId());
             
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             order.setStatus(Order.OrderStatus.FAILED);
-            System.out.println("[Worker] " + threadName + " - Processing interrupted: " + order.getOrderId());
+            DIAGNOSTICS.log(Level.INFO, "[Worker] %s - Processing interrupted: %s", threadName, order.getOrderId());
         } catch (Exception e) {
             order.setStatus(Order.OrderStatus.FAILED);
             System.err.println("[Worker] " + threadName + " - Error processing order: " + order.getOrderId());
@@ -1,10 +1,17 @@
 package com.taskmanager;
 
+import com.diagnostics.DiagnosticSink;
+import com.diagnostics.DiagnosticSink.Level;
+import java.util.concurrent.TimeUnit;
+
 /**
  * Worker thread that processes tasks.
  * Demonstrates: Thread, Runnable, Interrupts
  */
 public class Worker implements Runnable {
+    // Async, level-gated diagnostics: workers never block on System.out
+    private static final DiagnosticSink DIAGNOSTICS = DiagnosticSink.get();
+    
     private final int workerId;
     private final TaskQueue taskQueue;
     private volatile boolean running = true; // Concept 4: volatile for visibility
@@ -20,7 +27,7 @@ public class Worker implements Runnable {
      */
     @Override
     public void run() {
-        System.out.println("Worker " + workerId + " started");
+        DIAGNOSTICS.log(Level.INFO, "Worker %d started", workerId);
         
         while (running && !Thread.currentThread().isInterrupted()) {
             try {
@@ -29,7 +36,7 @@ public class Worker implements Runnable {
                 
                 // Check if interrupted before processing
                 if (Thread.currentThread().isInterrupted()) {
-                    System.out.println("Worker " + workerId + " interrupted, stopping");
+                    DIAGNOSTICS.log(Level.INFO, "Worker %d interrupted, stopping", workerId);
                     break;
                 }
                 
@@ -37,23 +44,25 @@ public class Worker implements Runnable {
                 
             } catch (InterruptedException e) {
                 // Concept 9: Handle interrupt gracefully
-                System.out.println("Worker " + workerId + " interrupted during wait");
+                DIAGNOSTICS.log(Level.INFO, "Worker %d interrupted during wait", workerId);
                 Thread.currentThread().interrupt(); // Restore interrupt status
                 break;
             }
         }
         
-        System.out.println("Worker " + workerId + " stopped");
+        DIAGNOSTICS.log(Level.INFO, "Worker %d stopped", workerId);
+        // Shutdown path: get this worker's messages out before the JVM may exit
+        DIAGNOSTICS.flush(1, TimeUnit.SECONDS);
     }
     
     private void processTask(Task task) {
         if (task.isCancelled()) {
-            System.out.println("Worker " + workerId + " skipping cancelled task " + task.getId());
+            DIAGNOSTICS.log(Level.INFO, "Worker %d skipping cancelled task %d", workerId, task.getId());
             return;
         }
         
         task.setStatus(TaskStatus.PROCESSING);
-        System.out.println("Worker " + workerId + " processing task " + task.getId());
+        DIAGNOSTICS.log(Level.INFO, "Worker %d processing task %d", workerId, task.getId());
         
         try {
             // Simulate work
@@ -64,16 +73,16 @@ public class Worker implements Runnable {
             }
             
             task.setStatus(TaskStatus.COMPLETED);
-            System.out.println("Worker " + workerId + " completed task " + task.getId());
+            DIAGNOSTICS.log(Level.INFO, "Worker %d completed task %d", workerId, task.getId());
             
         } catch (InterruptedException e) {
             // Concept 9: Handle interrupt during processing
-            System.out.println("Worker " + workerId + " interrupted while processing task " + task.getId());
+            DIAGNOSTICS.log(Level.INFO, "Worker %d interrupted while processing task %d", workerId, task.getId());
             task.setStatus(TaskStatus.CANCELLED);
             Thread.currentThread().interrupt();
         } catch (Exception e) {
             task.setStatus(TaskStatus.FAILED);
-            System.out.println("Worker " + workerId + " failed task " + task.getId() + ": " + e.getMessage());
+            DIAGNOSTICS.log(Level.WARN, "Worker %d failed task %d: %s", workerId, task.getId(), e.getMessage());
         }
     }
     